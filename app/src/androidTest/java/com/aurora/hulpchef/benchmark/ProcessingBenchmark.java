@@ -0,0 +1,258 @@
+package com.aurora.hulpchef.benchmark;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.aurora.auroralib.ExtractedText;
+import com.aurora.hulpchef.AnnotationPipelines;
+import com.aurora.hulpchef.StepRenderModel;
+import com.aurora.souschefprocessor.facade.SouschefProcessorCommunicator;
+import com.aurora.souschefprocessor.recipe.Recipe;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measures how long processing a recipe takes, from the json Aurora sends to the render models of
+ * the steps, on the recipes of the corpus in the assets of the test apk.
+ * <p>
+ * Every run has three stages: parsing the {@link ExtractedText}, detecting the recipe with
+ * {@link SouschefProcessorCommunicator#pipeline(ExtractedText)} and building the
+ * {@link StepRenderModel}s. The pipeline is warmed up on the whole corpus first, then every recipe
+ * is processed {@link #DEFAULT_RUNS} times. The percentiles of the latency of every stage and of the
+ * bytes allocated per run are written to {@link #RESULT_FILE} in the external files of Hulpchef,
+ * where the {@code compareProcessingBenchmark} Gradle task picks them up.
+ * <p>
+ * The amount of runs can be changed with {@code -e benchmarkRuns <n>}. When the corpus changes,
+ * add a new version next to it instead of editing it, so results stay comparable with the baseline.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ProcessingBenchmark {
+    /**
+     * Tag for logging.
+     */
+    private static final String TAG = ProcessingBenchmark.class.getSimpleName();
+    /**
+     * The version of the corpus, the directory in the assets holding the recipes.
+     */
+    private static final String CORPUS = "corpus-v1";
+    /**
+     * The file the results are written to, in the external files of Hulpchef.
+     */
+    private static final String RESULT_FILE = "benchmark/processing-benchmark.json";
+    /**
+     * The amount of times the whole corpus is processed before measuring.
+     */
+    private static final int WARMUP_RUNS = 3;
+    /**
+     * The amount of measured runs of every recipe.
+     */
+    private static final int DEFAULT_RUNS = 20;
+    /**
+     * Amount of nanoseconds in a microsecond.
+     */
+    private static final long NANOS_PER_MICRO = 1000;
+    /**
+     * The stages of a run, in order, and the total.
+     */
+    private static final String[] STAGES = {"parse", "detect", "render", "total"};
+
+    /**
+     * Create the annotation pipelines once for all runs, creating them is not measured.
+     */
+    @BeforeClass
+    public static void createPipelines() {
+        AnnotationPipelines.getInstance().ensureCreated().join();
+    }
+
+    @Test
+    public void processCorpus_reportPercentiles() throws IOException, JSONException {
+        Context context = InstrumentationRegistry.getTargetContext();
+        SouschefProcessorCommunicator communicator = SouschefProcessorCommunicator.createCommunicator(context);
+        Assert.assertNotNull("The communicator could not be created", communicator);
+        Map<String, String> corpus = readCorpus();
+        Assert.assertFalse("The corpus " + CORPUS + " is empty", corpus.isEmpty());
+        int runs = getRuns();
+
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            for (String json : corpus.values()) {
+                processOnce(communicator, json, null);
+            }
+        }
+
+        JSONObject recipes = new JSONObject();
+        for (Map.Entry<String, String> recipe : corpus.entrySet()) {
+            Map<String, Samples> latencies = new LinkedHashMap<>();
+            for (String stage : STAGES) {
+                latencies.put(stage, new Samples());
+            }
+            Samples allocated = new Samples();
+            for (int i = 0; i < runs; i++) {
+                long allocatedBefore = getAllocatedBytes();
+                processOnce(communicator, recipe.getValue(), latencies);
+                long allocatedAfter = getAllocatedBytes();
+                if (allocatedBefore >= 0 && allocatedAfter >= 0) {
+                    allocated.add(allocatedAfter - allocatedBefore);
+                }
+            }
+            recipes.put(recipe.getKey(), summarise(latencies, allocated));
+            Log.i(TAG, recipe.getKey() + ": " + recipes.getJSONObject(recipe.getKey()));
+        }
+
+        JSONObject result = new JSONObject();
+        result.put("corpus", CORPUS);
+        result.put("warmupRuns", WARMUP_RUNS);
+        result.put("runs", runs);
+        result.put("device", Build.MANUFACTURER + " " + Build.MODEL);
+        result.put("sdk", Build.VERSION.SDK_INT);
+        result.put("recipes", recipes);
+        File file = writeResult(context, result);
+        Log.i(TAG, "wrote benchmark results to " + file);
+    }
+
+    /**
+     * Process a recipe once and record the latency of every stage.
+     *
+     * @param communicator the communicator to detect the recipe with
+     * @param json         the json of the extracted text
+     * @param latencies    the samples of every stage in microseconds, null for a warm-up run
+     */
+    private static void processOnce(SouschefProcessorCommunicator communicator, String json,
+                                     Map<String, Samples> latencies) {
+        long start = SystemClock.elapsedRealtimeNanos();
+        ExtractedText extractedText = ExtractedText.fromJson(json);
+        long parsed = SystemClock.elapsedRealtimeNanos();
+        Recipe recipe = (Recipe) communicator.pipeline(extractedText);
+        long detected = SystemClock.elapsedRealtimeNanos();
+        StepRenderModel.buildAll(recipe);
+        long rendered = SystemClock.elapsedRealtimeNanos();
+
+        if (latencies != null) {
+            latencies.get("parse").add((parsed - start) / NANOS_PER_MICRO);
+            latencies.get("detect").add((detected - parsed) / NANOS_PER_MICRO);
+            latencies.get("render").add((rendered - detected) / NANOS_PER_MICRO);
+            latencies.get("total").add((rendered - start) / NANOS_PER_MICRO);
+        }
+    }
+
+    /**
+     * Summarise the measurements of a recipe.
+     *
+     * @param latencies the latency of every stage in microseconds
+     * @param allocated the bytes allocated per run
+     * @return the percentiles of the latency and allocations
+     * @throws JSONException never, the keys are not null
+     */
+    private static JSONObject summarise(Map<String, Samples> latencies, Samples allocated) throws JSONException {
+        JSONObject latencyJson = new JSONObject();
+        for (Map.Entry<String, Samples> stage : latencies.entrySet()) {
+            latencyJson.put(stage.getKey(), stage.getValue().toJson());
+        }
+        JSONObject summary = new JSONObject();
+        summary.put("latencyMicros", latencyJson);
+        try {
+            summary.put("allocatedBytes", allocated.toJson());
+        } catch (IllegalStateException e) {
+            // the runtime does not count allocations
+            Log.w(TAG, "allocated bytes are not available on this runtime");
+        }
+        return summary;
+    }
+
+    /**
+     * Get the amount of bytes allocated by the runtime since it started.
+     *
+     * @return the allocated bytes, -1 when the runtime does not count them
+     */
+    private static long getAllocatedBytes() {
+        String allocated = Debug.getRuntimeStat("art.gc.bytes-allocated");
+        if (allocated == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(allocated);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Get the amount of measured runs of every recipe.
+     *
+     * @return the runs passed as the instrumentation argument benchmarkRuns, or {@link #DEFAULT_RUNS}
+     */
+    private static int getRuns() {
+        Bundle arguments = InstrumentationRegistry.getArguments();
+        String runs = arguments == null ? null : arguments.getString("benchmarkRuns");
+        return runs == null ? DEFAULT_RUNS : Integer.parseInt(runs);
+    }
+
+    /**
+     * Read the recipes of the corpus from the assets of the test apk.
+     *
+     * @return the json of every recipe by name, sorted by name
+     * @throws IOException when the assets could not be read
+     */
+    private static Map<String, String> readCorpus() throws IOException {
+        AssetManager assets = InstrumentationRegistry.getContext().getAssets();
+        String directory = "benchmark/" + CORPUS;
+        String[] files = assets.list(directory);
+        Arrays.sort(files);
+        Map<String, String> corpus = new LinkedHashMap<>();
+        for (String file : files) {
+            try (InputStream stream = assets.open(directory + "/" + file)) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read = stream.read(buffer);
+                while (read != -1) {
+                    bytes.write(buffer, 0, read);
+                    read = stream.read(buffer);
+                }
+                corpus.put(file.replace(".json", ""), new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+            }
+        }
+        return corpus;
+    }
+
+    /**
+     * Write the results to {@link #RESULT_FILE}.
+     *
+     * @param context the context of Hulpchef
+     * @param result  the results
+     * @return the file that was written
+     * @throws IOException   when the file could not be written
+     * @throws JSONException never, the results are valid json
+     */
+    private static File writeResult(Context context, JSONObject result) throws IOException, JSONException {
+        File file = new File(context.getExternalFilesDir(null), RESULT_FILE);
+        if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+            throw new IOException("Could not create " + file.getParentFile());
+        }
+        try (OutputStream stream = new FileOutputStream(file)) {
+            stream.write(result.toString(2).getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+}
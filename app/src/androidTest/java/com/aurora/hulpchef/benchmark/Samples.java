@@ -0,0 +1,67 @@
+package com.aurora.hulpchef.benchmark;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+
+/**
+ * The measurements of one stage of the benchmark, summarised as percentiles.
+ */
+final class Samples {
+    /**
+     * The percentiles that are reported.
+     */
+    static final int[] PERCENTILES = {50, 90, 99};
+
+    /**
+     * The measured values, only the first mSize are used.
+     */
+    private long[] mValues = new long[16];
+    /**
+     * The amount of measured values.
+     */
+    private int mSize = 0;
+
+    /**
+     * Add a measurement.
+     *
+     * @param value the measured value
+     */
+    void add(long value) {
+        if (mSize == mValues.length) {
+            mValues = Arrays.copyOf(mValues, mSize * 2);
+        }
+        mValues[mSize++] = value;
+    }
+
+    /**
+     * Get a percentile of the measurements, using the nearest-rank method.
+     *
+     * @param percentile the percentile, between 1 and 100
+     * @return the smallest value that is at least as large as percentile% of the measurements
+     */
+    long percentile(int percentile) {
+        if (mSize == 0) {
+            throw new IllegalStateException("No measurements");
+        }
+        long[] sorted = Arrays.copyOf(mValues, mSize);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * mSize);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    /**
+     * Summarise the measurements as JSON, with a key "p50", "p90", ... for every percentile.
+     *
+     * @return the percentiles of the measurements
+     * @throws JSONException never, the keys are not null
+     */
+    JSONObject toJson() throws JSONException {
+        JSONObject json = new JSONObject();
+        for (int percentile : PERCENTILES) {
+            json.put("p" + percentile, percentile(percentile));
+        }
+        return json;
+    }
+}
@@ -0,0 +1,119 @@
+package com.aurora.hulpchef;
+
+import android.os.AsyncTask;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.aurora.hulpchef.utilities.Metrics;
+import com.aurora.hulpchef.utilities.ProgressEstimator;
+import com.aurora.hulpchef.utilities.TraceSections;
+import com.aurora.souschefprocessor.facade.SouschefProcessorCommunicator;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A singleton class that creates the annotation pipelines of the Souschef processor on demand.
+ * <p>
+ * The pipelines hold the CoreNLP models, which take most of the heap and take seconds to create.
+ * They are created when a recipe has to be detected, not when Hulpchef starts, so opening a
+ * processed recipe never creates them. Once created they are kept for the life of the process:
+ * the processor keeps them in a static field and has no call to free them, so dropping them here
+ * would give no memory back and only make the next detection create them again.
+ * <p>
+ * The heap is measured before and after the pipelines are created, and the difference is logged
+ * and recorded in the metrics, to see how much memory they take.
+ */
+public final class AnnotationPipelines {
+    /**
+     * Tag for logging.
+     */
+    private static final String TAG = AnnotationPipelines.class.getSimpleName();
+    /**
+     * Amount of bytes in a kilobyte.
+     */
+    private static final long KILOBYTE = 1024;
+    /**
+     * The singleton instance
+     */
+    private static final AnnotationPipelines mInstance = new AnnotationPipelines();
+
+    /**
+     * Completes when the pipelines are created, null until they are first needed.
+     */
+    private CompletableFuture<Void> mCreated = null;
+
+    /**
+     * The private constructor for the AnnotationPipelines-singleton
+     */
+    private AnnotationPipelines() {
+        // Private constructor for singleton
+    }
+
+    /**
+     * Get the AnnotationPipelines instance
+     *
+     * @return the instance
+     */
+    public static AnnotationPipelines getInstance() {
+        return mInstance;
+    }
+
+    /**
+     * Start creating the pipelines in the background if they are not created yet. They are only
+     * created once, unless creating them failed.
+     *
+     * @return a future that completes when the pipelines are created
+     */
+    public synchronized CompletableFuture<Void> ensureCreated() {
+        if (mCreated == null || mCreated.isCompletedExceptionally()) {
+            mCreated = CompletableFuture.runAsync(() -> {
+                long[] heapBefore = measureHeap();
+                long start = SystemClock.elapsedRealtime();
+                TraceSections.begin("createAnnotationPipelines");
+                SouschefProcessorCommunicator.createAnnotationPipelines();
+                TraceSections.end();
+                long duration = SystemClock.elapsedRealtime() - start;
+                ProgressEstimator.getInstance().recordStage(ProgressEstimator.STAGE_PIPELINES, 0, duration);
+                reportHeap(heapBefore, measureHeap(), duration);
+            }, AsyncTask.THREAD_POOL_EXECUTOR);
+        }
+        return mCreated;
+    }
+
+    /**
+     * Check whether the pipelines are created, without starting to create them.
+     *
+     * @return true when the pipelines are created
+     */
+    public synchronized boolean isCreated() {
+        return mCreated != null && mCreated.isDone() && !mCreated.isCompletedExceptionally();
+    }
+
+    /**
+     * Measure the Java and native heap in use, after collecting the garbage so only what is
+     * reachable is counted.
+     *
+     * @return the Java and the native heap in use, in kilobytes
+     */
+    private static long[] measureHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        return new long[]{(runtime.totalMemory() - runtime.freeMemory()) / KILOBYTE,
+                Debug.getNativeHeapAllocatedSize() / KILOBYTE};
+    }
+
+    /**
+     * Log and record how much heap the pipelines take.
+     *
+     * @param before   the Java and native heap in use before creating the pipelines, in kilobytes
+     * @param after    the Java and native heap in use after creating the pipelines, in kilobytes
+     * @param duration the time it took to create the pipelines, in milliseconds
+     */
+    private static void reportHeap(long[] before, long[] after, long duration) {
+        Log.d(TAG, "created annotation pipelines in " + duration + "ms, java heap " + before[0] + "kB -> "
+                + after[0] + "kB, native heap " + before[1] + "kB -> " + after[1] + "kB");
+        Metrics.getInstance().record("annotation_pipelines_java_heap_kb", after[0] - before[0]);
+        Metrics.getInstance().record("annotation_pipelines_native_heap_kb", after[1] - before[1]);
+    }
+}
@@ -37,6 +37,10 @@ public class IngredientAdapter extends RecyclerView.Adapter<IngredientAdapter.Ca
      * Contains whether or not a checkbox is checked, for each ingredient.
      */
     private boolean[] mChecked;
+    /**
+     * The translation of the names and units, null to show those of the ingredients.
+     */
+    private TranslationOverlay mTranslation = null;
 
     /**
      * Constructs the adapter with a list
@@ -62,6 +66,16 @@ public class IngredientAdapter extends RecyclerView.Adapter<IngredientAdapter.Ca
         notifyDataSetChanged();
     }
 
+    /**
+     * Show the names and units of a translation instead of those of the ingredients.
+     *
+     * @param translation the translation, or null to show the original names and units
+     */
+    public void setTranslation(TranslationOverlay translation) {
+        mTranslation = translation;
+        notifyDataSetChanged();
+    }
+
     @NonNull
     @Override
     public CardIngredientViewHolder onCreateViewHolder(@NonNull ViewGroup viewGroup, int i) {
@@ -133,9 +147,11 @@ public class IngredientAdapter extends RecyclerView.Adapter<IngredientAdapter.Ca
          * populate individual views with the correct data
          */
         private void bind() {
-            ListIngredient ingredient = mIngredients.get(getAdapterPosition());
+            int position = getAdapterPosition();
+            ListIngredient ingredient = mIngredients.get(position);
 
-            String nameWithoutQuantityAndUnit = ingredient.getName();
+            String nameWithoutQuantityAndUnit = mTranslation == null
+                    ? ingredient.getName() : mTranslation.getIngredientName(position);
             // if it is possible to capitalize the first letter, capitalize.
             if (nameWithoutQuantityAndUnit.length() > 1) {
                 nameWithoutQuantityAndUnit = nameWithoutQuantityAndUnit.substring(0, 1).toUpperCase(Locale.getDefault())
@@ -148,10 +164,11 @@ public class IngredientAdapter extends RecyclerView.Adapter<IngredientAdapter.Ca
             // Set Textviews
             mIngredientAmount.setText(StringUtilities.toDisplayQuantity(amount));
             mIngredientName.setText(nameWithoutQuantityAndUnit);
-            mIngredientUnit.setText(ingredient.getUnit());
+            mIngredientUnit.setText(mTranslation == null
+                    ? ingredient.getUnit() : mTranslation.getIngredientUnit(position));
 
             // Set checkboxes correctly
-            mCheckbox.setChecked(mChecked[getAdapterPosition()]);
+            mCheckbox.setChecked(mChecked[position]);
         }
     }
 }
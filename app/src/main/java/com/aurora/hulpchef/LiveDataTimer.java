@@ -4,10 +4,9 @@ import android.arch.lifecycle.LiveData;
 import android.arch.lifecycle.MutableLiveData;
 import android.os.CountDownTimer;
 
+import com.aurora.hulpchef.utilities.TimerTextFormatter;
 import com.aurora.souschefprocessor.recipe.RecipeTimer;
 
-import java.util.Locale;
-
 /**
  * Class that keeps track of a timer, while being independent of the UI.
  * Uses LiveData to update the UI.
@@ -18,11 +17,6 @@ public class LiveDataTimer {
      * RecipeTimers (which are in seconds) to actual timers.
      */
     private static final int MILLIS = 1000;
-    /**
-     * Amount of time units in a bigger time unit :)
-     * (why is there no name for that? I propose time-babies.)
-     */
-    private static final int TIME_BABIES = 60;
     /**
      * One of the states of the timer
      */
@@ -55,6 +49,14 @@ public class LiveDataTimer {
      * The original time received from the user or from the recipe.
      */
     private int mTimeSetByUser;
+    /**
+     * The wall clock time in milliseconds on which the timer goes off. Only valid while running.
+     */
+    private long mDeadline = 0;
+    /**
+     * Listener that is notified when the state of the timer changes, used to persist the timer.
+     */
+    private OnTimerChangedListener mOnTimerChangedListener = null;
 
     private MutableLiveData<Boolean> mFinished = new MutableLiveData<>();
 
@@ -115,6 +117,7 @@ public class LiveDataTimer {
         if (mCountDownTimer != null) {
             mCountDownTimer.cancel();
         }
+        notifyTimerChanged();
     }
 
     /**
@@ -124,6 +127,7 @@ public class LiveDataTimer {
 
         if (mAlarming.getValue()) {
             mAlarming.setValue(false);
+            notifyTimerChanged();
             return;
         }
 
@@ -135,9 +139,22 @@ public class LiveDataTimer {
             mRunning = false;
             mTimerState.setValue(TIMER_PAUSED);
             mCountDownTimer.cancel();
+            mMillisLeft.setValue(Math.max(0, mDeadline - System.currentTimeMillis()));
+            notifyTimerChanged();
             return;
         }
-        this.mCountDownTimer = new CountDownTimer(mMillisLeft.getValue() - 1, MILLIS) {
+        startCountDown(mMillisLeft.getValue());
+        notifyTimerChanged();
+    }
+
+    /**
+     * Start counting down from the given amount of milliseconds.
+     *
+     * @param millisLeft the time left until the timer goes off
+     */
+    private void startCountDown(long millisLeft) {
+        mDeadline = System.currentTimeMillis() + millisLeft;
+        this.mCountDownTimer = new CountDownTimer(millisLeft - 1, MILLIS) {
             @Override
             public void onTick(long millisUntilFinished) {
                 mMillisLeft.setValue(millisUntilFinished);
@@ -149,6 +166,7 @@ public class LiveDataTimer {
                 mAlarming.setValue(true);
                 //TODO: check if running needs to be set to false
                 mRunning = false;
+                notifyTimerChanged();
             }
         };
         this.mCountDownTimer.start();
@@ -156,6 +174,42 @@ public class LiveDataTimer {
         mRunning = true;
     }
 
+    /**
+     * Restore a timer that was persisted by a previous process.
+     * <p>
+     * A running timer whose deadline has passed in the meantime is restored as alarming.
+     *
+     * @param timeSetByUser the time set by the user, in seconds
+     * @param timerState    the state of the timer (TIMER_RUNNING, TIMER_PAUSED, TIMER_INITIALISED)
+     * @param value         the deadline for a running timer, the milliseconds left for a paused timer
+     * @param finished      whether the timer has already gone off
+     * @param alarming      whether the timer is still alarming
+     */
+    void restore(int timeSetByUser, int timerState, long value, boolean finished, boolean alarming) {
+        mTimeSetByUser = timeSetByUser;
+        mTimerState.setValue(timerState);
+        if (finished) {
+            mMillisLeft.setValue(0L);
+            mFinished.setValue(true);
+            mAlarming.setValue(alarming);
+        } else if (timerState == TIMER_RUNNING) {
+            long millisLeft = value - System.currentTimeMillis();
+            if (millisLeft > 0) {
+                startCountDown(millisLeft);
+            } else {
+                // The timer went off while the process was gone
+                mDeadline = value;
+                mMillisLeft.setValue(0L);
+                mFinished.setValue(true);
+                mAlarming.setValue(true);
+            }
+        } else if (timerState == TIMER_PAUSED) {
+            mMillisLeft.setValue(value);
+        } else {
+            mMillisLeft.setValue((long) (mTimeSetByUser * MILLIS));
+        }
+    }
+
     public LiveData<Long> getMillisLeft() {
         return mMillisLeft;
     }
@@ -175,28 +229,16 @@ public class LiveDataTimer {
 
     /**
      * Convert an amount of seconds into a string representation
+     * <p>
+     * Allocates a new String, use a {@link TimerTextFormatter} for text that is updated every tick.
      *
      * @param amountMilliSeconds long representing the amount of milliseconds
      * @return a String representation of the time
      */
     public static String convertTimeToString(long amountMilliSeconds) {
-        int amountSeconds = (int) (amountMilliSeconds / MILLIS);
-        // seconds / 3600, or divide twice by 60.
-        int amountHours = amountSeconds / TIME_BABIES / TIME_BABIES;
-        // subtract the amount of hours first, then divide seconds by 60 to get minutes.
-        int amountMins = (amountSeconds % (TIME_BABIES * TIME_BABIES)) / TIME_BABIES;
-        // remaining time in seconds.
-        int amountSec = amountSeconds % TIME_BABIES;
-
-        String timerText = "";
-
-        // Only add hours when there are hours.
-        if (amountHours != 0) {
-            timerText += amountHours + ":";
-        }
-        timerText += String.format(Locale.getDefault(), "%02d:%02d", amountMins, amountSec);
-
-        return timerText;
+        TimerTextFormatter formatter = new TimerTextFormatter();
+        formatter.format(amountMilliSeconds);
+        return formatter.toString();
     }
 
     /**
@@ -264,4 +306,52 @@ public class LiveDataTimer {
     public void setRinging(boolean ringing){
         mRinging = ringing;
     }
+
+    /**
+     * Get the time set by the user or the recipe.
+     *
+     * @return the time in seconds
+     */
+    public int getTimeSetByUser() {
+        return mTimeSetByUser;
+    }
+
+    /**
+     * Get the moment on which the timer goes off.
+     *
+     * @return the wall clock time in milliseconds, only meaningful while the timer is running or finished
+     */
+    public long getDeadline() {
+        return mDeadline;
+    }
+
+    /**
+     * Set the listener that is notified when the state of the timer changes.
+     *
+     * @param listener the listener, or null to remove it
+     */
+    public void setOnTimerChangedListener(OnTimerChangedListener listener) {
+        mOnTimerChangedListener = listener;
+    }
+
+    /**
+     * Let the listener know that the state of this timer changed.
+     */
+    private void notifyTimerChanged() {
+        if (mOnTimerChangedListener != null) {
+            mOnTimerChangedListener.onTimerChanged(this);
+        }
+    }
+
+    /**
+     * Listener for changes in the state of a timer.
+     */
+    public interface OnTimerChangedListener {
+        /**
+         * Called when the timer is started, paused, reset, goes off or is dismissed.
+         *
+         * @param timer the timer that changed
+         */
+        void onTimerChanged(LiveDataTimer timer);
+    }
 }
@@ -1,11 +1,14 @@
 package com.aurora.hulpchef;
 
 import android.app.AlertDialog;
+import android.arch.lifecycle.Lifecycle;
 import android.arch.lifecycle.ViewModelProviders;
+import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.support.constraint.ConstraintLayout;
 import android.support.design.widget.AppBarLayout;
 import android.support.design.widget.Snackbar;
@@ -19,16 +22,24 @@ import android.support.v7.app.AppCompatActivity;
 import android.util.Log;
 import android.view.View;
 import android.widget.ProgressBar;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import com.aurora.auroralib.Constants;
 import com.aurora.auroralib.ExtractedText;
 import com.aurora.auroralib.ProcessorCommunicator;
+import com.aurora.hulpchef.utilities.FirebaseMetricsBackend;
+import com.aurora.hulpchef.utilities.JsonLinesMetricsBackend;
+import com.aurora.hulpchef.utilities.Metrics;
+import com.aurora.hulpchef.utilities.ProgressEstimator;
+import com.aurora.hulpchef.utilities.StartupScheduler;
 import com.aurora.hulpchef.utilities.TimerRingtone;
+import com.aurora.hulpchef.utilities.TraceSections;
 import com.aurora.souschefprocessor.recipe.Recipe;
 import com.google.firebase.analytics.FirebaseAnalytics;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -59,9 +70,29 @@ public class MainActivity extends AppCompatActivity {
      */
     private static final int NUMBER_OF_TABS = 3;
     /**
-     * FireBase analytics instance.
+     * Name of the startup initialiser of Firebase analytics.
      */
-    private FirebaseAnalytics mFirebaseAnalytics;
+    private static final String INIT_ANALYTICS = "analytics";
+    /**
+     * Name of the startup initialiser of the backends of the metrics.
+     */
+    private static final String INIT_METRICS = "metrics";
+    /**
+     * The file the metrics are written to in debug builds, in the files directory.
+     */
+    private static final String METRICS_FILE = "metrics/metrics.jsonl";
+    /**
+     * Name of the trace section from creating the activity until the recipe is shown.
+     */
+    private static final String SECTION_COLD_START = "cold start";
+    /**
+     * Amount of milliseconds in a second.
+     */
+    private static final long MILLIS_PER_SECOND = 1000;
+    /**
+     * Names of the tabs in the frame statistics.
+     */
+    private static final String[] TAB_NAMES = {"tab overview", "tab ingredients", "tab steps"};
 
     /**
      * The {@link android.support.v4.view.PagerAdapter} that will provide
@@ -76,6 +107,26 @@ public class MainActivity extends AppCompatActivity {
      * Holds the data of a recipe in a LifeCycle-friendly way.
      */
     private RecipeViewModel mRecipeViewModel;
+    /**
+     * The elapsed realtime at which the activity was created, to log how long loading the input takes.
+     */
+    private long mCreatedAt = 0;
+    /**
+     * Times how long it takes from creating the activity until the recipe is shown, null once it is shown.
+     */
+    private Metrics.Timer mFirstContentTimer = null;
+    /**
+     * Collects the frame statistics of every tab in debug builds, null until the tabs are shown.
+     */
+    private TabFrameCollector mTabFrameCollector = null;
+    /**
+     * The estimate of the progress shown on the loading screen, null when no progress is shown.
+     */
+    private ProgressEstimator.Estimate mProgressEstimate = null;
+    /**
+     * Updates the loading screen when the shown progress or remaining time changes.
+     */
+    private final Runnable mProgressUpdate = this::updateProgress;
 
     public MainActivity() {
         // Default constructor
@@ -88,40 +139,47 @@ public class MainActivity extends AppCompatActivity {
      */
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        mCreatedAt = SystemClock.elapsedRealtime();
+        TraceSections.beginAsync(SECTION_COLD_START, System.identityHashCode(this));
+        TraceSections.begin("MainActivity.onCreate");
         mRecipeViewModel = ViewModelProviders.of(this).get(RecipeViewModel.class);
 
         super.onCreate(savedInstanceState);
+        // Only what the first frame needs runs now, the rest after the first draw
+        registerStartupInitialisers();
+        StartupScheduler.getInstance().start(this);
+        mFirstContentTimer = Metrics.getInstance().startTimer("time_to_first_content")
+                .putAttribute("recreated", Boolean.toString(savedInstanceState != null));
+
         // TODO: Change back to the correct view
         setContentView(R.layout.activity_main);
 
-        // Initiate the TimerRingtone with the application context
-        TimerRingtone.getInstance().initialize(getApplicationContext());
-
-        // Obtain the FirebaseAnalytics instance.
-        // Most of firebase analytics is done automatically.
-        // Probably nothing more is needed.
-        mFirebaseAnalytics = FirebaseAnalytics.getInstance(this);
-
-        // Create the adapter that will return a fragment for each of the three
-        // primary sections of the activity.
-        mSectionsPagerAdapter = new SectionsPagerAdapter(getSupportFragmentManager());
+        // The sections adapter is created when the recipe is initialised, see hideProgress()
         showProgress();
 
         // setup recipe data object (RecipeViewModel).
         setUpRecipeDataObject();
+        TraceSections.end();
 
         /*
          * Handle Aurora starting the Plugin.
          * Each if statement calls initialise (with different paraments)
          * on the recipe data object.
          */
-        if (mRecipeViewModel.isBeingProcessed()) {
+        if (!mRecipeViewModel.startProcessing()) {
+            // a recreated activity shows the recipe its view model is processing or has processed
             return;
         }
-        mRecipeViewModel.setBeingProcessed(true);
         Log.d(TAG, "setup");
         Intent intentThatStartedThisActivity = getIntent();
 
+        if (RecipeProcessingService.ACTION_SHOW_PROCESSED.equals(intentThatStartedThisActivity.getAction())) {
+            // opened from the notification of a detection that finished in the background
+            showProcessedRecipe(intentThatStartedThisActivity.getStringExtra(
+                    RecipeProcessingService.EXTRA_RECIPE_KEY));
+            return;
+        }
+
         boolean intentIsOkay = true;
 
         if (intentThatStartedThisActivity.getAction() == null) {
@@ -146,6 +204,58 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * Continue collecting the frame statistics of the selected tab.
+     */
+    @Override
+    protected void onResume() {
+        super.onResume();
+        if (mTabFrameCollector != null) {
+            mTabFrameCollector.onResume();
+        }
+        updateProgress();
+    }
+
+    /**
+     * Record the frame statistics of the selected tab while the activity is not shown.
+     */
+    @Override
+    protected void onPause() {
+        super.onPause();
+        if (mTabFrameCollector != null) {
+            mTabFrameCollector.onPause();
+        }
+        // the progress is not updated while it can not be seen
+        findViewById(R.id.pb_loading_screen).removeCallbacks(mProgressUpdate);
+    }
+
+    /**
+     * Release the prepared recipes when the system is low on memory.
+     *
+     * @param level the memory trim level
+     */
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        RecipeSession.getInstance().onTrimMemory(level);
+    }
+
+    /**
+     * Declare the initialisers that are not needed for the first frame.
+     */
+    private static void registerStartupInitialisers() {
+        StartupScheduler scheduler = StartupScheduler.getInstance();
+        // The first metric is recorded in onCreate, debug builds keep their metrics on the device
+        scheduler.register(INIT_METRICS, StartupScheduler.Affinity.MAIN, StartupScheduler.When.IMMEDIATELY,
+                (Context context) -> Metrics.getInstance().setBackends(BuildConfig.DEBUG
+                        ? new JsonLinesMetricsBackend(new File(context.getFilesDir(), METRICS_FILE))
+                        : new FirebaseMetricsBackend()));
+        TimerRingtone.registerInitialiser();
+        // Most of firebase analytics is done automatically once it has an instance.
+        scheduler.register(INIT_ANALYTICS, StartupScheduler.Affinity.BACKGROUND,
+                StartupScheduler.When.AFTER_FIRST_DRAW, FirebaseAnalytics::getInstance);
+    }
+
     /**
      * Show the progress-screen.
      */
@@ -169,13 +279,10 @@ public class MainActivity extends AppCompatActivity {
      * Sets up the observation of the recipeviewmodel
      */
     private void setUpRecipeDataObject() {
-        mRecipeViewModel.getProgressStep().observe(this, (Integer step) -> {
-                    ProgressBar pb = findViewById(R.id.pb_loading_screen);
-                    pb.setProgress(mRecipeViewModel.getProgress());
-
-                    // TODO: set TextView to visualize progress
-                }
-        );
+        mRecipeViewModel.getProgressEstimate().observe(this, (ProgressEstimator.Estimate estimate) -> {
+            mProgressEstimate = estimate;
+            updateProgress();
+        });
         mRecipeViewModel.getInitialised().observe(this, (Boolean isInitialised) -> {
             if (isInitialised == null) {
                 return;
@@ -198,10 +305,12 @@ public class MainActivity extends AppCompatActivity {
                 Toast.makeText(this, "Detectie faalde: " +
                                 mRecipeViewModel.getFailureMessage().getValue(),
                         Toast.LENGTH_LONG).show();
+                mProgressEstimate = null;
                 ProgressBar pb = findViewById(R.id.pb_loading_screen);
+                pb.removeCallbacks(mProgressUpdate);
                 pb.setProgress(0);
 
-                // We get here because SouschefInit in RecipeViewModel failed and as its last operation posted this
+                // We get here because the detection in RecipeViewModel failed and as its last operation set this
                 // value, we can be sure that this task is done and so all references to the context are cleaned up
                 // and no task is running in the background
                 finish();
@@ -217,6 +326,38 @@ public class MainActivity extends AppCompatActivity {
 
     }
 
+    /**
+     * Show the estimated progress and remaining time on the loading screen.
+     * <p>
+     * The progress follows from the estimate and the time, so the loading screen is only updated
+     * again when the shown percentage or the shown amount of seconds changes.
+     */
+    private void updateProgress() {
+        ProgressBar pb = findViewById(R.id.pb_loading_screen);
+        TextView eta = findViewById(R.id.tv_loading_eta);
+        pb.removeCallbacks(mProgressUpdate);
+        if (mProgressEstimate == null) {
+            eta.setText(null);
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        int progress = (int) mProgressEstimate.progressAt(now);
+        pb.setProgress(progress);
+        long remaining = mProgressEstimate.remainingMillisAt(now);
+        long next = mProgressEstimate.timeOfProgress(progress + 1.0);
+        if (remaining > 0) {
+            long seconds = (remaining + MILLIS_PER_SECOND - 1) / MILLIS_PER_SECOND;
+            eta.setText(getResources().getQuantityString(R.plurals.loading_eta, (int) seconds, seconds));
+            // the shown amount of seconds changes when the remaining time passes a whole second
+            next = Math.min(next, now + remaining - (seconds - 1) * MILLIS_PER_SECOND);
+        } else {
+            eta.setText(R.string.loading_almost_done);
+        }
+        if (next != Long.MAX_VALUE) {
+            pb.postDelayed(mProgressUpdate, Math.max(1, next - now));
+        }
+    }
+
     /**
      * Initializes mRecipe according to the parameters in the Intent that opened the plugin
      *
@@ -278,21 +419,38 @@ public class MainActivity extends AppCompatActivity {
      * Hide the progress-screen.
      */
     private void hideProgress() {
+        TraceSections.begin("MainActivity.hideProgress");
         // get fields to update visibility
         AppBarLayout appBarLayout = findViewById(R.id.appbar);
         ViewPager mViewPager = findViewById(R.id.container);
         TabLayout tabLayout = findViewById(R.id.tabs);
         ConstraintLayout cl = findViewById(R.id.cl_loading_screen);
 
+        mProgressEstimate = null;
+        findViewById(R.id.pb_loading_screen).removeCallbacks(mProgressUpdate);
+        if (mFirstContentTimer != null) {
+            mFirstContentTimer.stop();
+            mFirstContentTimer = null;
+            TraceSections.endAsync(SECTION_COLD_START, System.identityHashCode(this));
+        }
+
         // Load recipe in the user interface
         mSectionsPagerAdapter = new SectionsPagerAdapter(getSupportFragmentManager());
         mViewPager.setAdapter(mSectionsPagerAdapter);
+        if (BuildConfig.DEBUG && mTabFrameCollector == null) {
+            mTabFrameCollector = new TabFrameCollector(getWindow(), TAB_NAMES, mViewPager.getCurrentItem());
+            mViewPager.addOnPageChangeListener(mTabFrameCollector);
+            if (getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED)) {
+                mTabFrameCollector.onResume();
+            }
+        }
 
         // update visibilities
         cl.setVisibility(View.GONE);
         appBarLayout.setVisibility(View.VISIBLE);
         mViewPager.setVisibility(View.VISIBLE);
         tabLayout.setVisibility(View.VISIBLE);
+        TraceSections.end();
     }
 
     /**
@@ -319,47 +477,77 @@ public class MainActivity extends AppCompatActivity {
     }
 
     /**
-     * Convert the read file to an ExtractedText object
+     * Read the file as an ExtractedText object in the background. The recipe is detected from the
+     * extracted text as soon as it is read, the annotation pipelines are only created when the
+     * recipe was not detected before.
      *
      * @param fileUri Uri to the file
      */
     private void convertReadFileToExtractedText(Uri fileUri) {
-        try {
-            ExtractedText extractedText = ExtractedText.getExtractedTextFromFile(fileUri,
-                    this);
-            if (extractedText != null) {
-                Log.d(TAG, "Loading extracted text.");
-                mRecipeViewModel.initialiseWithExtractedText(extractedText);
-            } else {
-                // Error in case ExtractedText was null.
-                Log.e(TAG, "ExtractedText-object was null.");
-                showGoBackToAuroraBox();
-            }
-        } catch (IOException e) {
-            Log.e(TAG,
-                    "IOException while loading data from aurora", e);
-            showGoBackToAuroraBox();
-        }
+        mRecipeViewModel.startProgress();
+        PluginInputLoader.loadExtractedText(fileUri, this)
+                .whenCompleteAsync((ExtractedText extractedText, Throwable error) -> {
+                    logInputReady();
+                    if (error == null) {
+                        Log.d(TAG, "Loading extracted text.");
+                        mRecipeViewModel.initialiseWithExtractedText(extractedText);
+                    } else {
+                        Log.e(TAG, "Loading the extracted text from aurora failed", error);
+                        showGoBackToAuroraBox();
+                    }
+                }, PluginInputLoader.mainThread());
     }
 
     /**
-     * Convert the read file to an PluginObject
+     * Read the file as a cached Recipe in the background and show it when it is read.
+     * A processed recipe does not need the annotation pipelines.
      *
      * @param fileUri Uri to the file
      */
     private void convertReadFileToRecipe(Uri fileUri) {
-        try {
-            Recipe receivedObject = Recipe.getPluginObjectFromFile(fileUri, this,
-                    Recipe.class);
-
-            Log.d(TAG, "Loading cashed Object.");
-            mRecipeViewModel.initialiseWithRecipe(receivedObject);
+        PluginInputLoader.loadRecipe(fileUri, this)
+                .whenCompleteAsync((Recipe receivedObject, Throwable error) -> {
+                    logInputReady();
+                    if (error == null) {
+                        Log.d(TAG, "Loading cashed Object.");
+                        mRecipeViewModel.initialiseWithRecipe(receivedObject);
+                    } else {
+                        Log.e(TAG, "Loading the cached recipe from aurora failed", error);
+                        showGoBackToAuroraBox();
+                    }
+                }, PluginInputLoader.mainThread());
+    }
 
-        } catch (IOException e) {
-            Log.e(TAG,
-                    "IOException while loading data from aurora", e);
-            showGoBackToAuroraBox();
+    /**
+     * Show a recipe that was detected in the background, from the session when it is still
+     * prepared and from the store otherwise.
+     *
+     * @param key the hash of the input the recipe was detected in
+     */
+    private void showProcessedRecipe(String key) {
+        if (mRecipeViewModel.initialiseFromSession(key)) {
+            return;
         }
+        PluginInputLoader.loadProcessedRecipe(key, this)
+                .whenCompleteAsync((Recipe recipe, Throwable error) -> {
+                    logInputReady();
+                    if (error == null) {
+                        Log.d(TAG, "Loading processed recipe.");
+                        mRecipeViewModel.initialiseWithRecipe(key, recipe);
+                    } else {
+                        Log.e(TAG, "Loading the processed recipe failed", error);
+                        showGoBackToAuroraBox();
+                    }
+                }, PluginInputLoader.mainThread());
+    }
+
+    /**
+     * Log how long it took from creating the activity until the input is ready to be used.
+     */
+    private void logInputReady() {
+        long inputReady = SystemClock.elapsedRealtime() - mCreatedAt;
+        Log.d(TAG, "input ready " + inputReady + "ms after onCreate");
+        Metrics.getInstance().record("input_ready_ms", inputReady);
     }
 
     /**
@@ -367,6 +555,10 @@ public class MainActivity extends AppCompatActivity {
      * the user to Aurora
      */
     private void showGoBackToAuroraBox() {
+        if (isFinishing() || isDestroyed()) {
+            // the input was loaded after the activity was closed
+            return;
+        }
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
 
         builder.setMessage(R.string.dialog_message)
@@ -0,0 +1,123 @@
+package com.aurora.hulpchef;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.aurora.auroralib.ExtractedText;
+import com.aurora.souschefprocessor.recipe.Recipe;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Reads and parses the file Aurora passes to Hulpchef on an I/O thread, so the main thread
+ * can show the progress screen while the file is read and the annotation pipelines are created.
+ * <p>
+ * The time every stage takes is logged, so the overlap of reading and creating the pipelines
+ * can be verified.
+ */
+public final class PluginInputLoader {
+    /**
+     * Tag for logging.
+     */
+    private static final String TAG = PluginInputLoader.class.getSimpleName();
+    /**
+     * Executor for reading the files, reading is done one file at a time.
+     */
+    private static final Executor IO_EXECUTOR = Executors.newSingleThreadExecutor(
+            (Runnable runnable) -> new Thread(runnable, "PluginInputLoader"));
+    /**
+     * Executor running the completion of the loading on the main thread.
+     */
+    private static final Executor MAIN_EXECUTOR = new Handler(Looper.getMainLooper())::post;
+
+    /**
+     * Private constructor, this class only has static methods.
+     */
+    private PluginInputLoader() {
+        // Utility class
+    }
+
+    /**
+     * Get an executor that runs on the main thread, to hand the loaded input to the UI.
+     *
+     * @return the main thread executor
+     */
+    public static Executor mainThread() {
+        return MAIN_EXECUTOR;
+    }
+
+    /**
+     * Read and parse an {@link ExtractedText} from a file on the I/O thread.
+     *
+     * @param fileUri the uri of the file
+     * @param context the context used to open the file, the application context is kept
+     * @return a future of the extracted text, completed exceptionally when reading failed
+     * or the file held no extracted text
+     */
+    public static CompletableFuture<ExtractedText> loadExtractedText(Uri fileUri, Context context) {
+        Context appContext = context.getApplicationContext();
+        return CompletableFuture.supplyAsync(() -> {
+            long start = SystemClock.elapsedRealtime();
+            try {
+                ExtractedText extractedText = ExtractedText.getExtractedTextFromFile(fileUri, appContext);
+                if (extractedText == null) {
+                    throw new IllegalStateException("ExtractedText-object was null.");
+                }
+                return extractedText;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                Log.d(TAG, "read extracted text in " + (SystemClock.elapsedRealtime() - start) + "ms");
+            }
+        }, IO_EXECUTOR);
+    }
+
+    /**
+     * Read a recipe detected before from the {@link ProcessedRecipeStore} on the I/O thread.
+     *
+     * @param key     the hash of the input the recipe was detected in
+     * @param context the context used to find the store, the application context is kept
+     * @return a future of the recipe, completed exceptionally when it is not stored anymore
+     */
+    public static CompletableFuture<Recipe> loadProcessedRecipe(String key, Context context) {
+        Context appContext = context.getApplicationContext();
+        return CompletableFuture.supplyAsync(() -> {
+            long start = SystemClock.elapsedRealtime();
+            Recipe recipe = new ProcessedRecipeStore(appContext).load(key);
+            Log.d(TAG, "read processed recipe in " + (SystemClock.elapsedRealtime() - start) + "ms");
+            if (recipe == null) {
+                throw new IllegalStateException("The processed recipe is not stored anymore.");
+            }
+            return recipe;
+        }, IO_EXECUTOR);
+    }
+
+    /**
+     * Read and parse a cached {@link Recipe} from a file on the I/O thread.
+     *
+     * @param fileUri the uri of the file
+     * @param context the context used to open the file, the application context is kept
+     * @return a future of the recipe, completed exceptionally when reading failed
+     */
+    public static CompletableFuture<Recipe> loadRecipe(Uri fileUri, Context context) {
+        Context appContext = context.getApplicationContext();
+        return CompletableFuture.supplyAsync(() -> {
+            long start = SystemClock.elapsedRealtime();
+            try {
+                return Recipe.getPluginObjectFromFile(fileUri, appContext, Recipe.class);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                Log.d(TAG, "read cached recipe in " + (SystemClock.elapsedRealtime() - start) + "ms");
+            }
+        }, IO_EXECUTOR);
+    }
+}
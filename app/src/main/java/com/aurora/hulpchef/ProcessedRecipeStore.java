@@ -0,0 +1,146 @@
+package com.aurora.hulpchef;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.aurora.auroralib.PluginObject;
+import com.aurora.souschefprocessor.recipe.Recipe;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Keeps the recipes detected on this device in the files of Hulpchef, so a detection that
+ * finished while Hulpchef was not shown, or before its process died, does not run again.
+ * <p>
+ * Every recipe is a JSON file named after the hash of the input it was detected in, see
+ * {@link ProcessingRegistry#contentKey(com.aurora.auroralib.ExtractedText)}. Only the
+ * {@value MAX_RECIPES} most recently used recipes are kept. The files are read and written
+ * on the calling thread, so this class should not be used on the main thread.
+ */
+public class ProcessedRecipeStore {
+    /**
+     * Tag for logging.
+     */
+    private static final String TAG = ProcessedRecipeStore.class.getSimpleName();
+    /**
+     * The directory of the recipes, in the files directory.
+     */
+    private static final String DIRECTORY = "processed";
+    /**
+     * The extension of the file of a recipe.
+     */
+    private static final String EXTENSION = ".json";
+    /**
+     * The amount of recipes that are kept.
+     */
+    private static final int MAX_RECIPES = 8;
+
+    /**
+     * The directory of the recipes.
+     */
+    private final File mDirectory;
+
+    /**
+     * Creates a store for the detected recipes.
+     *
+     * @param context the context, used to find the files directory
+     */
+    public ProcessedRecipeStore(Context context) {
+        mDirectory = new File(context.getFilesDir(), DIRECTORY);
+    }
+
+    /**
+     * Read a stored recipe. Reading it makes it the most recently used one.
+     *
+     * @param key the hash of the input the recipe was detected in
+     * @return the recipe, or null when it is not stored or can not be read
+     */
+    public Recipe load(String key) {
+        File file = fileFor(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (InputStream input = new FileInputStream(file)) {
+            byte[] bytes = new byte[(int) file.length()];
+            int read = 0;
+            while (read < bytes.length) {
+                int count = input.read(bytes, read, bytes.length - read);
+                if (count < 0) {
+                    throw new IOException("The file ended before its length");
+                }
+                read += count;
+            }
+            Recipe recipe = PluginObject.fromJson(new String(bytes, StandardCharsets.UTF_8), Recipe.class);
+            if (!file.setLastModified(System.currentTimeMillis())) {
+                Log.w(TAG, "Could not mark " + file + " as used");
+            }
+            return recipe;
+        } catch (IOException | RuntimeException e) {
+            // a recipe that can not be read is detected again
+            Log.e(TAG, "Reading the stored recipe failed", e);
+            return null;
+        }
+    }
+
+    /**
+     * Store a recipe and remove the least recently used recipes when there are too many.
+     * The file is written next to the old one and then renamed, so a stored recipe is never
+     * half written.
+     *
+     * @param key    the hash of the input the recipe was detected in
+     * @param recipe the recipe
+     */
+    public void save(String key, Recipe recipe) {
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            Log.e(TAG, "Could not create " + mDirectory);
+            return;
+        }
+        File file = fileFor(key);
+        File written = new File(mDirectory, key + ".tmp");
+        try (OutputStream output = new FileOutputStream(written)) {
+            output.write(recipe.toJSON().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Log.e(TAG, "Storing the recipe failed", e);
+            return;
+        }
+        if (!written.renameTo(file)) {
+            Log.e(TAG, "Could not rename " + written + " to " + file);
+            return;
+        }
+        evict();
+    }
+
+    /**
+     * Remove the least recently used recipes until at most {@value MAX_RECIPES} are kept.
+     */
+    private void evict() {
+        File[] files = mDirectory.listFiles((File directory, String name) -> name.endsWith(EXTENSION));
+        if (files == null || files.length <= MAX_RECIPES) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < files.length - MAX_RECIPES; i++) {
+            if (!files[i].delete()) {
+                Log.w(TAG, "Could not remove " + files[i]);
+            }
+        }
+    }
+
+    /**
+     * Get the file of a recipe.
+     *
+     * @param key the hash of the input the recipe was detected in
+     * @return the file
+     */
+    private File fileFor(String key) {
+        return new File(mDirectory, key + EXTENSION);
+    }
+}
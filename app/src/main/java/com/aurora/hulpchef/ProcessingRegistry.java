@@ -0,0 +1,151 @@
+package com.aurora.hulpchef;
+
+import com.aurora.auroralib.ExtractedText;
+import com.aurora.auroralib.Section;
+import com.aurora.hulpchef.utilities.Metrics;
+import com.aurora.souschefprocessor.recipe.Recipe;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * A singleton class that makes sure the same input is only detected once at a time.
+ * <p>
+ * Detecting a recipe takes seconds of full CPU. When Aurora sends the same file again, or the
+ * activity is created again before its view model exists, the detection that is already running
+ * is shared instead of started a second time. Inputs are told apart by a hash of their text.
+ * A detection is only shared while it is running, finished recipes are kept in the
+ * {@link ProcessedRecipeStore}.
+ */
+public final class ProcessingRegistry {
+    /**
+     * The singleton instance
+     */
+    private static final ProcessingRegistry mInstance = new ProcessingRegistry();
+    /**
+     * Separates the parts of the text when hashing, so moving text between parts changes the hash.
+     */
+    private static final byte SEPARATOR = 0;
+
+    /**
+     * The running detections, by the hash of their input.
+     */
+    private final ConcurrentMap<String, CompletableFuture<Recipe>> mInFlight = new ConcurrentHashMap<>();
+
+    /**
+     * The private constructor for the ProcessingRegistry-singleton
+     */
+    private ProcessingRegistry() {
+        // Private constructor for singleton
+    }
+
+    /**
+     * Get the ProcessingRegistry instance
+     *
+     * @return the instance
+     */
+    public static ProcessingRegistry getInstance() {
+        return mInstance;
+    }
+
+    /**
+     * Detect a recipe, or join the detection of the same input when it is running.
+     *
+     * @param key       the hash of the input, see {@link #contentKey(ExtractedText)}
+     * @param detection detects the recipe, only called when no detection of the input is running
+     * @param executor  runs the detection
+     * @return a future of the recipe, which can be null when the detection failed
+     */
+    public CompletableFuture<Recipe> process(String key, Supplier<Recipe> detection, Executor executor) {
+        CompletableFuture<Recipe> started = new CompletableFuture<>();
+        CompletableFuture<Recipe> running = mInFlight.putIfAbsent(key, started);
+        if (running != null) {
+            Metrics.getInstance().count("recipe_processing_joined");
+            return running;
+        }
+        executor.execute(() -> {
+            try {
+                started.complete(detection.get());
+            } catch (RuntimeException e) {
+                started.completeExceptionally(e);
+            } finally {
+                // only now a new request for the input starts a new detection
+                mInFlight.remove(key, started);
+            }
+        });
+        return started;
+    }
+
+    /**
+     * Get the running detection of an input.
+     *
+     * @param key the hash of the input
+     * @return the future of the recipe, or null when the input is not being detected
+     */
+    public CompletableFuture<Recipe> getRunning(String key) {
+        return mInFlight.get(key);
+    }
+
+    /**
+     * Check whether the detection of an input is running.
+     *
+     * @param key the hash of the input
+     * @return true when it is running
+     */
+    public boolean isProcessing(String key) {
+        return mInFlight.containsKey(key);
+    }
+
+    /**
+     * Get the hash of the text of an input, which is the same for the same text.
+     *
+     * @param extractedText the input
+     * @return the SHA-256 hash of the titles and bodies, in hexadecimal
+     */
+    public static String contentKey(ExtractedText extractedText) {
+        List<String> parts = new ArrayList<>();
+        parts.add(extractedText.getTitle());
+        if (extractedText.getSections() != null) {
+            for (Section section : extractedText.getSections()) {
+                parts.add(section.getTitle());
+                parts.add(section.getBody());
+            }
+        }
+        return hash(parts);
+    }
+
+    /**
+     * Get the hash of several texts, which changes when text moves from one part to another.
+     *
+     * @param parts the texts, a part can be null
+     * @return the SHA-256 hash in hexadecimal
+     */
+    static String hash(Iterable<String> parts) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform has SHA-256
+            throw new IllegalStateException(e);
+        }
+        for (String part : parts) {
+            if (part != null) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update(SEPARATOR);
+        }
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,170 @@
+package com.aurora.hulpchef;
+
+import android.os.SystemClock;
+
+import com.aurora.hulpchef.utilities.Metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A singleton class that runs the detections of recipes on a bounded pool of workers.
+ * <p>
+ * When Aurora hands over several recipes in a row, they are queued and detected in the
+ * background while the user looks at one of them, so switching to another one shows its stored
+ * recipe at once. The newest request is detected first, because that is the recipe the user
+ * is waiting for; asking for a queued recipe again moves it to the front.
+ * <p>
+ * The Souschef processor keeps a single static set of annotation pipelines, which holds the
+ * CoreNLP models and is too large to have more than once. Nothing shows those pipelines can be
+ * used by two threads at the same time, so the detections run on a single worker. The depth of
+ * the queue and the time a detection waits in it are recorded in the metrics.
+ */
+public final class RecipeProcessingQueue {
+    /**
+     * The amount of workers. Only one, because all detections use the same annotation pipelines.
+     */
+    private static final int WORKERS = 1;
+    /**
+     * The singleton instance
+     */
+    private static final RecipeProcessingQueue mInstance = new RecipeProcessingQueue(WORKERS);
+
+    /**
+     * The queued detections, the first one runs next.
+     */
+    private final LinkedBlockingDeque<Runnable> mQueue = new NewestFirstDeque();
+    /**
+     * Runs the detections.
+     */
+    private final ThreadPoolExecutor mExecutor;
+    /**
+     * The queued detections by the hash of their input, to move them to the front.
+     */
+    private final Map<String, Job> mQueued = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a queue.
+     *
+     * @param workers the amount of detections that run at the same time
+     */
+    RecipeProcessingQueue(int workers) {
+        AtomicInteger threads = new AtomicInteger();
+        mExecutor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, mQueue,
+                (Runnable runnable) -> new Thread(runnable, "RecipeProcessingQueue-" + threads.incrementAndGet()));
+    }
+
+    /**
+     * Get the RecipeProcessingQueue instance
+     *
+     * @return the instance
+     */
+    public static RecipeProcessingQueue getInstance() {
+        return mInstance;
+    }
+
+    /**
+     * Get an executor that queues the detection of an input.
+     *
+     * @param key the hash of the input
+     * @return the executor
+     */
+    public Executor executorFor(String key) {
+        return (Runnable detection) -> submit(key, detection);
+    }
+
+    /**
+     * Queue the detection of an input in front of the detections that are waiting.
+     *
+     * @param key       the hash of the input
+     * @param detection the detection
+     */
+    public void submit(String key, Runnable detection) {
+        Job job = new Job(key, detection);
+        mQueued.put(key, job);
+        mExecutor.execute(job);
+        Metrics.getInstance().record("processing_queue_depth", mQueue.size());
+    }
+
+    /**
+     * Move the detection of an input to the front when it is waiting, because the user asked for
+     * it again.
+     *
+     * @param key the hash of the input
+     */
+    public void promote(String key) {
+        Job job = mQueued.get(key);
+        if (job != null && mQueue.removeFirstOccurrence(job)) {
+            mQueue.offerFirst(job);
+        }
+    }
+
+    /**
+     * Get the amount of detections waiting for a worker.
+     *
+     * @return the depth of the queue
+     */
+    public int getQueueDepth() {
+        return mQueue.size();
+    }
+
+    /**
+     * A queued detection, which records how long it waited.
+     */
+    private final class Job implements Runnable {
+        /**
+         * The hash of the input.
+         */
+        private final String mKey;
+        /**
+         * The detection.
+         */
+        private final Runnable mDetection;
+        /**
+         * The elapsed realtime at which the detection was queued.
+         */
+        private final long mQueuedAt = SystemClock.elapsedRealtime();
+
+        /**
+         * Creates a queued detection.
+         *
+         * @param key       the hash of the input
+         * @param detection the detection
+         */
+        Job(String key, Runnable detection) {
+            mKey = key;
+            mDetection = detection;
+        }
+
+        /**
+         * Run the detection and record how long it waited.
+         */
+        @Override
+        public void run() {
+            mQueued.remove(mKey, this);
+            Metrics.getInstance().record("processing_queue_wait_ms", SystemClock.elapsedRealtime() - mQueuedAt);
+            mDetection.run();
+        }
+    }
+
+    /**
+     * A deque that takes new detections at the front, so the executor runs the newest first.
+     */
+    private static final class NewestFirstDeque extends LinkedBlockingDeque<Runnable> {
+        /**
+         * Add a detection at the front.
+         *
+         * @param runnable the detection
+         * @return true, the deque is not bounded
+         */
+        @Override
+        public boolean offer(Runnable runnable) {
+            return offerFirst(runnable);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.aurora.hulpchef;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.arch.lifecycle.Lifecycle;
+import android.arch.lifecycle.ProcessLifecycleOwner;
+import android.content.Context;
+import android.content.Intent;
+import android.os.IBinder;
+
+import com.aurora.souschefprocessor.recipe.Recipe;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * A foreground service that owns the detections of recipes, so they keep running when the user
+ * leaves Hulpchef during the seconds the detection takes.
+ * <p>
+ * A detection is started with {@link #process(Context, String, Supplier)} and runs on the
+ * {@link RecipeProcessingQueue}, so several inputs are detected in the background. The detected
+ * recipe is written to the {@link ProcessedRecipeStore}, where Hulpchef finds it when the same
+ * input is opened again, even after its process died. While detections run, the service shows an ongoing
+ * notification. When a detection finishes while Hulpchef is not shown, a notification is posted
+ * that opens the recipe.
+ */
+public class RecipeProcessingService extends Service {
+    /**
+     * The action of the intent that shows a recipe from the {@link ProcessedRecipeStore}.
+     */
+    public static final String ACTION_SHOW_PROCESSED = "com.aurora.hulpchef.SHOW_PROCESSED_RECIPE";
+    /**
+     * The extra with the hash of the input of a detection.
+     */
+    public static final String EXTRA_RECIPE_KEY = "com.aurora.hulpchef.RECIPE_KEY";
+    /**
+     * The id of the notification channel of the detections.
+     */
+    private static final String CHANNEL_ID = "recipe_processing";
+    /**
+     * The id of the ongoing notification while detections run.
+     */
+    private static final int ONGOING_NOTIFICATION_ID = 1;
+
+    /**
+     * The hashes of the inputs being detected, only used on the main thread.
+     */
+    private final Set<String> mRunning = new HashSet<>();
+
+    /**
+     * Detect a recipe while this service keeps Hulpchef running, and store the detected recipe.
+     * When the same input is already being detected, that detection is joined.
+     *
+     * @param context   the context to start the service
+     * @param key       the hash of the input
+     * @param detection detects the recipe, returns null when it failed
+     * @return a future of the recipe, which is null when the detection failed
+     */
+    public static CompletableFuture<Recipe> process(Context context, String key, Supplier<Recipe> detection) {
+        Context appContext = context.getApplicationContext();
+        CompletableFuture<Recipe> result = ProcessingRegistry.getInstance().process(key, () -> {
+            Recipe recipe = detection.get();
+            if (recipe != null) {
+                new ProcessedRecipeStore(appContext).save(key, recipe);
+            }
+            return recipe;
+        }, RecipeProcessingQueue.getInstance().executorFor(key));
+        // a recipe the user asks for again is detected before the other waiting ones
+        RecipeProcessingQueue.getInstance().promote(key);
+        if (!result.isDone()) {
+            appContext.startForegroundService(new Intent(appContext, RecipeProcessingService.class)
+                    .putExtra(EXTRA_RECIPE_KEY, key));
+        }
+        return result;
+    }
+
+    /**
+     * Keep running in the foreground until the detection of the input in the intent finishes.
+     *
+     * @param intent  the intent with the hash of the input
+     * @param flags   how the service was started
+     * @param startId the id of this start
+     * @return {@link #START_NOT_STICKY}, a detection can not be continued in a new process
+     */
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        createChannel();
+        startForeground(ONGOING_NOTIFICATION_ID, new Notification.Builder(this, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_restaurant_white)
+                .setContentTitle(getString(R.string.processing_notification_title))
+                .setProgress(0, 0, true)
+                .setOngoing(true)
+                .build());
+        String key = intent == null ? null : intent.getStringExtra(EXTRA_RECIPE_KEY);
+        CompletableFuture<Recipe> running = key == null ? null : ProcessingRegistry.getInstance().getRunning(key);
+        if (running != null && mRunning.add(key)) {
+            running.whenCompleteAsync((Recipe recipe, Throwable error) -> onDetectionFinished(key, recipe),
+                    PluginInputLoader.mainThread());
+        }
+        stopWhenIdle();
+        return START_NOT_STICKY;
+    }
+
+    /**
+     * This service can not be bound.
+     *
+     * @param intent the intent
+     * @return null
+     */
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    /**
+     * Let the user know a detection finished when Hulpchef is not shown, and stop when nothing
+     * is being detected anymore.
+     *
+     * @param key    the hash of the input
+     * @param recipe the recipe, null when the detection failed
+     */
+    private void onDetectionFinished(String key, Recipe recipe) {
+        mRunning.remove(key);
+        boolean shown = ProcessLifecycleOwner.get().getLifecycle().getCurrentState()
+                .isAtLeast(Lifecycle.State.STARTED);
+        if (!shown) {
+            Notification.Builder builder = new Notification.Builder(this, CHANNEL_ID)
+                    .setSmallIcon(R.drawable.ic_restaurant_white)
+                    .setAutoCancel(true);
+            if (recipe != null) {
+                Intent show = new Intent(this, MainActivity.class)
+                        .setAction(ACTION_SHOW_PROCESSED)
+                        .putExtra(EXTRA_RECIPE_KEY, key);
+                builder.setContentTitle(getString(R.string.processed_notification_title))
+                        .setContentText(recipe.getDescription())
+                        .setContentIntent(PendingIntent.getActivity(this, key.hashCode(), show,
+                                PendingIntent.FLAG_UPDATE_CURRENT));
+            } else {
+                builder.setContentTitle(getString(R.string.processing_failed_notification_title));
+            }
+            getSystemService(NotificationManager.class).notify(key, 0, builder.build());
+        }
+        stopWhenIdle();
+    }
+
+    /**
+     * Leave the foreground and stop when no detection is running.
+     */
+    private void stopWhenIdle() {
+        if (mRunning.isEmpty()) {
+            stopForeground(true);
+            stopSelf();
+        }
+    }
+
+    /**
+     * Create the notification channel of the detections, does nothing when it exists.
+     */
+    private void createChannel() {
+        NotificationChannel channel = new NotificationChannel(CHANNEL_ID,
+                getString(R.string.processing_channel_name), NotificationManager.IMPORTANCE_LOW);
+        getSystemService(NotificationManager.class).createNotificationChannel(channel);
+    }
+}
@@ -0,0 +1,395 @@
+package com.aurora.hulpchef;
+
+import android.content.ComponentCallbacks2;
+
+import com.aurora.hulpchef.utilities.Metrics;
+import com.aurora.souschefprocessor.recipe.Recipe;
+import com.aurora.souschefprocessor.recipe.RecipeStep;
+import com.aurora.souschefprocessor.recipe.RecipeTimer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A singleton class that keeps the most recently used recipes prepared, so switching back to a
+ * recipe shows it at once instead of building everything again.
+ * <p>
+ * A {@link PreparedRecipe} holds the recipe, the render models of its steps, the Dutch text when
+ * it was translated, the amount of people it was last scaled to, and its timers. At most
+ * {@value MAX_RECIPES} recipes are kept, and fewer when their estimated size passes a part of the
+ * heap or the system is low on memory. The least recently used recipe goes first, but a recipe
+ * with a running or ringing timer is never removed, so its timers keep counting.
+ */
+public final class RecipeSession {
+    /**
+     * The amount of recipes that are kept.
+     */
+    private static final int MAX_RECIPES = 4;
+    /**
+     * The prepared recipes together take at most the heap divided by this.
+     */
+    private static final long HEAP_DIVISOR = 16;
+    /**
+     * The singleton instance
+     */
+    private static final RecipeSession mInstance = new RecipeSession(MAX_RECIPES,
+            Runtime.getRuntime().maxMemory() / HEAP_DIVISOR, PreparedRecipe::hasActiveTimers);
+
+    /**
+     * The prepared recipes by their key, from least to most recently used.
+     */
+    private final LinkedHashMap<String, PreparedRecipe> mRecipes = new LinkedHashMap<>(MAX_RECIPES, 0.75f, true);
+    /**
+     * The amount of recipes that are kept.
+     */
+    private final int mMaxRecipes;
+    /**
+     * The estimated bytes the recipes can take together.
+     */
+    private final long mMaxBytes;
+    /**
+     * Tells whether a recipe can not be removed.
+     */
+    private final Predicate<PreparedRecipe> mPinned;
+
+    /**
+     * Creates a session.
+     *
+     * @param maxRecipes the amount of recipes that are kept
+     * @param maxBytes   the estimated bytes the recipes can take together
+     * @param pinned     tells whether a recipe can not be removed
+     */
+    RecipeSession(int maxRecipes, long maxBytes, Predicate<PreparedRecipe> pinned) {
+        mMaxRecipes = maxRecipes;
+        mMaxBytes = maxBytes;
+        mPinned = pinned;
+    }
+
+    /**
+     * Get the RecipeSession instance
+     *
+     * @return the instance
+     */
+    public static RecipeSession getInstance() {
+        return mInstance;
+    }
+
+    /**
+     * Get the key of a recipe that was not detected from an input with a known hash,
+     * such as a processed recipe Aurora sends.
+     *
+     * @param recipe the recipe
+     * @return a hash of the description and steps of the recipe
+     */
+    public static String keyFor(Recipe recipe) {
+        List<String> parts = new ArrayList<>();
+        parts.add(recipe.getDescription());
+        for (RecipeStep step : recipe.getRecipeSteps()) {
+            parts.add(step.getDescription());
+        }
+        return "recipe-" + ProcessingRegistry.hash(parts);
+    }
+
+    /**
+     * Get a prepared recipe and make it the most recently used one.
+     *
+     * @param key the key of the recipe
+     * @return the prepared recipe, or null when it is not kept
+     */
+    public synchronized PreparedRecipe get(String key) {
+        return mRecipes.get(key);
+    }
+
+    /**
+     * Get the prepared recipe of a key, or start preparing the recipe when it is not kept.
+     * A recipe that is kept already is not replaced, because its timers may be running.
+     *
+     * @param key    the key of the recipe
+     * @param recipe the recipe to prepare when it is not kept
+     * @return the prepared recipe, the most recently used one
+     */
+    public synchronized PreparedRecipe prepare(String key, Recipe recipe) {
+        PreparedRecipe prepared = mRecipes.get(key);
+        if (prepared == null) {
+            prepared = new PreparedRecipe(key, recipe);
+            mRecipes.put(key, prepared);
+            evict(mMaxRecipes, mMaxBytes);
+        }
+        return prepared;
+    }
+
+    /**
+     * Remove recipes when the estimated size of the prepared recipes grew, for example after their
+     * render models were built.
+     */
+    public synchronized void onRecipeGrown() {
+        evict(mMaxRecipes, mMaxBytes);
+    }
+
+    /**
+     * Remove recipes when the system asks to trim memory. When the memory is running low only the
+     * most recently used recipe is kept, when Hulpchef is in the background none are, apart from
+     * the recipes with running timers.
+     *
+     * @param level the level passed to {@link ComponentCallbacks2#onTrimMemory(int)}
+     */
+    public synchronized void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            evict(0, 0);
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            evict(1, mMaxBytes);
+        }
+    }
+
+    /**
+     * Dismiss the timers of the prepared recipes that went off.
+     */
+    public synchronized void dismissAlarms() {
+        for (PreparedRecipe prepared : mRecipes.values()) {
+            prepared.dismissAlarms();
+        }
+    }
+
+    /**
+     * Get the amount of prepared recipes.
+     *
+     * @return the amount of recipes
+     */
+    public synchronized int size() {
+        return mRecipes.size();
+    }
+
+    /**
+     * Remove the least recently used recipes that are not pinned, until the recipes fit.
+     *
+     * @param maxRecipes the amount of recipes to keep at most
+     * @param maxBytes   the estimated bytes the recipes can take together
+     */
+    private void evict(int maxRecipes, long maxBytes) {
+        long bytes = 0;
+        for (PreparedRecipe prepared : mRecipes.values()) {
+            bytes += prepared.getEstimatedBytes();
+        }
+        // the iteration does not count as use, so it goes from least to most recently used
+        Iterator<PreparedRecipe> iterator = mRecipes.values().iterator();
+        while ((mRecipes.size() > maxRecipes || bytes > maxBytes) && iterator.hasNext()) {
+            PreparedRecipe prepared = iterator.next();
+            // the recipe that is shown is only removed when no recipe should be kept
+            boolean mostRecent = !iterator.hasNext();
+            if (mPinned.test(prepared) || (mostRecent && maxRecipes > 0)) {
+                continue;
+            }
+            bytes -= prepared.getEstimatedBytes();
+            iterator.remove();
+            Metrics.getInstance().count("recipe_session_evicted");
+        }
+    }
+
+    /**
+     * A recipe together with everything that is built to show it.
+     */
+    public static final class PreparedRecipe {
+        /**
+         * The bytes a recipe is estimated to take besides the text of its steps.
+         */
+        private static final long OVERHEAD_BYTES = 16 * 1024;
+
+        /**
+         * The key of the recipe in the session.
+         */
+        private final String mKey;
+        /**
+         * The recipe.
+         */
+        private final Recipe mRecipe;
+        /**
+         * The render models of the steps in the original language, null until they are built.
+         */
+        private List<StepRenderModel> mStepModels = null;
+        /**
+         * The Dutch text of the recipe, null until it is translated.
+         */
+        private TranslationOverlay mDutchOverlay = null;
+        /**
+         * The amount of people the recipe was last scaled to, 0 when it was not scaled.
+         */
+        private int mPeople = 0;
+        /**
+         * The timers of every step, null until the steps are shown.
+         */
+        private ArrayList<ArrayList<LiveDataTimer>> mTimers = null;
+
+        /**
+         * Creates a recipe that is not prepared yet.
+         *
+         * @param key    the key of the recipe in the session
+         * @param recipe the recipe
+         */
+        PreparedRecipe(String key, Recipe recipe) {
+            mKey = key;
+            mRecipe = recipe;
+        }
+
+        /**
+         * Get the key of the recipe in the session.
+         *
+         * @return the key
+         */
+        public String getKey() {
+            return mKey;
+        }
+
+        /**
+         * Get the recipe.
+         *
+         * @return the recipe
+         */
+        public Recipe getRecipe() {
+            return mRecipe;
+        }
+
+        /**
+         * Get the render models of the steps in the original language.
+         *
+         * @return the models, or null when they are not built yet
+         */
+        public synchronized List<StepRenderModel> getStepModels() {
+            return mStepModels;
+        }
+
+        /**
+         * Keep the render models of the steps in the original language.
+         *
+         * @param stepModels the models
+         */
+        public synchronized void setStepModels(List<StepRenderModel> stepModels) {
+            mStepModels = stepModels;
+        }
+
+        /**
+         * Get the Dutch text of the recipe.
+         *
+         * @return the translation, or null when the recipe was not translated
+         */
+        public synchronized TranslationOverlay getDutchOverlay() {
+            return mDutchOverlay;
+        }
+
+        /**
+         * Keep the Dutch text of the recipe.
+         *
+         * @param dutchOverlay the translation
+         */
+        public synchronized void setDutchOverlay(TranslationOverlay dutchOverlay) {
+            mDutchOverlay = dutchOverlay;
+        }
+
+        /**
+         * Get the amount of people the recipe was last scaled to.
+         *
+         * @return the amount of people, 0 when it was not scaled
+         */
+        public synchronized int getPeople() {
+            return mPeople;
+        }
+
+        /**
+         * Keep the amount of people the recipe is scaled to.
+         *
+         * @param people the amount of people
+         */
+        public synchronized void setPeople(int people) {
+            mPeople = people;
+        }
+
+        /**
+         * Get the timers of the recipe, they are created and restored from the store the first time.
+         * Every change to a timer is persisted in the store.
+         *
+         * @param timerStore the store of the timers
+         * @return the timers of every step
+         */
+        public synchronized ArrayList<ArrayList<LiveDataTimer>> getTimers(TimerStore timerStore) {
+            if (mTimers != null) {
+                return mTimers;
+            }
+            ArrayList<ArrayList<LiveDataTimer>> timers = new ArrayList<>();
+            for (RecipeStep step : mRecipe.getRecipeSteps()) {
+                ArrayList<LiveDataTimer> stepTimers = new ArrayList<>();
+                for (RecipeTimer timer : step.getRecipeTimers()) {
+                    stepTimers.add(new LiveDataTimer(timer));
+                }
+                timers.add(stepTimers);
+            }
+
+            // Restore the timers of a previous process and persist every change
+            String key = TimerStore.keyFor(mRecipe);
+            timerStore.restore(key, timers);
+            for (ArrayList<LiveDataTimer> stepTimers : timers) {
+                for (LiveDataTimer timer : stepTimers) {
+                    timer.setOnTimerChangedListener((LiveDataTimer changed) -> timerStore.save(key, timers));
+                }
+            }
+            mTimers = timers;
+            return timers;
+        }
+
+        /**
+         * Check whether a timer of the recipe is running or ringing.
+         *
+         * @return true when a timer is running or ringing
+         */
+        public synchronized boolean hasActiveTimers() {
+            if (mTimers == null) {
+                return false;
+            }
+            for (ArrayList<LiveDataTimer> stepTimers : mTimers) {
+                for (LiveDataTimer timer : stepTimers) {
+                    Integer state = timer.getTimerState().getValue();
+                    boolean running = state != null && state == LiveDataTimer.TIMER_RUNNING;
+                    if (running || timer.isRinging() || Boolean.TRUE.equals(timer.isAlarming().getValue())) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Dismiss the timers of the recipe that went off.
+         */
+        synchronized void dismissAlarms() {
+            if (mTimers == null) {
+                return;
+            }
+            for (ArrayList<LiveDataTimer> stepTimers : mTimers) {
+                for (LiveDataTimer timer : stepTimers) {
+                    if (Boolean.TRUE.equals(timer.isAlarming().getValue())) {
+                        // toggling an alarming timer dismisses it
+                        timer.toggleTimer();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Estimate how many bytes the prepared recipe takes, from the text of its render models.
+         *
+         * @return the estimated bytes
+         */
+        public synchronized long getEstimatedBytes() {
+            long bytes = OVERHEAD_BYTES;
+            if (mStepModels != null && !mStepModels.isEmpty()) {
+                // the recipe holds the text once more
+                bytes += 2 * mStepModels.get(0).getTextStore().getFootprintBytes();
+            }
+            if (mDutchOverlay != null && !mDutchOverlay.getStepModels().isEmpty()) {
+                bytes += mDutchOverlay.getStepModels().get(0).getTextStore().getFootprintBytes();
+            }
+            return bytes;
+        }
+    }
+}
@@ -1,46 +1,65 @@
 package com.aurora.hulpchef;
 
-import android.arch.lifecycle.ViewModel;
-
-import com.aurora.souschefprocessor.recipe.Recipe;
-import com.aurora.souschefprocessor.recipe.RecipeStep;
-import com.aurora.souschefprocessor.recipe.RecipeTimer;
+import android.app.Application;
+import android.arch.lifecycle.AndroidViewModel;
+import android.support.annotation.NonNull;
 
 import java.util.ArrayList;
 
 /**
- * ViewModel specifically for the timers. Keeps track of all the timers in the recipe,
- * and holds the running information of each of them.
+ * ViewModel specifically for the timers. Gives access to all the timers in the recipe,
+ * and the running information of each of them.
+ * <p>
+ * The state of the timers is persisted in a {@link TimerStore}, so they keep running
+ * when the process is reclaimed.
  */
-public class RecipeTimerViewModel extends ViewModel {
+public class RecipeTimerViewModel extends AndroidViewModel {
 
     /**
      * List with all LiveDataTimers.
      */
     private ArrayList<ArrayList<LiveDataTimer>> mAllTimers = null;
 
+    /**
+     * The prepared recipe the timers belong to.
+     */
+    private RecipeSession.PreparedRecipe mPreparedRecipe = null;
+
+    /**
+     * Persists the state of the timers.
+     */
+    private final TimerStore mTimerStore;
+
+    /**
+     * Constructor that creates the store for the timers.
+     *
+     * @param application Needed for the store and lifetime of a viewModel
+     */
+    public RecipeTimerViewModel(@NonNull Application application) {
+        super(application);
+        mTimerStore = new TimerStore(application);
+    }
+
     /**
      * Initialize the timers in a recipe.
-     * Put all timers in a LiveDataTimer, and store them in an array.
+     * The timers are kept with the prepared recipe in the {@link RecipeSession}, so they keep
+     * running when another recipe is shown. Timers that were persisted by a previous process
+     * are restored.
      * <p>
-     * Always call init before doing anything else with this class!
+     * Always call init before doing anything else with this class! Call it again when another
+     * prepared recipe is shown, to switch to its timers.
      *
-     * @param recipe The recipe to extract the timers from.
+     * @param preparedRecipe The prepared recipe to get the timers from.
+     * @return true if the timers of another prepared recipe are used now
      */
-    public void init(Recipe recipe) {
-        if (mAllTimers != null) {
-            // init was already called.
-            return;
-        }
-        // Put timers in nested ArrayList.
-        mAllTimers = new ArrayList<>();
-        for (RecipeStep step : recipe.getRecipeSteps()) {
-            ArrayList<LiveDataTimer> stepTimers = new ArrayList<>();
-            for (RecipeTimer timer : step.getRecipeTimers()) {
-                stepTimers.add(new LiveDataTimer(timer));
-            }
-            mAllTimers.add(stepTimers);
+    public boolean init(RecipeSession.PreparedRecipe preparedRecipe) {
+        if (preparedRecipe == mPreparedRecipe) {
+            // init was already called for this recipe.
+            return false;
         }
+        mPreparedRecipe = preparedRecipe;
+        mAllTimers = preparedRecipe.getTimers(mTimerStore);
+        return true;
     }
 
     /**
@@ -8,50 +8,36 @@ import android.arch.lifecycle.MutableLiveData;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.os.AsyncTask;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
 import android.util.Log;
 
 import com.aurora.auroralib.ExtractedText;
 import com.aurora.auroralib.translation.TranslationServiceCaller;
+import com.aurora.hulpchef.utilities.Metrics;
+import com.aurora.hulpchef.utilities.PrecomputedTextCache;
+import com.aurora.hulpchef.utilities.ProgressEstimator;
+import com.aurora.hulpchef.utilities.RecipeTextStore;
+import com.aurora.hulpchef.utilities.TraceSections;
 import com.aurora.souschefprocessor.facade.SouschefProcessorCommunicator;
 import com.aurora.souschefprocessor.recipe.Recipe;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * Holds the data of a recipe. Is responsible for keeping that data up to date,
  * and updating the UI when necessary.
  */
 public class RecipeViewModel extends AndroidViewModel {
-    /**
-     * When initialising Hulpchef, poll every MILLIS_BETWEEN_UPDATES milliseconds
-     * for updates on the progressbar. This could also be done with an observable.
-     */
-    private static final int MILLIS_BETWEEN_UPDATES = 500;
-
-    /**
-     * The amount of steps it takes to detect a recipe.
-     * This is used to pick the interval updates of the progress bar.
-     * These steps are hard-coded-counted. This means that when the implementation
-     * of the Hulpchef-processor takes longer or shorter, this value must be changed.
-     */
-    private static final int DETECTION_STEPS = 3;
-
     /**
      * The maximum amount of people you can cook for.
      */
     private static final int MAX_PEOPLE = 80;
 
-    /**
-     * Stop actively updating the progressbar after MAX_WAIT_TIME.
-     */
-    private static final int MAX_WAIT_TIME = 15000;
-
-    /**
-     * Percentages in 100%
-     */
-    private static final double MAX_PERCENTAGE = 100.0;
-
     /**
      * Default amount of people
      */
@@ -64,9 +50,16 @@ public class RecipeViewModel extends AndroidViewModel {
     private MutableLiveData<Integer> mCurrentPeople;
 
     /**
-     * LiveData of the progress. Used to update the UI according to the progress.
+     * LiveData of the estimated progress. It only changes when a stage of the detection starts,
+     * the UI computes the progress in between from the estimate.
      */
-    private MutableLiveData<Integer> mProgressStep;
+    private MutableLiveData<ProgressEstimator.Estimate> mProgressEstimate = new MutableLiveData<>();
+
+    /**
+     * The last estimate of the progress. Kept here, because the estimate is updated on the worker
+     * thread and the value of the LiveData is only up to date on the main thread.
+     */
+    private final AtomicReference<ProgressEstimator.Estimate> mLastEstimate = new AtomicReference<>();
 
     /**
      * This LiveData value updates when the initialisation is finished.
@@ -78,6 +71,17 @@ public class RecipeViewModel extends AndroidViewModel {
      */
     private MutableLiveData<Recipe> mRecipe = new MutableLiveData<>();
 
+    /**
+     * The render models of the steps of the shown recipe. Built off the main thread every time
+     * a recipe is shown, so the step pages only have to bind views.
+     */
+    private MutableLiveData<List<StepRenderModel>> mStepRenderModels = new MutableLiveData<>();
+
+    /**
+     * The recipe for which the last render models were requested.
+     */
+    private Recipe mRecipeToRender = null;
+
     /**
      * This LiveData value updates when the processing has failed
      */
@@ -94,9 +98,10 @@ public class RecipeViewModel extends AndroidViewModel {
     private MutableLiveData<Boolean> mDefaultAmountSet = new MutableLiveData<>();
 
     /**
-     * Indicates whether or not this recipe is already being processed
+     * Whether the recipe of this view model is being or has been processed. Changes atomically,
+     * so only one caller can start the processing.
      */
-    private boolean isBeingProcessed = false;
+    private final AtomicReference<ProcessingState> mProcessingState = new AtomicReference<>(ProcessingState.IDLE);
 
     /**
      * boolean that keeps track of the current language, is true if the language is Dutch, false if the language is
@@ -110,9 +115,26 @@ public class RecipeViewModel extends AndroidViewModel {
     private Recipe mEnglishRecipe;
 
     /**
-     * The translated recipe if the translation has succeeded
+     * The shown recipe with everything built to show it, kept in the {@link RecipeSession}
+     * to show it again at once. Null until a recipe is shown.
      */
-    private Recipe mDutchRecipe;
+    private RecipeSession.PreparedRecipe mPrepared = null;
+
+    /**
+     * The render models of the steps of the original recipe, kept to switch back from Dutch at once
+     */
+    private List<StepRenderModel> mEnglishStepModels = null;
+
+    /**
+     * The Dutch text of the recipe if the translation has succeeded. Only the text is kept,
+     * not a second recipe.
+     */
+    private TranslationOverlay mDutchOverlay = null;
+
+    /**
+     * The translation shown over the recipe, null when the original recipe is shown.
+     */
+    private MutableLiveData<TranslationOverlay> mTranslation = new MutableLiveData<>();
 
     /**
      * A private helper that is responsible with calling the translation service
@@ -135,6 +157,7 @@ public class RecipeViewModel extends AndroidViewModel {
      * Must be a variable of this class to prevent garbage collection and stop listening
      */
     private SharedPreferences.OnSharedPreferenceChangeListener mListener = null;
+
     private MutableLiveData<Boolean> mTranslationFailed = new MutableLiveData<>();
 
     /**
@@ -147,8 +170,6 @@ public class RecipeViewModel extends AndroidViewModel {
         this.mContext = application;
 
         // create and set the live data variables
-        mProgressStep = new MutableLiveData<>();
-        mProgressStep.setValue(0);
         mInitialised = new MutableLiveData<>();
         mInitialised.setValue(false);
         mCurrentPeople = new MutableLiveData<>();
@@ -157,8 +178,8 @@ public class RecipeViewModel extends AndroidViewModel {
         mDefaultAmountSet.setValue(false);
         mTranslationFailed.setValue(false);
 
-        // create the annotator for the pipeline
-        SouschefProcessorCommunicator.createAnnotationPipelines();
+        // the annotation pipelines are only created when a recipe has to be detected, see AnnotationPipelines
+        ProgressEstimator.getInstance().initialize(application);
 
         // listen to changes in the shared preferences
         SharedPreferences sharedPreferences = application.getSharedPreferences(
@@ -190,58 +211,88 @@ public class RecipeViewModel extends AndroidViewModel {
             Recipe recipe = mRecipe.getValue();
 
             if (recipe != null) {
-
-                List<String> sentences = recipe.createSentencesToTranslate();
-                String source;
-                String target;
-
-                if (recipe.equals(mEnglishRecipe)) {
+                if (!toDutch) {
+                    // show the original english text again
+                    showOriginal();
+                } else if (mDutchOverlay == null) {
                     // do the translation only if the dutch version has not been initialized
-                    if (mDutchRecipe == null) {
-                        source = "en";
-                        target = "nl";
-
-                        new TranslationTask(sentences, source, target,
-                                mTranslationServiceCaller).execute();
-
-                    } else {
-                        // post the dutch recipe
-                        mRecipe.postValue(mDutchRecipe);
-                        isDutch = true;
-                    }
-
+                    new TranslationTask(recipe, recipe.createSentencesToTranslate(), "en", "nl",
+                            mTranslationServiceCaller).execute();
                 } else {
-                    // post the english recipe
-                    mRecipe.postValue(mEnglishRecipe);
-                    isDutch = false;
+                    // show the dutch text over the recipe
+                    showOverlay(mDutchOverlay);
                 }
             }
         }
     }
 
+    /**
+     * Show the text of a translation over the recipe.
+     *
+     * @param overlay the translated text
+     */
+    private void showOverlay(TranslationOverlay overlay) {
+        // models of the original recipe that are still being built are not shown
+        mRecipeToRender = null;
+        mTranslation.setValue(overlay);
+        mStepRenderModels.setValue(overlay.getStepModels());
+        isDutch = true;
+    }
+
+    /**
+     * Show the original text of the recipe.
+     */
+    private void showOriginal() {
+        mTranslation.setValue(null);
+        if (mEnglishStepModels != null) {
+            mRecipeToRender = mEnglishRecipe;
+            mStepRenderModels.setValue(mEnglishStepModels);
+        } else {
+            buildStepRenderModels(mEnglishRecipe);
+        }
+        isDutch = false;
+    }
+
     public LiveData<String> getFailureMessage() {
         return mFailureMessage;
     }
 
     /**
-     * Get the progress LiveData object
+     * Get the estimated progress of detecting the recipe.
      *
-     * @return live progress
+     * @return LiveData with the estimate, null before the detection started
      */
-    public LiveData<Integer> getProgressStep() {
-        return mProgressStep;
+    public LiveData<ProgressEstimator.Estimate> getProgressEstimate() {
+        return mProgressEstimate;
     }
 
     /**
-     * Get the actual progress, in percentages.
-     *
-     * @return progress-percentage
+     * Start estimating the progress before the input is read, from the input sizes seen before.
+     * Does nothing when the progress is already being estimated. The annotation pipelines are not
+     * created here, an input that was detected before does not need them.
      */
-    public int getProgress() {
-        if (mProgressStep == null || mProgressStep.getValue() == null) {
-            return 0;
+    public void startProgress() {
+        if (mLastEstimate.get() == null) {
+            estimateRemaining(-1, AnnotationPipelines.getInstance().isCreated());
         }
-        return (int) (MAX_PERCENTAGE / DETECTION_STEPS * mProgressStep.getValue());
+    }
+
+    /**
+     * Estimate how long the rest of the detection takes and post the new estimate. The progress
+     * continues from where the previous estimate is now, so it never jumps back.
+     *
+     * @param inputSize        the amount of characters of the input, or -1 when it is not known yet
+     * @param pipelinesCreated whether the annotation pipelines are created already
+     */
+    private void estimateRemaining(int inputSize, boolean pipelinesCreated) {
+        ProgressEstimator estimator = ProgressEstimator.getInstance();
+        long pipelines = pipelinesCreated ? 0 : estimator.estimateMillis(ProgressEstimator.STAGE_PIPELINES, inputSize);
+        long remaining = estimator.estimateMillis(ProgressEstimator.STAGE_DETECTION, inputSize) + pipelines;
+        long now = SystemClock.elapsedRealtime();
+        mLastEstimate.updateAndGet((ProgressEstimator.Estimate current) -> new ProgressEstimator.Estimate(
+                current == null ? 0 : current.progressAt(now), now, remaining));
+        // post the newest estimate, even when another thread replaced it in the meantime
+        mProgressEstimate.postValue(mLastEstimate.get());
     }
 
     /**
@@ -253,8 +304,7 @@ public class RecipeViewModel extends AndroidViewModel {
         if (mInitialised != null && mInitialised.getValue() != null && mInitialised.getValue()) {
             return;
         }
-        (new ProgressUpdate()).execute();
-        (new SouschefInit(plainText)).execute();
+        detect(() -> ExtractedText.fromJson(plainText));
     }
 
     /**
@@ -266,9 +316,37 @@ public class RecipeViewModel extends AndroidViewModel {
         if (mInitialised != null && mInitialised.getValue() != null && mInitialised.getValue()) {
             return;
         }
-        (new ProgressUpdate()).execute();
-        (new SouschefInit(extractedText)).execute();
+        detect(() -> extractedText);
+    }
 
+    /**
+     * Detect the recipe in an input in the background and show it when it is detected.
+     * When the recipe is still prepared in the {@link RecipeSession}, it is shown at once.
+     * When the input was detected before, the stored recipe is shown. When the same input is
+     * already being detected, that detection is joined.
+     *
+     * @param input gives the input, called in the background
+     */
+    private void detect(Supplier<ExtractedText> input) {
+        CompletableFuture.supplyAsync(input, AsyncTask.THREAD_POOL_EXECUTOR)
+                .thenCompose((ExtractedText extractedText) -> {
+                    String key = ProcessingRegistry.contentKey(extractedText);
+                    RecipeSession.PreparedRecipe prepared = RecipeSession.getInstance().get(key);
+                    if (prepared != null) {
+                        return CompletableFuture.completedFuture(prepared);
+                    }
+                    CompletableFuture<Recipe> recipe;
+                    Recipe stored = new ProcessedRecipeStore(mContext).load(key);
+                    if (stored != null) {
+                        Log.d(RecipeViewModel.class.getSimpleName(), "showing the stored recipe of " + key);
+                        recipe = CompletableFuture.completedFuture(stored);
+                    } else {
+                        recipe = RecipeProcessingService.process(mContext, key, () -> detectRecipe(extractedText));
+                    }
+                    return recipe.thenApply((Recipe detected) ->
+                            detected == null ? null : RecipeSession.getInstance().prepare(key, detected));
+                })
+                .whenCompleteAsync(this::onRecipeDetected, PluginInputLoader.mainThread());
     }
 
     /**
@@ -277,20 +355,92 @@ public class RecipeViewModel extends AndroidViewModel {
      * @param recipe the recipe for data extraction.
      */
     public void initialiseWithRecipe(Recipe recipe) {
+        initialiseWithRecipe(RecipeSession.keyFor(recipe), recipe);
+    }
+
+    /**
+     * Initialise data directly with a recipe. When a recipe with the same key is still prepared
+     * in the {@link RecipeSession}, that one is shown with its render models and timers.
+     *
+     * @param key    the key of the recipe in the session
+     * @param recipe the recipe for data extraction.
+     */
+    public void initialiseWithRecipe(String key, Recipe recipe) {
+        showPrepared(RecipeSession.getInstance().prepare(key, recipe));
+    }
+
+    /**
+     * Initialise the data with a recipe that is still prepared in the {@link RecipeSession}.
+     *
+     * @param key the key of the recipe in the session
+     * @return true when the recipe was prepared and is shown, false when it has to be loaded
+     */
+    public boolean initialiseFromSession(String key) {
+        RecipeSession.PreparedRecipe prepared = RecipeSession.getInstance().get(key);
+        if (prepared == null) {
+            return false;
+        }
+        showPrepared(prepared);
+        return true;
+    }
+
+    /**
+     * Show a prepared recipe. What was built for it before is used again, the rest is built.
+     *
+     * @param prepared the prepared recipe
+     */
+    private void showPrepared(RecipeSession.PreparedRecipe prepared) {
+        mProcessingState.set(ProcessingState.DONE);
+        if (prepared != mPrepared) {
+            // the measured text of the previous recipe will not be shown anymore
+            PrecomputedTextCache.getInstance().clear();
+        }
+        mPrepared = prepared;
+        Recipe recipe = prepared.getRecipe();
         RecipeViewModel.this.mRecipe.setValue(recipe);
-        if (mRecipe.getValue().getNumberOfPeople() == -1) {
-            mRecipe.getValue().setNumberOfPeople(DEFAULT_SERVINGS_AMOUNT);
+        if (recipe.getNumberOfPeople() == -1) {
+            recipe.setNumberOfPeople(DEFAULT_SERVINGS_AMOUNT);
             mDefaultAmountSet.setValue(true);
         }
-        RecipeViewModel.this.mCurrentPeople.setValue(recipe.getNumberOfPeople());
+        int people = prepared.getPeople() > 0 ? prepared.getPeople() : recipe.getNumberOfPeople();
+        RecipeViewModel.this.mCurrentPeople.setValue(people);
         isDutch = false;
         mEnglishRecipe = recipe;
+        mEnglishStepModels = prepared.getStepModels();
+        mDutchOverlay = prepared.getDutchOverlay();
+        mTranslation.setValue(null);
+        if (mEnglishStepModels != null) {
+            mRecipeToRender = recipe;
+            mStepRenderModels.setValue(mEnglishStepModels);
+        } else {
+            buildStepRenderModels(recipe);
+        }
         mInitialised.setValue(true);
         if (isPreferenceSetToDutch()) {
             translate(true);
         }
     }
 
+    /**
+     * Get the shown recipe with everything built to show it, such as its timers.
+     *
+     * @return the prepared recipe, null until a recipe is shown
+     */
+    public RecipeSession.PreparedRecipe getPreparedRecipe() {
+        return mPrepared;
+    }
+
+    /**
+     * Build the render models of the steps of a recipe in the background and post them
+     * when the recipe is still the one to show.
+     *
+     * @param recipe the recipe that is shown
+     */
+    private void buildStepRenderModels(Recipe recipe) {
+        mRecipeToRender = recipe;
+        new StepRenderTask(recipe).executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+    }
+
     private boolean isPreferenceSetToDutch() {
         SharedPreferences sharedPreferences = getApplication().getSharedPreferences(
                 Tab1Overview.SETTINGS_PREFERENCES,
@@ -314,6 +464,25 @@ public class RecipeViewModel extends AndroidViewModel {
         return mRecipe;
     }
 
+    /**
+     * Get the translation shown over the recipe. Views read the text from the translation
+     * when it is not null, and from the recipe otherwise.
+     *
+     * @return LiveData with the translation, or null for the original text
+     */
+    public LiveData<TranslationOverlay> getTranslation() {
+        return mTranslation;
+    }
+
+    /**
+     * Get the render models of the steps of the shown recipe.
+     *
+     * @return LiveData with a model for every step
+     */
+    public LiveData<List<StepRenderModel>> getStepRenderModels() {
+        return mStepRenderModels;
+    }
+
     public LiveData<Boolean> getProcessFailed() {
         return mProcessingFailed;
     }
@@ -331,7 +500,7 @@ public class RecipeViewModel extends AndroidViewModel {
             return;
         }
         if (mCurrentPeople.getValue() < MAX_PEOPLE) {
-            mCurrentPeople.setValue(mCurrentPeople.getValue() + 1);
+            setPeople(mCurrentPeople.getValue() + 1);
         }
     }
 
@@ -344,109 +513,220 @@ public class RecipeViewModel extends AndroidViewModel {
             return;
         }
         if (mCurrentPeople.getValue() > 1) {
-            mCurrentPeople.setValue(mCurrentPeople.getValue() - 1);
+            setPeople(mCurrentPeople.getValue() - 1);
         }
     }
 
-    public boolean isBeingProcessed() {
-        return isBeingProcessed;
+    /**
+     * Scale the recipe to an amount of people, which is kept with the prepared recipe and
+     * updates its ingredients on the shopping list.
+     *
+     * @param people the amount of people
+     */
+    private void setPeople(int people) {
+        mCurrentPeople.setValue(people);
+        if (mPrepared != null) {
+            mPrepared.setPeople(people);
+            ShoppingList.getInstance().setPeople(mPrepared.getKey(), people);
+        }
     }
 
-    public void setBeingProcessed(boolean isBeingProcessed) {
-        this.isBeingProcessed = isBeingProcessed;
+    /**
+     * Add the ingredients of the shown recipe to the shopping list, scaled to the current
+     * amount of people.
+     */
+    public void addToShoppingList() {
+        if (mPrepared == null || mCurrentPeople.getValue() == null) {
+            return;
+        }
+        ShoppingList.getInstance().add(mPrepared.getKey(), mPrepared.getRecipe(), mCurrentPeople.getValue());
     }
 
     /**
-     * Async task executing the logic for the progress bar.
-     * If leaked, it will stop after {@value MAX_WAIT_TIME} milliseconds.
+     * Remove the ingredients of the shown recipe from the shopping list.
      */
-    @SuppressLint("StaticFieldLeak")
-    class ProgressUpdate extends AsyncTask<Void, Integer, Void> {
+    public void removeFromShoppingList() {
+        if (mPrepared != null) {
+            ShoppingList.getInstance().remove(mPrepared.getKey());
+        }
+    }
 
-        @Override
-        protected Void doInBackground(Void... voids) {
-            int upTime = 0;
-            try {
-                while (!mInitialised.getValue()) {
-                    Thread.sleep(MILLIS_BETWEEN_UPDATES);
-                    upTime += MILLIS_BETWEEN_UPDATES;
-
-                    publishProgress(SouschefProcessorCommunicator.getProgressAnnotationPipelines());
-                    if (SouschefProcessorCommunicator.getProgressAnnotationPipelines()
-                            >= DETECTION_STEPS || upTime > MAX_WAIT_TIME) {
-                        break;
-                    }
-                }
-            } catch (InterruptedException e) {
-                Log.e(RecipeViewModel.class.getSimpleName(), "Caught interruptedException");
-                Thread.currentThread().interrupt();
+    /**
+     * Check whether the ingredients of the shown recipe are on the shopping list.
+     *
+     * @return true when the recipe is on the shopping list
+     */
+    public boolean isOnShoppingList() {
+        return mPrepared != null && ShoppingList.getInstance().contains(mPrepared.getKey());
+    }
+
+    /**
+     * Check whether the recipe of this view model is being or has been processed.
+     *
+     * @return true when the processing was started
+     */
+    public boolean isBeingProcessed() {
+        return mProcessingState.get() != ProcessingState.IDLE;
+    }
+
+    /**
+     * Start processing the recipe of this view model, when that was not started yet.
+     * Only the first of several callers, for example recreated activities, gets true.
+     *
+     * @return true when the caller should process the recipe
+     */
+    public boolean startProcessing() {
+        return mProcessingState.compareAndSet(ProcessingState.IDLE, ProcessingState.PROCESSING);
+    }
+
+    /**
+     * Run the Souschef processor on an input, on a background thread.
+     *
+     * @param extractedText the input
+     * @return the detected recipe, or null when the detection failed
+     */
+    private Recipe detectRecipe(ExtractedText extractedText) {
+        int inputSize = ProgressEstimator.inputSize(extractedText);
+        Metrics.Timer timer = Metrics.getInstance().startTimer("recipe_pipeline")
+                .putAttribute("input_chars", Integer.toString(inputSize));
+        TraceSections.begin("RecipeViewModel.detectRecipe");
+        try {
+            // create the pipelines if no recipe was detected before
+            CompletableFuture<Void> created = AnnotationPipelines.getInstance().ensureCreated();
+            boolean wasCreated = created.isDone();
+            estimateRemaining(inputSize, wasCreated);
+            created.join();
+            if (!wasCreated) {
+                estimateRemaining(inputSize, true);
+            }
+            SouschefProcessorCommunicator communicator =
+                    SouschefProcessorCommunicator.createCommunicator(mContext);
+            if (communicator != null) {
+                long detectionStart = SystemClock.elapsedRealtime();
+                Recipe processedRecipe = (Recipe) communicator.pipeline(extractedText);
+                ProgressEstimator.getInstance().recordStage(ProgressEstimator.STAGE_DETECTION, inputSize,
+                        SystemClock.elapsedRealtime() - detectionStart);
+                timer.putAttribute("result", "success");
+                return processedRecipe;
             }
+            timer.putAttribute("result", "no_communicator");
+            return null;
+        } catch (CompletionException e) {
+            // not a problem with the input, so it is reported on its own
+            Log.e(RecipeViewModel.class.getSimpleName(), "Creating the annotation pipelines failed", e);
+            Metrics.getInstance().count("annotation_pipelines_failed");
+            mFailureMessage.postValue(mContext.getString(R.string.pipelines_failed));
+            timer.putAttribute("result", "no_pipelines");
             return null;
+        } finally {
+            TraceSections.end();
+            timer.stop();
         }
+    }
 
-        @Override
-        protected void onProgressUpdate(Integer... values) {
-            super.onProgressUpdate(values);
-            mProgressStep.setValue(values[0]);
+    /**
+     * Show a detected recipe, or let everyone know the detection failed. Called on the main thread.
+     *
+     * @param recipe the prepared recipe, null when the detection failed
+     * @param error  the error when reading the input or detecting failed, null otherwise
+     */
+    private void onRecipeDetected(RecipeSession.PreparedRecipe recipe, Throwable error) {
+        // only initialize if the processing has not failed
+        if (recipe != null) {
+            mProcessingFailed.setValue(false);
+            showPrepared(recipe);
+        } else {
+            if (error != null) {
+                Log.e(RecipeViewModel.class.getSimpleName(), "Detecting the recipe failed", error);
+            }
+            mProcessingState.set(ProcessingState.FAILED);
+            // let everyone know processing failed
+            Metrics.getInstance().count("recipe_processing_failed");
+            mProcessingFailed.setValue(true);
         }
     }
 
     /**
-     * Async taks executing the souschefprocessor and Hulpchef initialisation.
+     * The states of processing the recipe of a view model.
      */
-    @SuppressLint("StaticFieldLeak")
-    class SouschefInit extends AsyncTask<Void, String, Recipe> {
-
-        private ExtractedText mExtractedText;
+    private enum ProcessingState {
+        /**
+         * Nothing was processed yet.
+         */
+        IDLE,
+        /**
+         * The input is being read or the recipe is being detected.
+         */
+        PROCESSING,
+        /**
+         * The recipe is detected or was read.
+         */
+        DONE,
+        /**
+         * Reading the input or detecting the recipe failed.
+         */
+        FAILED
+    }
 
-        SouschefInit(String text) {
-            this.mExtractedText = ExtractedText.fromJson(text);
-        }
+    /**
+     * Async task that builds the render models of the steps of a recipe.
+     */
+    @SuppressLint("StaticFieldLeak")
+    private class StepRenderTask extends AsyncTask<Void, Void, List<StepRenderModel>> {
+        private Recipe mRecipeToBuild;
 
-        SouschefInit(ExtractedText extractedText) {
-            this.mExtractedText = extractedText;
+        StepRenderTask(Recipe recipe) {
+            this.mRecipeToBuild = recipe;
         }
 
+        /**
+         * {@inheritDoc}
+         */
         @Override
-        protected Recipe doInBackground(Void... voids) {
-            // Progressupdates are in demostate
-
-            SouschefProcessorCommunicator communicator = SouschefProcessorCommunicator.createCommunicator(mContext);
-            if (communicator != null) {
-                Recipe processedRecipe = (Recipe) communicator.pipeline(mExtractedText);
-                // the processing has succeeded, set the flag to false and return the processedRecipe
-                mProcessingFailed.postValue(false);
-                return processedRecipe;
+        protected List<StepRenderModel> doInBackground(Void... voids) {
+            List<StepRenderModel> models = StepRenderModel.buildAll(mRecipeToBuild);
+            if (!models.isEmpty()) {
+                RecipeTextStore text = models.get(0).getTextStore();
+                Log.d(RecipeViewModel.class.getSimpleName(), "step text of " + models.size() + " steps: "
+                        + text.length() + " chars, " + text.getFootprintBytes() + " bytes");
             }
-            return null;
+            return models;
         }
 
-
+        /**
+         * {@inheritDoc}
+         */
         @Override
-        protected void onPostExecute(Recipe recipe) {
-            // only initialize if the processing has not failed
-            if (recipe != null) {
-                initialiseWithRecipe(recipe);
-            } else {
-                // let everyone know processing failed
-                mProcessingFailed.postValue(true);
+        protected void onPostExecute(List<StepRenderModel> models) {
+            // a newer recipe could have been shown in the meantime
+            if (mRecipeToBuild == mEnglishRecipe) {
+                mEnglishStepModels = models;
+            }
+            if (mPrepared != null && mPrepared.getRecipe() == mRecipeToBuild) {
+                mPrepared.setStepModels(models);
+                RecipeSession.getInstance().onRecipeGrown();
+            }
+            if (mRecipeToBuild == mRecipeToRender) {
+                mStepRenderModels.setValue(models);
             }
         }
     }
 
     /**
      * A private task that calls the {@link TranslationServiceCaller#translateOperation(List, String, String)} method
-     * and will post the result
+     * and builds the {@link TranslationOverlay} of the result in the background
      */
-    private class TranslationTask extends AsyncTask<Void, Void, List<String>> {
+    private class TranslationTask extends AsyncTask<Void, Void, TranslationOverlay> {
+        private Recipe mOriginalRecipe;
         private List<String> mSentences;
         private String mSourceLanguage;
         private String mDestinationLanguage;
         private TranslationServiceCaller mTranslationServiceCaller;
 
 
-        TranslationTask(List<String> sentences, String sourceLanguage, String destinationLanguage,
-                        TranslationServiceCaller translationServiceCaller) {
+        TranslationTask(Recipe originalRecipe, List<String> sentences, String sourceLanguage,
+                        String destinationLanguage, TranslationServiceCaller translationServiceCaller) {
+            this.mOriginalRecipe = originalRecipe;
             this.mSentences = sentences;
             this.mSourceLanguage = sourceLanguage;
             this.mDestinationLanguage = destinationLanguage;
@@ -458,24 +738,41 @@ public class RecipeViewModel extends AndroidViewModel {
          * {@inheritDoc}
          */
         @Override
-        protected List<String> doInBackground(Void... params) {
-            List<String> result = mTranslationServiceCaller.translateOperation(mSentences,
-                    mSourceLanguage, mDestinationLanguage);
-            Log.d(getClass().getSimpleName(), result.toString());
-            return result;
+        protected TranslationOverlay doInBackground(Void... params) {
+            Metrics.Timer timer = Metrics.getInstance().startTimer("translation")
+                    .putAttribute("languages", mSourceLanguage + "-" + mDestinationLanguage);
+            try {
+                List<String> result = mTranslationServiceCaller.translateOperation(mSentences,
+                        mSourceLanguage, mDestinationLanguage);
+                Log.d(getClass().getSimpleName(), result.toString());
+                if (result.isEmpty()) {
+                    timer.putAttribute("result", "failed");
+                    return null;
+                }
+                timer.putAttribute("result", "success");
+                return TranslationOverlay.build(mOriginalRecipe, result.toArray(new String[0]));
+            } finally {
+                timer.stop();
+            }
         }
 
         /**
          * {@inheritDoc}
          */
         @Override
-        protected void onPostExecute(List<String> translatedSentences) {
-            if (!translatedSentences.isEmpty()) {
-                Log.d(getClass().getSimpleName(), translatedSentences.toString());
-                mDutchRecipe = mRecipe.getValue().getTranslatedRecipe(translatedSentences.toArray(new String[0]));
-                mRecipe.postValue(mDutchRecipe);
-                // set the dutch flag to true
-                isDutch = true;
+        protected void onPostExecute(TranslationOverlay overlay) {
+            if (mOriginalRecipe != mEnglishRecipe) {
+                // another recipe is shown in the meantime
+                return;
+            }
+            if (overlay != null) {
+                Log.d(getClass().getSimpleName(), overlay.getSentences().toString());
+                mDutchOverlay = overlay;
+                if (mPrepared != null && mPrepared.getRecipe() == mOriginalRecipe) {
+                    mPrepared.setDutchOverlay(overlay);
+                    RecipeSession.getInstance().onRecipeGrown();
+                }
+                showOverlay(overlay);
                 mTranslationFailed.postValue(true);
             } else {
                 // set the dutch flag back to false
@@ -488,4 +785,3 @@ public class RecipeViewModel extends AndroidViewModel {
         }
     }
 }
-
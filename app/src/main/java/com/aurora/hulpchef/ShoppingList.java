@@ -0,0 +1,374 @@
+package com.aurora.hulpchef;
+
+import com.aurora.souschefprocessor.recipe.ListIngredient;
+import com.aurora.souschefprocessor.recipe.Recipe;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A singleton class that merges the ingredients of several recipes into one shopping list, for
+ * when several recipes are cooked for the same event.
+ * <p>
+ * Every recipe is scaled to its own amount of people. Ingredients with the same name and a unit
+ * that can be converted, such as a cup and a tablespoon or a gram and a kilogram, are summed into
+ * one item. The items are found in a hash index on their normalised name and base unit, so adding
+ * a recipe takes a time linear in its amount of ingredients. When the amount of people of a
+ * recipe changes, only the items of its own ingredients are updated.
+ */
+public final class ShoppingList {
+    /**
+     * The base unit of masses.
+     */
+    private static final String GRAM = "g";
+    /**
+     * The base unit of volumes.
+     */
+    private static final String MILLILITRE = "ml";
+    /**
+     * The units that can be converted, by their normalised name.
+     */
+    private static final Map<String, Unit> UNITS = new HashMap<>();
+    /**
+     * The singleton instance
+     */
+    private static final ShoppingList mInstance = new ShoppingList();
+
+    static {
+        addUnit(GRAM, 1, "g", "gr", "gram", "grams");
+        addUnit(GRAM, 1000, "kg", "kilo", "kilogram", "kilograms");
+        addUnit(GRAM, 28.3495, "oz", "ounce", "ounces");
+        addUnit(GRAM, 453.592, "lb", "lbs", "pound", "pounds");
+        addUnit(MILLILITRE, 1, "ml", "millilitre", "millilitres", "milliliter", "milliliters");
+        addUnit(MILLILITRE, 10, "cl", "centilitre", "centilitres", "centiliter", "centiliters");
+        addUnit(MILLILITRE, 100, "dl", "decilitre", "decilitres", "deciliter", "deciliters");
+        addUnit(MILLILITRE, 1000, "l", "litre", "litres", "liter", "liters");
+        addUnit(MILLILITRE, 4.92892, "tsp", "teaspoon", "teaspoons");
+        addUnit(MILLILITRE, 14.7868, "tbsp", "tablespoon", "tablespoons");
+        addUnit(MILLILITRE, 236.588, "cup", "cups");
+    }
+
+    /**
+     * The recipes on the list by their key.
+     */
+    private final Map<String, Entry> mRecipes = new HashMap<>();
+    /**
+     * The merged items by their normalised name and base unit, in the order they were added.
+     */
+    private final LinkedHashMap<String, Item> mItems = new LinkedHashMap<>();
+
+    /**
+     * Creates an empty shopping list.
+     */
+    ShoppingList() {
+    }
+
+    /**
+     * Get the ShoppingList instance
+     *
+     * @return the instance
+     */
+    public static ShoppingList getInstance() {
+        return mInstance;
+    }
+
+    /**
+     * Add a unit that can be converted to a base unit.
+     *
+     * @param baseUnit the base unit
+     * @param factor   the amount of the base unit in one of the unit
+     * @param names    the names of the unit
+     */
+    private static void addUnit(String baseUnit, double factor, String... names) {
+        for (String name : names) {
+            UNITS.put(name, new Unit(baseUnit, factor));
+        }
+    }
+
+    /**
+     * Lowercase a name or unit, collapse its whitespace and remove its trailing dots,
+     * so "Brown  Sugar" and "brown sugar" or "Tbsp." and "tbsp" are the same.
+     *
+     * @param text the name or unit
+     * @return the normalised text
+     */
+    static String normalise(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalised = text.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+        while (normalised.endsWith(".")) {
+            normalised = normalised.substring(0, normalised.length() - 1);
+        }
+        return normalised;
+    }
+
+    /**
+     * Get the unit of an ingredient, an unknown unit is only summed with itself.
+     *
+     * @param unit the unit of the ingredient
+     * @return the unit
+     */
+    private static Unit unitOf(String unit) {
+        String normalised = normalise(unit);
+        Unit known = UNITS.get(normalised);
+        return known != null ? known : new Unit(normalised, 1);
+    }
+
+    /**
+     * Add the ingredients of a recipe, scaled to an amount of people. A recipe that is on the list
+     * already is only scaled.
+     *
+     * @param key    the key of the recipe
+     * @param recipe the recipe
+     * @param people the amount of people the recipe is cooked for
+     */
+    public synchronized void add(String key, Recipe recipe, int people) {
+        if (mRecipes.containsKey(key)) {
+            setPeople(key, people);
+            return;
+        }
+        // a recipe without an amount of people is counted as being for the amount chosen
+        double originalPeople = Math.max(1, recipe.getNumberOfPeople() > 0 ? recipe.getNumberOfPeople() : people);
+        List<ListIngredient> ingredients = recipe.getIngredients();
+        Entry entry = new Entry(people, ingredients.size());
+        for (ListIngredient ingredient : ingredients) {
+            Unit unit = unitOf(ingredient.getUnit());
+            String indexKey = normalise(ingredient.getName()) + '\u0000' + unit.mBaseUnit;
+            Item item = mItems.get(indexKey);
+            if (item == null) {
+                item = new Item(ingredient.getName(), ingredient.getUnit(), unit.mFactor);
+                mItems.put(indexKey, item);
+            }
+            double perPerson = Math.max(0, ingredient.getQuantity()) * unit.mFactor / originalPeople;
+            item.mBaseQuantity += perPerson * people;
+            item.mIngredients++;
+            entry.mItemKeys.add(indexKey);
+            entry.mPerPerson.add(perPerson);
+        }
+        mRecipes.put(key, entry);
+    }
+
+    /**
+     * Change the amount of people a recipe on the list is cooked for. Only the items of its own
+     * ingredients are updated.
+     *
+     * @param key    the key of the recipe
+     * @param people the amount of people
+     * @return false when the recipe is not on the list
+     */
+    public synchronized boolean setPeople(String key, int people) {
+        Entry entry = mRecipes.get(key);
+        if (entry == null) {
+            return false;
+        }
+        int difference = people - entry.mPeople;
+        if (difference != 0) {
+            for (int i = 0; i < entry.mItemKeys.size(); i++) {
+                mItems.get(entry.mItemKeys.get(i)).mBaseQuantity += entry.mPerPerson.get(i) * difference;
+            }
+            entry.mPeople = people;
+        }
+        return true;
+    }
+
+    /**
+     * Remove the ingredients of a recipe from the list.
+     *
+     * @param key the key of the recipe
+     * @return false when the recipe was not on the list
+     */
+    public synchronized boolean remove(String key) {
+        Entry entry = mRecipes.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        for (int i = 0; i < entry.mItemKeys.size(); i++) {
+            String itemKey = entry.mItemKeys.get(i);
+            Item item = mItems.get(itemKey);
+            item.mIngredients--;
+            if (item.mIngredients == 0) {
+                mItems.remove(itemKey);
+            } else {
+                item.mBaseQuantity -= entry.mPerPerson.get(i) * entry.mPeople;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check whether a recipe is on the list.
+     *
+     * @param key the key of the recipe
+     * @return true when the ingredients of the recipe are on the list
+     */
+    public synchronized boolean contains(String key) {
+        return mRecipes.containsKey(key);
+    }
+
+    /**
+     * Remove all recipes from the list.
+     */
+    public synchronized void clear() {
+        mRecipes.clear();
+        mItems.clear();
+    }
+
+    /**
+     * Get the merged items of the list, in the order they were first added.
+     *
+     * @return a copy of the items
+     */
+    public synchronized List<Item> getItems() {
+        List<Item> items = new ArrayList<>(mItems.size());
+        for (Item item : mItems.values()) {
+            items.add(new Item(item));
+        }
+        return items;
+    }
+
+    /**
+     * A unit that can be converted to a base unit.
+     */
+    private static final class Unit {
+        /**
+         * The base unit.
+         */
+        private final String mBaseUnit;
+        /**
+         * The amount of the base unit in one of this unit.
+         */
+        private final double mFactor;
+
+        /**
+         * Creates a unit.
+         *
+         * @param baseUnit the base unit
+         * @param factor   the amount of the base unit in one of this unit
+         */
+        Unit(String baseUnit, double factor) {
+            mBaseUnit = baseUnit;
+            mFactor = factor;
+        }
+    }
+
+    /**
+     * A recipe on the list with what it adds to the items.
+     */
+    private static final class Entry {
+        /**
+         * The keys of the items of the ingredients, in the order of the ingredients.
+         */
+        private final List<String> mItemKeys;
+        /**
+         * The amount in the base unit every ingredient adds per person.
+         */
+        private final List<Double> mPerPerson;
+        /**
+         * The amount of people the recipe is cooked for.
+         */
+        private int mPeople;
+
+        /**
+         * Creates a recipe on the list.
+         *
+         * @param people      the amount of people the recipe is cooked for
+         * @param ingredients the amount of ingredients of the recipe
+         */
+        Entry(int people, int ingredients) {
+            mPeople = people;
+            mItemKeys = new ArrayList<>(ingredients);
+            mPerPerson = new ArrayList<>(ingredients);
+        }
+    }
+
+    /**
+     * An item of the list, the summed ingredients with the same name and a convertible unit.
+     */
+    public static final class Item {
+        /**
+         * The name of the first ingredient of the item.
+         */
+        private final String mName;
+        /**
+         * The unit of the first ingredient of the item, the quantity is shown in it.
+         */
+        private final String mUnit;
+        /**
+         * The amount of the base unit in one of the shown unit.
+         */
+        private final double mFactor;
+        /**
+         * The summed quantity in the base unit.
+         */
+        private double mBaseQuantity = 0;
+        /**
+         * The amount of ingredients summed in the item.
+         */
+        private int mIngredients = 0;
+
+        /**
+         * Creates an empty item.
+         *
+         * @param name   the name of the first ingredient
+         * @param unit   the unit of the first ingredient
+         * @param factor the amount of the base unit in one of the unit
+         */
+        Item(String name, String unit, double factor) {
+            mName = name;
+            mUnit = unit;
+            mFactor = factor;
+        }
+
+        /**
+         * Copy an item.
+         *
+         * @param item the item
+         */
+        Item(Item item) {
+            this(item.mName, item.mUnit, item.mFactor);
+            mBaseQuantity = item.mBaseQuantity;
+            mIngredients = item.mIngredients;
+        }
+
+        /**
+         * Get the name of the item.
+         *
+         * @return the name of the first ingredient
+         */
+        public String getName() {
+            return mName;
+        }
+
+        /**
+         * Get the unit the quantity is in.
+         *
+         * @return the unit of the first ingredient
+         */
+        public String getUnit() {
+            return mUnit;
+        }
+
+        /**
+         * Get the summed quantity.
+         *
+         * @return the quantity in the unit of {@link #getUnit()}
+         */
+        public double getQuantity() {
+            return mBaseQuantity / mFactor;
+        }
+
+        /**
+         * Get the amount of ingredients summed in the item.
+         *
+         * @return the amount of ingredients
+         */
+        public int getIngredientCount() {
+            return mIngredients;
+        }
+    }
+}
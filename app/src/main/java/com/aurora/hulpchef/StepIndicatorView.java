@@ -0,0 +1,135 @@
+package com.aurora.hulpchef;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.content.ContextCompat;
+import android.util.AttributeSet;
+import android.view.View;
+
+/**
+ * Draws the navigation dots of the steps in a single View.
+ * <p>
+ * When there are more steps than dots that fit, a window of dots around the selected step
+ * is drawn, with smaller dots at the edges to show that there are more steps.
+ */
+public class StepIndicatorView extends View {
+    /**
+     * Scale of the dots at the edge of the window, when there are more steps beyond that edge.
+     */
+    private static final float EDGE_DOT_SCALE = 0.5f;
+
+    /**
+     * Paint for the dot of the selected step.
+     */
+    private final Paint mSelectedPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    /**
+     * Paint for the dots of the other steps.
+     */
+    private final Paint mDotPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    /**
+     * The radius of a dot in pixels.
+     */
+    private float mDotRadius;
+    /**
+     * The distance between the centers of two dots in pixels.
+     */
+    private float mDotPitch;
+    /**
+     * The amount of steps.
+     */
+    private int mStepCount = 0;
+    /**
+     * The index of the selected step.
+     */
+    private int mSelectedStep = 0;
+
+    public StepIndicatorView(@NonNull Context context) {
+        super(context);
+        init(context);
+    }
+
+    public StepIndicatorView(@NonNull Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        init(context);
+    }
+
+    public StepIndicatorView(@NonNull Context context, @Nullable AttributeSet attrs, int defStyle) {
+        super(context, attrs, defStyle);
+        init(context);
+    }
+
+    /**
+     * Set up the paints and sizes, which are reused for every draw.
+     *
+     * @param context the context to get the resources from
+     */
+    private void init(Context context) {
+        mSelectedPaint.setColor(ContextCompat.getColor(context, R.color.colorPrimary));
+        mDotPaint.setColor(ContextCompat.getColor(context, R.color.dots_grey));
+        float dotSize = getResources().getDimension(R.dimen.dot_indicator);
+        mDotRadius = dotSize / 2;
+        mDotPitch = dotSize + 2 * getResources().getDimension(R.dimen.dots_margin);
+    }
+
+    /**
+     * Set the amount of steps to show dots for.
+     *
+     * @param stepCount the amount of steps
+     */
+    public void setStepCount(int stepCount) {
+        if (stepCount != mStepCount) {
+            mStepCount = stepCount;
+            mSelectedStep = Math.min(mSelectedStep, Math.max(0, stepCount - 1));
+            requestLayout();
+            invalidate();
+        }
+    }
+
+    /**
+     * Set the step that is currently shown.
+     *
+     * @param selectedStep the index of the selected step
+     */
+    public void setSelectedStep(int selectedStep) {
+        if (selectedStep != mSelectedStep) {
+            mSelectedStep = selectedStep;
+            invalidate();
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int desiredWidth = (int) Math.ceil(mStepCount * mDotPitch) + getPaddingLeft() + getPaddingRight();
+        int desiredHeight = (int) Math.ceil(mDotPitch) + getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(resolveSize(desiredWidth, widthMeasureSpec),
+                resolveSize(desiredHeight, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (mStepCount == 0) {
+            return;
+        }
+        int availableWidth = getWidth() - getPaddingLeft() - getPaddingRight();
+        int visibleDots = Math.max(1, Math.min(mStepCount, (int) (availableWidth / mDotPitch)));
+
+        // Window of visible dots, as centered around the selected step as possible
+        int firstDot = Math.max(0, Math.min(mSelectedStep - visibleDots / 2, mStepCount - visibleDots));
+        int lastDot = firstDot + visibleDots - 1;
+
+        float startX = getPaddingLeft() + (availableWidth - visibleDots * mDotPitch) / 2 + mDotPitch / 2;
+        float centerY = getPaddingTop() + (getHeight() - getPaddingTop() - getPaddingBottom()) / 2f;
+
+        for (int i = firstDot; i <= lastDot; i++) {
+            float radius = mDotRadius;
+            if ((i == firstDot && firstDot > 0) || (i == lastDot && lastDot < mStepCount - 1)) {
+                radius *= EDGE_DOT_SCALE;
+            }
+            Paint paint = i == mSelectedStep ? mSelectedPaint : mDotPaint;
+            canvas.drawCircle(startX + (i - firstDot) * mDotPitch, centerY, radius, paint);
+        }
+    }
+}
@@ -18,7 +18,12 @@ import java.util.Locale;
  * Adapter for populating the ingredient list.
  */
 public class StepIngredientAdapter extends RecyclerView.Adapter<StepIngredientAdapter.CardIngredientViewHolder> {
-    private final List<Ingredient> ingredients;
+    /**
+     * The view type of an ingredient row, rows can be shared with other lists through a
+     * {@link RecyclerView.RecycledViewPool}.
+     */
+    public static final int VIEW_TYPE_INGREDIENT = 0;
+    private List<Ingredient> ingredients;
     private int mCurrentAmount;
     private int mOriginalAmount;
     private int mStepDescriptionLength = 0;
@@ -51,6 +56,11 @@ public class StepIngredientAdapter extends RecyclerView.Adapter<StepIngredientAd
         cardIngredientViewHolder.bind(i);
     }
 
+    @Override
+    public int getItemViewType(int position) {
+        return VIEW_TYPE_INGREDIENT;
+    }
+
     @Override
     public int getItemCount() {
         if (ingredients == null) {
@@ -64,6 +74,23 @@ public class StepIngredientAdapter extends RecyclerView.Adapter<StepIngredientAd
         mCurrentAmount = currentAmount;
     }
 
+    /**
+     * Show the ingredients of another step, reusing the rows that were already inflated.
+     *
+     * @param ingredients           the ingredients of the step
+     * @param originalAmount        the amount of people the recipe is originally for
+     * @param currentAmount         the amount of people set by the user
+     * @param stepDescriptionLength the length of the description of the step
+     */
+    public void setIngredients(List<Ingredient> ingredients, int originalAmount, int currentAmount,
+                               int stepDescriptionLength) {
+        this.ingredients = ingredients;
+        this.mOriginalAmount = originalAmount;
+        this.mCurrentAmount = currentAmount;
+        this.mStepDescriptionLength = stepDescriptionLength;
+        notifyDataSetChanged();
+    }
+
     public class CardIngredientViewHolder extends RecyclerView.ViewHolder {
         private int mIndex;
         private TextView mIngredientName;
@@ -0,0 +1,152 @@
+package com.aurora.hulpchef;
+
+import com.aurora.souschefprocessor.recipe.Ingredient;
+import com.aurora.souschefprocessor.recipe.Position;
+import com.aurora.souschefprocessor.recipe.RecipeStep;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable index of the ingredients of a step, sorted on the position of their quantity
+ * in the description of the step.
+ * <p>
+ * The index is built from a copy of the ingredients, so the {@link RecipeStep} it was built
+ * from is never modified. The quantities that appear in the description can be looked up
+ * per text block with a binary search on their begin index.
+ */
+public final class StepIngredientIndex {
+    /**
+     * Orders ingredients on the begin index of their quantity, then on the end index.
+     */
+    private static final Comparator<Ingredient> BY_QUANTITY_POSITION = Comparator
+            .comparingInt((Ingredient ingredient) -> ingredient.getQuantityPosition().getBeginIndex())
+            .thenComparingInt((Ingredient ingredient) -> ingredient.getQuantityPosition().getEndIndex());
+
+    /**
+     * All ingredients of the step, sorted on the position of their quantity.
+     */
+    private final List<Ingredient> mRows;
+    /**
+     * The ingredients whose quantity appears in the description, sorted on its position.
+     */
+    private final Ingredient[] mQuantified;
+    /**
+     * The begin index of the quantity of every ingredient in {@link #mQuantified}.
+     */
+    private final int[] mBegins;
+    /**
+     * The end index of the quantity of every ingredient in {@link #mQuantified}.
+     */
+    private final int[] mEnds;
+
+    /**
+     * Creates an index, use {@link #build(RecipeStep)}.
+     */
+    private StepIngredientIndex(List<Ingredient> rows, Ingredient[] quantified, int[] begins, int[] ends) {
+        mRows = rows;
+        mQuantified = quantified;
+        mBegins = begins;
+        mEnds = ends;
+    }
+
+    /**
+     * Build the index of a step. Does not modify the step.
+     *
+     * @param step the step
+     * @return the index of the ingredients of the step
+     */
+    public static StepIngredientIndex build(RecipeStep step) {
+        int descriptionLength = step.getDescription().length();
+        List<Ingredient> rows = new ArrayList<>(step.getIngredients());
+        Collections.sort(rows, BY_QUANTITY_POSITION);
+
+        List<Ingredient> quantified = new ArrayList<>(rows.size());
+        for (Ingredient ingredient : rows) {
+            Position position = ingredient.getQuantityPosition();
+            // A quantity spanning the whole description means it was not found in the description
+            if (position.getBeginIndex() != 0 || position.getEndIndex() != descriptionLength) {
+                quantified.add(ingredient);
+            }
+        }
+
+        int[] begins = new int[quantified.size()];
+        int[] ends = new int[quantified.size()];
+        for (int i = 0; i < begins.length; i++) {
+            begins[i] = quantified.get(i).getQuantityPosition().getBeginIndex();
+            ends[i] = quantified.get(i).getQuantityPosition().getEndIndex();
+        }
+        return new StepIngredientIndex(Collections.unmodifiableList(rows),
+                quantified.toArray(new Ingredient[0]), begins, ends);
+    }
+
+    /**
+     * Get all ingredients of the step.
+     *
+     * @return an unmodifiable list, sorted on the position of the quantity
+     */
+    public List<Ingredient> getRows() {
+        return mRows;
+    }
+
+    /**
+     * Get the amount of ingredients whose quantity appears in the description.
+     *
+     * @return the amount of quantities in the description
+     */
+    public int getQuantityCount() {
+        return mQuantified.length;
+    }
+
+    /**
+     * Find the first quantity that begins at or after a position in the description.
+     *
+     * @param position an index in the description
+     * @return the index of the first such quantity, or {@link #getQuantityCount()} if there is none
+     */
+    public int firstQuantityFrom(int position) {
+        int low = 0;
+        int high = mBegins.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (mBegins[middle] < position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get the ingredient of a quantity in the description.
+     *
+     * @param index the index of the quantity, in order of appearance
+     * @return the ingredient
+     */
+    public Ingredient getQuantified(int index) {
+        return mQuantified[index];
+    }
+
+    /**
+     * Get the begin index of a quantity in the description.
+     *
+     * @param index the index of the quantity, in order of appearance
+     * @return the begin index in the description
+     */
+    public int getBegin(int index) {
+        return mBegins[index];
+    }
+
+    /**
+     * Get the end index of a quantity in the description.
+     *
+     * @param index the index of the quantity, in order of appearance
+     * @return the end index in the description
+     */
+    public int getEnd(int index) {
+        return mEnds[index];
+    }
+}
@@ -0,0 +1,444 @@
+package com.aurora.hulpchef;
+
+import android.arch.lifecycle.LifecycleOwner;
+import android.content.Context;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import com.aurora.hulpchef.utilities.PrecomputedTextCache;
+import com.aurora.hulpchef.utilities.TraceSections;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Adapter that shows every step of the recipe as a page of a horizontal RecyclerView.
+ * <p>
+ * Step pages are recycled, and so are the text views and timer cards inside of them: when a
+ * page is bound to another step, its text views and timer cards go back to a pool shared by
+ * all pages and are taken out again for the new step. New steps are applied with a diff,
+ * so only the pages whose content changed are bound again. The rows of the ingredient
+ * lists are shared between pages through one {@link RecyclerView.RecycledViewPool}.
+ * <p>
+ * The amount of inflated views and the time spent binding are logged, to compare
+ * swiping through long recipes before and after changes.
+ */
+public class StepPagerAdapter extends RecyclerView.Adapter<StepPagerAdapter.StepViewHolder> {
+    /**
+     * Tag for logging.
+     */
+    private static final String TAG = StepPagerAdapter.class.getSimpleName();
+    /**
+     * Payload for a bind that only changes the amount of people.
+     */
+    private static final Object PAYLOAD_AMOUNT = new Object();
+    /**
+     * Amount of nanoseconds in a microsecond, for logging.
+     */
+    private static final int NANOS_PER_MICRO = 1000;
+    /**
+     * The amount of ingredient rows that fit in the ingredient list of a step,
+     * see {@link MaxHeightRecyclerView}. This many rows are prefetched for a step page.
+     */
+    private static final int VISIBLE_INGREDIENT_ROWS = 5;
+    /**
+     * The amount of step pages whose ingredient rows can wait in the shared pool:
+     * the page that is swiped away and the pages the RecyclerView keeps aside.
+     */
+    private static final int POOLED_INGREDIENT_PAGES = 3;
+
+    /**
+     * The owner of the LiveData of the timers.
+     */
+    private final LifecycleOwner mOwner;
+    /**
+     * The ViewModel holding the timers of the recipe.
+     */
+    private final RecipeTimerViewModel mTimerViewModel;
+    /**
+     * Views that were inflated in the background, used before inflating on the main thread.
+     */
+    private final StepViewCache mViewCache;
+    /**
+     * Text views that are not used by any page.
+     */
+    private final ArrayDeque<TextView> mTextViewPool = new ArrayDeque<>();
+    /**
+     * Timer cards that are not used by any page.
+     */
+    private final ArrayDeque<UITimer> mTimerPool = new ArrayDeque<>();
+    /**
+     * Ingredient rows that are not used by any page, shared by the ingredient lists of all pages.
+     */
+    private final RecyclerView.RecycledViewPool mIngredientRowPool = new RecyclerView.RecycledViewPool();
+    /**
+     * The models of the steps that are shown.
+     */
+    private List<StepRenderModel> mSteps = Collections.emptyList();
+    /**
+     * The amount of people set by the user.
+     */
+    private int mCurrentAmount = 0;
+    /**
+     * The amount of inflated step pages.
+     */
+    private int mPageInflations = 0;
+    /**
+     * The amount of inflated text views.
+     */
+    private int mTextViewInflations = 0;
+    /**
+     * The amount of inflated timer cards.
+     */
+    private int mTimerCardInflations = 0;
+
+    /**
+     * Creates the adapter.
+     *
+     * @param owner          the owner of the LiveData of the timers
+     * @param timerViewModel the ViewModel holding the timers, must be initialised with the recipe
+     * @param viewCache      cache of views inflated in the background
+     */
+    public StepPagerAdapter(LifecycleOwner owner, RecipeTimerViewModel timerViewModel, StepViewCache viewCache) {
+        mOwner = owner;
+        mTimerViewModel = timerViewModel;
+        mViewCache = viewCache;
+        mIngredientRowPool.setMaxRecycledViews(StepIngredientAdapter.VIEW_TYPE_INGREDIENT,
+                VISIBLE_INGREDIENT_ROWS * POOLED_INGREDIENT_PAGES);
+    }
+
+    /**
+     * Show new steps. Only the pages of steps whose content changed are bound again.
+     *
+     * @param steps the models of all steps
+     */
+    public void setSteps(List<StepRenderModel> steps) {
+        final List<StepRenderModel> oldSteps = mSteps;
+        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldSteps.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return steps.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                // a step is identified by its position in the recipe
+                return oldPosition == newPosition;
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                return oldSteps.get(oldPosition).hasSameContent(steps.get(newPosition));
+            }
+        }, false);
+        mSteps = steps;
+        diff.dispatchUpdatesTo(this);
+    }
+
+    /**
+     * Show the steps of another recipe. Every page is bound again, so it shows the timers of
+     * that recipe.
+     *
+     * @param steps the models of all steps
+     */
+    public void replaceSteps(List<StepRenderModel> steps) {
+        mSteps = steps;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Set the amount of people, and update the quantities on the pages that are shown.
+     *
+     * @param currentAmount the amount of people set by the user
+     */
+    public void setCurrentAmount(int currentAmount) {
+        if (currentAmount != mCurrentAmount) {
+            mCurrentAmount = currentAmount;
+            notifyItemRangeChanged(0, mSteps.size(), PAYLOAD_AMOUNT);
+        }
+    }
+
+    /**
+     * Stop showing the timers on all pooled timer cards. Call when the views are destroyed.
+     */
+    public void release() {
+        for (UITimer timer : mTimerPool) {
+            timer.unbind();
+        }
+    }
+
+    @NonNull
+    @Override
+    public StepViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        mPageInflations++;
+        View page = mViewCache.obtain(R.layout.fragment_steps, parent);
+        return new StepViewHolder(page);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull StepViewHolder holder, int position) {
+        TraceSections.begin("StepPagerAdapter.bind");
+        long start = SystemClock.elapsedRealtimeNanos();
+        holder.bind(position);
+        logBind("bind", position, start);
+        TraceSections.end();
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull StepViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty() || holder.mStepModel != mSteps.get(position)) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        TraceSections.begin("StepPagerAdapter.update");
+        long start = SystemClock.elapsedRealtimeNanos();
+        holder.update();
+        logBind("update", position, start);
+        TraceSections.end();
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull StepViewHolder holder) {
+        holder.recycleContent();
+    }
+
+    @Override
+    public int getItemCount() {
+        return mSteps.size();
+    }
+
+    /**
+     * Log the time of a bind and the amount of inflated views so far.
+     *
+     * @param kind     the kind of bind
+     * @param position the position of the step
+     * @param start    the elapsed realtime in nanoseconds when the bind started
+     */
+    private void logBind(String kind, int position, long start) {
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, kind + " step " + position + " in "
+                    + (SystemClock.elapsedRealtimeNanos() - start) / NANOS_PER_MICRO + "us, inflated "
+                    + mPageInflations + " pages, " + mTextViewInflations + " text views, "
+                    + mTimerCardInflations + " timer cards");
+        }
+    }
+
+    /**
+     * Start inflating the views of the first pages in the background, so showing and swiping to
+     * them does not inflate on the main thread. Call after the steps are set.
+     *
+     * @param pager     the RecyclerView showing the pages
+     * @param pageCount the amount of pages to prepare views for
+     */
+    public void prefillViewCache(RecyclerView pager, int pageCount) {
+        int pages = Math.min(pageCount, mSteps.size());
+        int textViews = 0;
+        int timers = 0;
+        for (int i = 0; i < pages; i++) {
+            textViews += mSteps.get(i).getTextBlocks().length;
+            timers += mSteps.get(i).getTimerCount();
+        }
+        // the layout params of the text views and timer cards are those of the ll_step LinearLayout
+        LinearLayout stepContent = new LinearLayout(pager.getContext());
+        stepContent.setOrientation(LinearLayout.VERTICAL);
+        mViewCache.prefill(R.layout.fragment_steps, pages, pager);
+        mViewCache.prefill(R.layout.step_textview, textViews - mTextViewPool.size(), stepContent);
+        mViewCache.prefill(R.layout.timer_card, timers - mTimerPool.size(), stepContent);
+    }
+
+    /**
+     * Take a text view out of the pool, or inflate one if the pool is empty.
+     *
+     * @param parent the view the text view will be added to
+     * @return a text view without a parent
+     */
+    private TextView obtainTextView(ViewGroup parent) {
+        TextView textView = mTextViewPool.poll();
+        if (textView == null) {
+            mTextViewInflations++;
+            textView = (TextView) mViewCache.obtain(R.layout.step_textview, parent);
+        }
+        return textView;
+    }
+
+    /**
+     * Take a timer card out of the pool, or inflate one if the pool is empty.
+     *
+     * @param parent the view the timer card will be added to
+     * @return a timer that is not bound to a LiveDataTimer, with a card without a parent
+     */
+    private UITimer obtainTimer(ViewGroup parent) {
+        UITimer timer = mTimerPool.poll();
+        if (timer == null) {
+            mTimerCardInflations++;
+            Context context = parent.getContext();
+            View timerCard = mViewCache.obtain(R.layout.timer_card, parent);
+            // Set the margin of the timer
+            int timerMargin = Math.round(context.getResources().getDimension(R.dimen.timer_margin));
+            LinearLayout.LayoutParams layoutParamsTimer = new LinearLayout.LayoutParams(
+                    ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+            layoutParamsTimer.gravity = Gravity.CENTER;
+            layoutParamsTimer.setMargins(0, timerMargin, 0, timerMargin);
+            timerCard.setLayoutParams(layoutParamsTimer);
+            timer = new UITimer(timerCard, mOwner);
+        }
+        return timer;
+    }
+
+    /**
+     * The page of a single step.
+     */
+    public class StepViewHolder extends RecyclerView.ViewHolder {
+        /**
+         * The title of the step.
+         */
+        private final TextView mTitle;
+        /**
+         * The list of ingredients of the step.
+         */
+        private final MaxHeightRecyclerView mIngredientList;
+        /**
+         * The layout manager of the ingredient list.
+         */
+        private final LinearLayoutManager mIngredientLayoutManager;
+        /**
+         * The adapter of the ingredient list, reused for every step shown on this page.
+         */
+        private final StepIngredientAdapter mIngredientAdapter;
+        /**
+         * The line between the ingredients and the description.
+         */
+        private final View mLine;
+        /**
+         * The layout holding the text views and timer cards.
+         */
+        private final LinearLayout mInsertPoint;
+        /**
+         * The text views of the blocks of the description, in order.
+         */
+        private final ArrayList<TextView> mStepTextViews = new ArrayList<>();
+        /**
+         * The timers shown on this page, in order.
+         */
+        private final ArrayList<UITimer> mTimers = new ArrayList<>();
+        /**
+         * The model of the step shown on this page.
+         */
+        private StepRenderModel mStepModel = null;
+
+        /**
+         * Set up the views of a page.
+         *
+         * @param itemView the inflated fragment_steps layout
+         */
+        StepViewHolder(@NonNull View itemView) {
+            super(itemView);
+            mTitle = itemView.findViewById(R.id.tv_title);
+            mLine = itemView.findViewById(R.id.v_line);
+            mInsertPoint = itemView.findViewById(R.id.ll_step);
+
+            // Setup the RecyclerView of the ingredients, with its rows from the shared pool.
+            // The rows go back to the pool as soon as the page is detached while swiping.
+            mIngredientList = itemView.findViewById(R.id.rv_ingredient_list);
+            mIngredientLayoutManager = new LinearLayoutManager(itemView.getContext());
+            mIngredientLayoutManager.setRecycleChildrenOnDetach(true);
+            mIngredientList.setLayoutManager(mIngredientLayoutManager);
+            mIngredientList.setRecycledViewPool(mIngredientRowPool);
+            mIngredientAdapter = new StepIngredientAdapter(Collections.emptyList(), 1, 0, 0);
+            mIngredientList.setAdapter(mIngredientAdapter);
+
+            // Disable OVER_SCROLL effect (scrollbar is always visible, so effect not needed)
+            mIngredientList.setOverScrollMode(View.OVER_SCROLL_NEVER);
+            itemView.findViewById(R.id.sv_text_and_timers).setOverScrollMode(View.OVER_SCROLL_NEVER);
+        }
+
+        /**
+         * Show a step on this page.
+         *
+         * @param index the index of the step
+         */
+        void bind(int index) {
+            recycleContent();
+            mStepModel = mSteps.get(index);
+            mTitle.setText(itemView.getContext().getString(R.string.section_format, index + 1));
+
+            // Let the pager prefetch the visible rows of this list together with the page
+            mIngredientLayoutManager.setInitialPrefetchItemCount(
+                    Math.min(mStepModel.getIngredientRows().size(), VISIBLE_INGREDIENT_ROWS));
+            mIngredientAdapter.setIngredients(mStepModel.getIngredientRows(), mStepModel.getOriginalAmount(),
+                    mCurrentAmount, mStepModel.getDescriptionLength());
+            // Disable the line if there are no ingredients listed
+            mLine.setVisibility(mStepModel.getIngredientRows().isEmpty() ? View.GONE : View.VISIBLE);
+
+            // Place the text blocks, each followed by its timer
+            int timerIndex = 0;
+            for (StepRenderModel.TextBlock block : mStepModel.getTextBlocks()) {
+                TextView textView = obtainTextView(mInsertPoint);
+                mInsertPoint.addView(textView);
+                mStepTextViews.add(textView);
+
+                if (block.isFollowedByTimer()) {
+                    UITimer timer = obtainTimer(mInsertPoint);
+                    timer.bind(mTimerViewModel.getTimerInStep(index, timerIndex));
+                    timerIndex++;
+                    mInsertPoint.addView(timer.getTimerCard());
+                    mTimers.add(timer);
+                }
+            }
+            fillInText();
+        }
+
+        /**
+         * Update the quantities on this page to the current amount of people.
+         */
+        void update() {
+            mIngredientAdapter.setCurrentAmount(mCurrentAmount);
+            mIngredientAdapter.notifyDataSetChanged();
+            fillInText();
+        }
+
+        /**
+         * Fill in the text blocks for the current amount of people.
+         */
+        private void fillInText() {
+            StepRenderModel.TextBlock[] blocks = mStepModel.getTextBlocks();
+            PrecomputedTextCache textCache = PrecomputedTextCache.getInstance();
+            for (int i = 0; i < mStepTextViews.size(); i++) {
+                // the text is measured in the background, or taken from the cache when it was measured before
+                textCache.setText(mStepTextViews.get(i),
+                        blocks[i].render(mStepModel.getOriginalAmount(), mCurrentAmount), mCurrentAmount);
+            }
+        }
+
+        /**
+         * Give the text views and timer cards of this page back to the shared pools.
+         */
+        void recycleContent() {
+            mInsertPoint.removeAllViews();
+            mTextViewPool.addAll(mStepTextViews);
+            mStepTextViews.clear();
+            for (UITimer timer : mTimers) {
+                timer.unbind();
+                mTimerPool.add(timer);
+            }
+            mTimers.clear();
+            mStepModel = null;
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package com.aurora.hulpchef;
+
+import com.aurora.hulpchef.utilities.RecipeTextStore;
+import com.aurora.hulpchef.utilities.StringUtilities;
+import com.aurora.souschefprocessor.recipe.Ingredient;
+import com.aurora.souschefprocessor.recipe.Position;
+import com.aurora.souschefprocessor.recipe.Recipe;
+import com.aurora.souschefprocessor.recipe.RecipeStep;
+import com.aurora.souschefprocessor.recipe.RecipeTimer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Everything a step page needs to display a step, computed once for the whole recipe.
+ * <p>
+ * The description is split into text blocks at the end of every timer. Each block keeps
+ * the pieces of text between the quantities of its ingredients, so changing the amount of
+ * people only needs to fill in the new quantities.
+ * <p>
+ * The pieces of text are not copied out of the description: all descriptions of a recipe are
+ * stored once in a {@link RecipeTextStore} and the blocks only keep offsets into it.
+ */
+public final class StepRenderModel {
+    /**
+     * Used to remove optional spaces and dots at the beginning of a block.
+     */
+    private static final Pattern FIRST_LETTER = Pattern.compile("\\p{Alpha}");
+
+    /**
+     * The text of the descriptions, shared by the models of all steps of a recipe.
+     */
+    private final RecipeTextStore mText;
+    /**
+     * The blocks of the description, in order.
+     */
+    private final TextBlock[] mTextBlocks;
+    /**
+     * The ingredients used in this step, in the order of their quantity in the description.
+     */
+    private final List<Ingredient> mIngredientRows;
+    /**
+     * The length of the full description of the step.
+     */
+    private final int mDescriptionLength;
+    /**
+     * The amount of people the recipe is originally for.
+     */
+    private final int mOriginalAmount;
+
+    /**
+     * Creates a model, use {@link #build(RecipeStep, int)}.
+     */
+    private StepRenderModel(RecipeTextStore text, TextBlock[] textBlocks, List<Ingredient> ingredientRows,
+                            int descriptionLength, int originalAmount) {
+        mText = text;
+        mTextBlocks = textBlocks;
+        mIngredientRows = ingredientRows;
+        mDescriptionLength = descriptionLength;
+        mOriginalAmount = originalAmount;
+    }
+
+    /**
+     * Build the models of all steps of a recipe. Does not modify the recipe.
+     *
+     * @param recipe the recipe
+     * @return a model for every step, in order
+     */
+    public static List<StepRenderModel> buildAll(Recipe recipe) {
+        return buildAll(recipe, false);
+    }
+
+    /**
+     * Build the models of all steps of a recipe that is dropped afterwards, such as a translated
+     * recipe. The listed ingredients are copied, so the models keep no reference to the recipe.
+     *
+     * @param recipe the recipe
+     * @return a model for every step, in order
+     */
+    static List<StepRenderModel> buildAllDetached(Recipe recipe) {
+        return buildAll(recipe, true);
+    }
+
+    /**
+     * Build the models of all steps of a recipe. Does not modify the recipe.
+     *
+     * @param recipe   the recipe
+     * @param copyRows whether the listed ingredients are copied instead of shared with the recipe
+     * @return a model for every step, in order
+     */
+    private static List<StepRenderModel> buildAll(Recipe recipe, boolean copyRows) {
+        List<RecipeStep> steps = recipe.getRecipeSteps();
+        // Store all descriptions once, the blocks of every step point into the same store
+        RecipeTextStore.Builder builder = new RecipeTextStore.Builder();
+        int[] offsets = new int[steps.size()];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = builder.append(steps.get(i).getDescription());
+        }
+        RecipeTextStore text = builder.build();
+
+        List<StepRenderModel> models = new ArrayList<>(steps.size());
+        for (int i = 0; i < offsets.length; i++) {
+            models.add(build(steps.get(i), recipe.getNumberOfPeople(), text, offsets[i], copyRows));
+        }
+        return Collections.unmodifiableList(models);
+    }
+
+    /**
+     * Build the model of a single step. Does not modify the step.
+     *
+     * @param step           the step
+     * @param originalAmount the amount of people the recipe is originally for
+     * @return the model of the step
+     */
+    public static StepRenderModel build(RecipeStep step, int originalAmount) {
+        RecipeTextStore.Builder builder = new RecipeTextStore.Builder();
+        int offset = builder.append(step.getDescription());
+        return build(step, originalAmount, builder.build(), offset, false);
+    }
+
+    /**
+     * Build the model of a single step whose description is already in a store.
+     *
+     * @param step              the step
+     * @param originalAmount    the amount of people the recipe is originally for
+     * @param text              the store holding the description of the step
+     * @param descriptionOffset the offset of the description in the store
+     * @param copyRows          whether the listed ingredients are copied instead of shared with the step
+     * @return the model of the step
+     */
+    private static StepRenderModel build(RecipeStep step, int originalAmount, RecipeTextStore text,
+                                         int descriptionOffset, boolean copyRows) {
+        int descriptionLength = step.getDescription().length();
+        StepIngredientIndex index = StepIngredientIndex.build(step);
+
+        List<TextBlock> blocks = new ArrayList<>(step.getRecipeTimers().size() + 1);
+        // Keep index of the beginning of a text block to know where to cut the text.
+        int beginOfTextBlock = 0;
+        for (RecipeTimer timer : step.getRecipeTimers()) {
+            int endOfTextBlock = timer.getPosition().getEndIndex();
+            blocks.add(createBlock(text, descriptionOffset, beginOfTextBlock, endOfTextBlock, index, true));
+            beginOfTextBlock = endOfTextBlock;
+        }
+        // Check if there is still some text coming after the last timer
+        if (beginOfTextBlock != descriptionLength) {
+            blocks.add(createBlock(text, descriptionOffset, beginOfTextBlock, descriptionLength, index, false));
+        }
+
+        List<Ingredient> rows = copyRows ? copyRows(index.getRows()) : index.getRows();
+        return new StepRenderModel(text, blocks.toArray(new TextBlock[0]), rows, descriptionLength, originalAmount);
+    }
+
+    /**
+     * Copy the listed ingredients of a step with only what a row shows: the name, unit, quantity and
+     * the position of the quantity.
+     *
+     * @param rows the ingredients of the step
+     * @return an unmodifiable list of the copies, in the same order
+     */
+    private static List<Ingredient> copyRows(List<Ingredient> rows) {
+        List<Ingredient> copies = new ArrayList<>(rows.size());
+        for (Ingredient row : rows) {
+            Map<Ingredient.PositionKeysForIngredients, Position> positions =
+                    new EnumMap<>(Ingredient.PositionKeysForIngredients.class);
+            Position quantity = row.getQuantityPosition();
+            positions.put(Ingredient.PositionKeysForIngredients.QUANTITY,
+                    new Position(quantity.getBeginIndex(), quantity.getEndIndex()));
+            copies.add(new Ingredient(row.getName(), row.getUnit(), row.getQuantity(), positions));
+        }
+        return Collections.unmodifiableList(copies);
+    }
+
+    /**
+     * Cut a block out of the description and split it at the quantities of the ingredients.
+     *
+     * @param text              the store holding the description of the step
+     * @param descriptionOffset the offset of the description in the store
+     * @param beginOfTextBlock  the begin index of the block
+     * @param endOfTextBlock    the end index of the block
+     * @param index             the index of the ingredients of the step
+     * @param followedByTimer   whether a timer is shown after this block
+     * @return the block
+     */
+    private static TextBlock createBlock(RecipeTextStore text, int descriptionOffset, int beginOfTextBlock,
+                                         int endOfTextBlock, StepIngredientIndex index, boolean followedByTimer) {
+        // at most one literal more than there are quantities
+        int[] literalOffsets = new int[index.getQuantityCount() + 1];
+        int[] literalLengths = new int[literalOffsets.length];
+        int literals = 0;
+        List<Double> quantities = new ArrayList<>();
+        int cursor = beginOfTextBlock;
+        // Only visit the quantities that begin inside this block
+        for (int i = index.firstQuantityFrom(beginOfTextBlock);
+             i < index.getQuantityCount() && index.getBegin(i) < endOfTextBlock; i++) {
+            // Skip quantities that overlap the previous one or run past the end of the block
+            if (index.getBegin(i) >= cursor && index.getEnd(i) <= endOfTextBlock) {
+                literalOffsets[literals] = descriptionOffset + cursor;
+                literalLengths[literals] = index.getBegin(i) - cursor;
+                literals++;
+                quantities.add(index.getQuantified(i).getQuantity());
+                cursor = index.getEnd(i);
+            }
+        }
+        literalOffsets[literals] = descriptionOffset + cursor;
+        literalLengths[literals] = endOfTextBlock - cursor;
+        literals++;
+
+        double[] quantityArray = new double[quantities.size()];
+        for (int i = 0; i < quantityArray.length; i++) {
+            quantityArray[i] = quantities.get(i);
+        }
+        return new TextBlock(text, Arrays.copyOf(literalOffsets, literals), Arrays.copyOf(literalLengths, literals),
+                quantityArray, followedByTimer);
+    }
+
+    /**
+     * Check whether another model displays exactly the same step, so its views can be kept.
+     *
+     * @param other the other model
+     * @return true if the text, timers and listed ingredients are the same
+     */
+    public boolean hasSameContent(StepRenderModel other) {
+        if (other == this) {
+            return true;
+        }
+        if (other.mOriginalAmount != mOriginalAmount || other.mDescriptionLength != mDescriptionLength
+                || other.mTextBlocks.length != mTextBlocks.length
+                || other.mIngredientRows.size() != mIngredientRows.size()) {
+            return false;
+        }
+        for (int i = 0; i < mTextBlocks.length; i++) {
+            if (!mTextBlocks[i].hasSameContent(other.mTextBlocks[i])) {
+                return false;
+            }
+        }
+        for (int i = 0; i < mIngredientRows.size(); i++) {
+            Ingredient row = mIngredientRows.get(i);
+            Ingredient otherRow = other.mIngredientRows.get(i);
+            if (!row.getName().equals(otherRow.getName()) || !row.getUnit().equals(otherRow.getUnit())
+                    || Double.compare(row.getQuantity(), otherRow.getQuantity()) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the blocks of the description.
+     *
+     * @return the blocks, in order
+     */
+    public TextBlock[] getTextBlocks() {
+        return mTextBlocks;
+    }
+
+    /**
+     * Get the amount of timers in this step. Timer i is shown after the i'th block that is
+     * {@link TextBlock#isFollowedByTimer() followed by a timer}.
+     *
+     * @return the amount of timers
+     */
+    public int getTimerCount() {
+        int timers = 0;
+        for (TextBlock block : mTextBlocks) {
+            if (block.isFollowedByTimer()) {
+                timers++;
+            }
+        }
+        return timers;
+    }
+
+    /**
+     * Get the ingredients to list for this step.
+     *
+     * @return an unmodifiable list of the ingredients
+     */
+    public List<Ingredient> getIngredientRows() {
+        return mIngredientRows;
+    }
+
+    /**
+     * Get the length of the full description of the step.
+     *
+     * @return the length
+     */
+    public int getDescriptionLength() {
+        return mDescriptionLength;
+    }
+
+    /**
+     * Get the amount of people the recipe is originally for.
+     *
+     * @return the original amount of people
+     */
+    public int getOriginalAmount() {
+        return mOriginalAmount;
+    }
+
+    /**
+     * Get the store holding the text of this step, shared with the other steps of the recipe.
+     *
+     * @return the store
+     */
+    public RecipeTextStore getTextStore() {
+        return mText;
+    }
+
+    /**
+     * A part of the description of a step, between two timers.
+     */
+    public static final class TextBlock {
+        /**
+         * The store holding the text of the block.
+         */
+        private final RecipeTextStore mText;
+        /**
+         * The offsets in the store of the text around the quantities, one more than there are quantities.
+         */
+        private final int[] mLiteralOffsets;
+        /**
+         * The lengths of the text around the quantities.
+         */
+        private final int[] mLiteralLengths;
+        /**
+         * The original quantities in this block, in order.
+         */
+        private final double[] mQuantities;
+        /**
+         * Whether a timer is shown after this block.
+         */
+        private final boolean mFollowedByTimer;
+
+        /**
+         * Creates a block.
+         *
+         * @param text            the store holding the text of the block
+         * @param literalOffsets  the offsets of the text around the quantities
+         * @param literalLengths  the lengths of the text around the quantities
+         * @param quantities      the original quantities
+         * @param followedByTimer whether a timer is shown after this block
+         */
+        TextBlock(RecipeTextStore text, int[] literalOffsets, int[] literalLengths, double[] quantities,
+                  boolean followedByTimer) {
+            mText = text;
+            mLiteralOffsets = literalOffsets;
+            mLiteralLengths = literalLengths;
+            mQuantities = quantities;
+            mFollowedByTimer = followedByTimer;
+        }
+
+        /**
+         * Create the text of this block for an amount of people.
+         *
+         * @param originalAmount the amount of people the recipe is originally for
+         * @param currentAmount  the amount of people set by the user
+         * @return the text to display, starting from the first letter
+         */
+        public String render(int originalAmount, int currentAmount) {
+            StringBuilder text = new StringBuilder();
+            mText.appendTo(text, mLiteralOffsets[0], mLiteralLengths[0]);
+            for (int i = 0; i < mQuantities.length; i++) {
+                double newQuantity = mQuantities[i] / originalAmount * currentAmount;
+                text.append(StringUtilities.toDisplayQuantity(newQuantity));
+                mText.appendTo(text, mLiteralOffsets[i + 1], mLiteralLengths[i + 1]);
+            }
+
+            // Remove optional spaces and dots at the beginning of the block
+            Matcher m = FIRST_LETTER.matcher(text);
+            if (m.find()) {
+                return text.substring(m.start());
+            }
+            return "";
+        }
+
+        /**
+         * Check whether another block has the same text, quantities and timer.
+         *
+         * @param other the other block
+         * @return true if both blocks render the same
+         */
+        boolean hasSameContent(TextBlock other) {
+            if (mFollowedByTimer != other.mFollowedByTimer || !Arrays.equals(mQuantities, other.mQuantities)
+                    || !Arrays.equals(mLiteralLengths, other.mLiteralLengths)) {
+                return false;
+            }
+            for (int i = 0; i < mLiteralOffsets.length; i++) {
+                if (!mText.regionEquals(mLiteralOffsets[i], other.mText, other.mLiteralOffsets[i],
+                        mLiteralLengths[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Get the amount of quantities in this block.
+         *
+         * @return the amount of quantities
+         */
+        public int getQuantityCount() {
+            return mQuantities.length;
+        }
+
+        /**
+         * Whether a timer is shown after this block.
+         *
+         * @return true if a timer follows this block
+         */
+        public boolean isFollowedByTimer() {
+            return mFollowedByTimer;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.aurora.hulpchef;
+
+import android.content.Context;
+import android.support.annotation.LayoutRes;
+import android.support.annotation.NonNull;
+import android.support.v4.view.AsyncLayoutInflater;
+import android.util.Log;
+import android.util.SparseArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayDeque;
+
+/**
+ * Bounded cache of pre-inflated views for the step pages.
+ * <p>
+ * After the recipe is initialised, the layouts of the first step pages are inflated on a
+ * background thread with an {@link AsyncLayoutInflater}, so the first swipe does not have to
+ * inflate them on the main thread. When the cache has no view of a layout, the view is
+ * inflated on the main thread as before.
+ * <p>
+ * Must only be used on the main thread.
+ */
+public class StepViewCache {
+    /**
+     * Tag for logging.
+     */
+    private static final String TAG = StepViewCache.class.getSimpleName();
+
+    /**
+     * Inflates the views in the background and hands them over on the main thread.
+     */
+    private final AsyncLayoutInflater mAsyncInflater;
+    /**
+     * Inflates the views on the main thread when the cache is empty.
+     */
+    private final LayoutInflater mInflater;
+    /**
+     * The cached views per layout.
+     */
+    private final SparseArray<ArrayDeque<View>> mCachedViews = new SparseArray<>();
+    /**
+     * The amount of views per layout that are being inflated in the background.
+     */
+    private final SparseArray<Integer> mPendingViews = new SparseArray<>();
+    /**
+     * Changes on every {@link #clear()}, so views that were being inflated before are dropped.
+     */
+    private int mGeneration = 0;
+    /**
+     * The amount of views taken from the cache.
+     */
+    private int mHits = 0;
+    /**
+     * The amount of views that had to be inflated on the main thread.
+     */
+    private int mMisses = 0;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param context the context used to inflate the views
+     */
+    public StepViewCache(Context context) {
+        mAsyncInflater = new AsyncLayoutInflater(context);
+        mInflater = LayoutInflater.from(context);
+    }
+
+    /**
+     * Start inflating views of a layout in the background, until the cache holds the given amount.
+     *
+     * @param layout the layout to inflate
+     * @param count  the amount of views of this layout the cache should hold, at most
+     * @param parent the view whose layout params are used for the views, it is not attached to
+     */
+    public void prefill(@LayoutRes int layout, int count, ViewGroup parent) {
+        int missing = count - getCached(layout).size() - mPendingViews.get(layout, 0);
+        int generation = mGeneration;
+        for (int i = 0; i < missing; i++) {
+            mPendingViews.put(layout, mPendingViews.get(layout, 0) + 1);
+            mAsyncInflater.inflate(layout, parent, (@NonNull View view, int resid, ViewGroup p) -> {
+                if (generation != mGeneration) {
+                    // the cache was cleared while this view was inflated
+                    return;
+                }
+                mPendingViews.put(resid, mPendingViews.get(resid, 0) - 1);
+                getCached(resid).add(view);
+            });
+        }
+    }
+
+    /**
+     * Take a view of a layout out of the cache, or inflate it if the cache has none.
+     *
+     * @param layout the layout of the view
+     * @param parent the view the view will be added to, it is not attached to
+     * @return a view without a parent
+     */
+    public View obtain(@LayoutRes int layout, ViewGroup parent) {
+        View view = getCached(layout).poll();
+        if (view != null) {
+            mHits++;
+            return view;
+        }
+        mMisses++;
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "inflating on the main thread, " + mHits + " hits, " + mMisses + " misses");
+        }
+        return mInflater.inflate(layout, parent, false);
+    }
+
+    /**
+     * Drop all cached views. Views that are still being inflated are dropped when done, so a
+     * later prefill inflates them again.
+     */
+    public void clear() {
+        mCachedViews.clear();
+        mPendingViews.clear();
+        mGeneration++;
+    }
+
+    /**
+     * Get the queue of cached views of a layout.
+     *
+     * @param layout the layout
+     * @return the queue, created when it did not exist
+     */
+    private ArrayDeque<View> getCached(@LayoutRes int layout) {
+        ArrayDeque<View> views = mCachedViews.get(layout);
+        if (views == null) {
+            views = new ArrayDeque<>();
+            mCachedViews.put(layout, views);
+        }
+        return views;
+    }
+}
@@ -15,6 +15,8 @@ import android.view.ViewGroup;
 import android.widget.Switch;
 import android.widget.TextView;
 
+import com.aurora.hulpchef.utilities.PrecomputedTextCache;
+import com.aurora.hulpchef.utilities.TraceSections;
 import com.aurora.souschefprocessor.recipe.Recipe;
 
 /**
@@ -66,16 +68,28 @@ public class Tab1Overview extends Fragment {
 
         // Listen for recipe changes.
         RecipeViewModel mRecipe = ViewModelProviders.of(requireActivity()).get(RecipeViewModel.class);
-        mRecipe.getRecipe().observe(this, (Recipe recipe) -> {
-            if (recipe == null) {
-                return;
-            }
-            mDescriptionTextView.setText(recipe.getDescription());
-            mDescriptionTextView.setMovementMethod(new ScrollingMovementMethod());
-        });
+        mRecipe.getRecipe().observe(this, (Recipe recipe) -> showDescription(mRecipe));
+        mRecipe.getTranslation().observe(this, (TranslationOverlay translation) -> showDescription(mRecipe));
+        TraceSections.traceUntilFirstDraw(rootView, "Tab1Overview first frame");
         return rootView;
     }
 
+    /**
+     * Show the description of the recipe, in the language of the translation if there is one.
+     *
+     * @param recipeViewModel the ViewModel holding the recipe
+     */
+    private void showDescription(RecipeViewModel recipeViewModel) {
+        Recipe recipe = recipeViewModel.getRecipe().getValue();
+        if (recipe == null) {
+            return;
+        }
+        TranslationOverlay translation = recipeViewModel.getTranslation().getValue();
+        String description = translation == null ? recipe.getDescription() : translation.getDescription();
+        PrecomputedTextCache.getInstance().setText(mDescriptionTextView, description, 0);
+        mDescriptionTextView.setMovementMethod(new ScrollingMovementMethod());
+    }
+
     /**
      * Handle what happens on clicking the settings-FAB.
      *
@@ -1,9 +1,12 @@
 package com.aurora.hulpchef;
 
 import android.arch.lifecycle.ViewModelProviders;
+import android.content.DialogInterface;
 import android.os.Bundle;
 import android.support.annotation.NonNull;
+import android.support.design.widget.FloatingActionButton;
 import android.support.v4.app.Fragment;
+import android.support.v7.app.AlertDialog;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
@@ -12,8 +15,12 @@ import android.view.ViewGroup;
 import android.widget.ImageButton;
 import android.widget.TextView;
 
+import com.aurora.hulpchef.utilities.StringUtilities;
+import com.aurora.hulpchef.utilities.TraceSections;
 import com.aurora.souschefprocessor.recipe.Recipe;
 
+import java.util.List;
+
 /**
  * Class defining the functionality of the ingredients tab.
  */
@@ -55,18 +62,30 @@ public class Tab2Ingredients extends Fragment {
         ImageButton minusButton = rootView.findViewById(R.id.btn_minus);
         minusButton.setOnClickListener(view -> mRecipe.decrementPeople());
 
+        FloatingActionButton shoppingListFab = rootView.findViewById(R.id.fab_shopping_list);
+        shoppingListFab.setOnClickListener(view -> showShoppingList());
+
         mRecipe = ViewModelProviders.of(requireActivity()).get(RecipeViewModel.class);
         mRecipe.getRecipe().observe(this, (Recipe recipe) -> {
             if (recipe == null) {
                 return;
             }
+            TraceSections.begin("Tab2Ingredients.onRecipeObserved");
             // Feed Adapter
             mIngredientAdapter = new IngredientAdapter(recipe.getIngredients(), recipe.getNumberOfPeople());
+            mIngredientAdapter.setTranslation(mRecipe.getTranslation().getValue());
             mIngredientList.setAdapter(mIngredientAdapter);
             if (mRecipe.getNumberOfPeople().getValue() != recipe.getNumberOfPeople()) {
                 mIngredientAdapter.setChoseAmountOfServings(mRecipe.getNumberOfPeople().getValue());
                 mIngredientAdapter.notifyDataSetChanged();
             }
+            TraceSections.end();
+        });
+        // Switching the language keeps the adapter, so the checked ingredients stay checked
+        mRecipe.getTranslation().observe(this, (TranslationOverlay translation) -> {
+            if (mIngredientAdapter != null) {
+                mIngredientAdapter.setTranslation(translation);
+            }
         });
         mRecipe.getNumberOfPeople().observe(this, (Integer numberOfPeople) -> {
                     if (numberOfPeople == null) {
@@ -80,7 +99,55 @@ public class Tab2Ingredients extends Fragment {
                     }
                 }
         );
+        TraceSections.traceUntilFirstDraw(rootView, "Tab2Ingredients first frame");
         return rootView;
     }
 
+    /**
+     * Show the shopping list in a dialog, from which the shown recipe can be added to or
+     * removed from the list.
+     */
+    private void showShoppingList() {
+        boolean onList = mRecipe.isOnShoppingList();
+        new AlertDialog.Builder(requireContext())
+                .setTitle(R.string.shopping_list)
+                .setMessage(formatShoppingList())
+                .setPositiveButton(onList ? R.string.shopping_list_remove : R.string.shopping_list_add,
+                        (DialogInterface dialogInterface, int id) -> {
+                            if (onList) {
+                                mRecipe.removeFromShoppingList();
+                            } else {
+                                mRecipe.addToShoppingList();
+                            }
+                            showShoppingList();
+                        })
+                .setNegativeButton(R.string.shopping_list_close, null)
+                .create().show();
+    }
+
+    /**
+     * Write the items of the shopping list, one per line.
+     *
+     * @return the text of the shopping list
+     */
+    private String formatShoppingList() {
+        List<ShoppingList.Item> items = ShoppingList.getInstance().getItems();
+        if (items.isEmpty()) {
+            return getString(R.string.shopping_list_empty);
+        }
+        StringBuilder text = new StringBuilder();
+        for (ShoppingList.Item item : items) {
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            if (item.getQuantity() > 0) {
+                text.append(StringUtilities.toDisplayQuantity(item.getQuantity())).append(' ');
+            }
+            if (item.getUnit() != null && !item.getUnit().isEmpty()) {
+                text.append(item.getUnit()).append(' ');
+            }
+            text.append(item.getName());
+        }
+        return text.toString();
+    }
 }
@@ -4,35 +4,61 @@ import android.arch.lifecycle.ViewModelProviders;
 import android.os.Bundle;
 import android.support.annotation.NonNull;
 import android.support.v4.app.Fragment;
-import android.support.v4.app.FragmentManager;
-import android.support.v4.app.FragmentPagerAdapter;
-import android.support.v4.app.FragmentStatePagerAdapter;
-import android.support.v4.view.ViewPager;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.PagerSnapHelper;
+import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 
+import com.aurora.hulpchef.utilities.FrameJankTracker;
+import com.aurora.hulpchef.utilities.Metrics;
+import com.aurora.hulpchef.utilities.TraceSections;
 import com.aurora.souschefprocessor.recipe.Recipe;
 
+import java.util.List;
 import java.util.Objects;
 
 /**
  * Class defining the functionality of the recipe steps tab.
+ * <p>
+ * The steps are pages of a horizontal RecyclerView that snaps to one step at a time,
+ * so the views of the steps are recycled while swiping, see {@link StepPagerAdapter}.
  */
 public class Tab3Steps extends Fragment {
     /**
-     * Array with the text in every step.
+     * The amount of step pages whose views are inflated in the background after the recipe is
+     * initialised: the first page, the next one and the one the RecyclerView prefetches.
      */
-    private int mAmountSteps = 0;
+    private static final int PREFILLED_PAGES = 3;
+
     /**
      * Adapter for filling the different step cards.
      */
-    private StepsPagerAdapter mStepsPagerAdapter;
+    private StepPagerAdapter mStepPagerAdapter = null;
 
     /**
-     * Viewpager for swiping and navigating through the different cards.
+     * RecyclerView for swiping and navigating through the different cards.
      */
-    private ViewPager mViewPager;
+    private RecyclerView mStepPager;
+
+    /**
+     * Indicator dots for all steps, shared by all step pages.
+     */
+    private StepIndicatorView mStepIndicator;
+
+    /**
+     * Views of the step pages that are inflated in the background.
+     */
+    private StepViewCache mStepViewCache;
+
+    /**
+     * Logs the frames and janky frames of every swipe through the steps, only when the trace
+     * sections are enabled and null otherwise.
+     */
+    private final FrameJankTracker mSwipeJankTracker =
+            TraceSections.ENABLED ? new FrameJankTracker("step swipe") : null;
 
     /**
      * Default constructor. Is empty.
@@ -46,60 +72,135 @@ public class Tab3Steps extends Fragment {
                              Bundle savedInstanceState) {
 
         View rootView = inflater.inflate(R.layout.tab_3_steps, container, false);
-        // Create the adapter that will return a fragment for each of the three
-        // primary sections of the activity.
-        mStepsPagerAdapter = new StepsPagerAdapter(getChildFragmentManager());
-        mViewPager = rootView.findViewById(R.id.vp_steps);
+        mStepIndicator = rootView.findViewById(R.id.step_indicator);
+        mStepViewCache = new StepViewCache(inflater.getContext());
+
+        // Show one step at a time, snapping to the closest step after a swipe
+        mStepPager = rootView.findViewById(R.id.rv_steps);
+        LinearLayoutManager layoutManager =
+                new LinearLayoutManager(getContext(), LinearLayoutManager.HORIZONTAL, false);
+        mStepPager.setLayoutManager(layoutManager);
+        PagerSnapHelper snapHelper = new PagerSnapHelper();
+        snapHelper.attachToRecyclerView(mStepPager);
+        mStepPager.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                trackSwipe(newState);
+                View snapView = snapHelper.findSnapView(layoutManager);
+                if (newState == RecyclerView.SCROLL_STATE_IDLE && snapView != null) {
+                    mStepIndicator.setSelectedStep(layoutManager.getPosition(snapView));
+                }
+            }
+        });
 
-        RecipeViewModel mRecipe = ViewModelProviders
+        RecipeViewModel recipeViewModel = ViewModelProviders
                 .of(Objects.requireNonNull(this.getActivity()))
                 .get(RecipeViewModel.class);
-        mRecipe.getRecipe().observe(this, (Recipe recipe) -> {
-            if (recipe == null) {
-                return;
+        recipeViewModel.getStepRenderModels().observe(this, (List<StepRenderModel> models) ->
+                onStepModelsObserved(recipeViewModel, models));
+        recipeViewModel.getNumberOfPeople().observe(this, (Integer amount) -> {
+            if (amount != null && mStepPagerAdapter != null) {
+                mStepPagerAdapter.setCurrentAmount(amount);
             }
-            mStepsPagerAdapter.notifyDataSetChanged();
-            mAmountSteps = recipe.getRecipeSteps().size();
-            mViewPager.setAdapter(mStepsPagerAdapter);
         });
 
+        TraceSections.traceUntilFirstDraw(rootView, "Tab3Steps first frame");
         return rootView;
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        // recycles the pages, which gives their timer cards back to the pool
+        mStepPager.setAdapter(null);
+        if (mStepPagerAdapter != null) {
+            mStepPagerAdapter.release();
+            mStepPagerAdapter = null;
+        }
+        mStepViewCache.clear();
+        if (mSwipeJankTracker != null && getActivity() != null) {
+            mSwipeJankTracker.stop(getActivity().getWindow());
+        }
+    }
+
     /**
-     * A {@link FragmentPagerAdapter} that returns a fragment corresponding to
-     * one of the sections/tabs/pages.
+     * Count the frames of a swipe through the steps, from the start of the drag until the pager
+     * settles on a step.
+     *
+     * @param scrollState the new scroll state of the pager
      */
-    public class StepsPagerAdapter extends FragmentStatePagerAdapter {
-
-        public StepsPagerAdapter(FragmentManager fm) {
-            super(fm);
+    private void trackSwipe(int scrollState) {
+        if (mSwipeJankTracker == null || getActivity() == null) {
+            return;
         }
-
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public Fragment getItem(int position) {
-            return StepPlaceholderFragment.newInstance(position);
+        if (scrollState == RecyclerView.SCROLL_STATE_DRAGGING) {
+            mSwipeJankTracker.start(getActivity().getWindow());
+        } else if (scrollState == RecyclerView.SCROLL_STATE_IDLE) {
+            mSwipeJankTracker.stop(getActivity().getWindow());
         }
+    }
 
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public int getCount() {
-            // Return total pages.
-            return mAmountSteps;
-        }
+    /**
+     * Time how long it takes from the first steps until the first step page is laid out and about to be drawn.
+     *
+     * @param steps the amount of steps
+     */
+    private void timeFirstRender(int steps) {
+        Metrics.Timer timer = Metrics.getInstance().startTimer("steps_tab_render")
+                .putAttribute("steps", Integer.toString(steps));
+        mStepPager.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                if (mStepPager.getChildCount() == 0) {
+                    // the pages are not laid out yet
+                    return true;
+                }
+                mStepPager.getViewTreeObserver().removeOnPreDrawListener(this);
+                timer.stop();
+                return true;
+            }
+        });
+    }
 
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public int getItemPosition(@NonNull Object object) {
-            return POSITION_NONE;
+    /**
+     * Helper method called when new render models for the steps are observed
+     *
+     * @param recipeViewModel The ViewModel holding the recipe
+     * @param models          The observed render models of all steps
+     */
+    private void onStepModelsObserved(RecipeViewModel recipeViewModel, List<StepRenderModel> models) {
+        Recipe recipe = recipeViewModel.getRecipe().getValue();
+        if (models == null || recipe == null) {
+            return;
+        }
+        TraceSections.begin("Tab3Steps.onStepModelsObserved");
+        RecipeTimerViewModel recipeTimerViewModel = ViewModelProviders
+                .of(Objects.requireNonNull(getActivity()))
+                .get(RecipeTimerViewModel.class);
+        boolean otherRecipe = recipeTimerViewModel.init(recipeViewModel.getPreparedRecipe());
+
+        if (mStepPagerAdapter == null) {
+            mStepPagerAdapter = new StepPagerAdapter(this, recipeTimerViewModel, mStepViewCache);
+            Integer currentAmount = recipeViewModel.getNumberOfPeople().getValue();
+            if (currentAmount != null) {
+                mStepPagerAdapter.setCurrentAmount(currentAmount);
+            }
+            mStepPager.setAdapter(mStepPagerAdapter);
+        } else if (otherRecipe) {
+            // the pages still show the steps and timers of the previous recipe
+            mStepPagerAdapter.replaceSteps(models);
+            mStepPager.scrollToPosition(0);
+            mStepIndicator.setSelectedStep(0);
+        }
+        boolean firstSteps = mStepPagerAdapter.getItemCount() == 0;
+        if (firstSteps) {
+            timeFirstRender(models.size());
         }
+        mStepPagerAdapter.setSteps(models);
+        if (firstSteps) {
+            mStepPagerAdapter.prefillViewCache(mStepPager, PREFILLED_PAGES);
+        }
+        mStepIndicator.setStepCount(models.size());
+        TraceSections.end();
     }
-
 }
@@ -0,0 +1,73 @@
+package com.aurora.hulpchef;
+
+import android.support.v4.view.ViewPager;
+import android.view.Window;
+
+import com.aurora.hulpchef.utilities.FrameJankTracker;
+
+/**
+ * Collects the frames and janky frames drawn while each tab is shown, for debug builds.
+ * <p>
+ * Every tab has its own {@link FrameJankTracker}, which runs while its tab is selected and the
+ * activity is resumed. When a tab is left, its statistics are logged and recorded in the metrics,
+ * which debug builds write to a file on the device.
+ */
+public class TabFrameCollector extends ViewPager.SimpleOnPageChangeListener {
+    /**
+     * The window whose frames are counted.
+     */
+    private final Window mWindow;
+    /**
+     * The tracker of every tab.
+     */
+    private final FrameJankTracker[] mTrackers;
+    /**
+     * The selected tab.
+     */
+    private int mCurrentTab;
+    /**
+     * Whether the activity is resumed.
+     */
+    private boolean mResumed = false;
+
+    /**
+     * Creates a collector.
+     *
+     * @param window     the window of the activity
+     * @param tabNames   the name of every tab, used in the logs and metrics
+     * @param currentTab the selected tab
+     */
+    public TabFrameCollector(Window window, String[] tabNames, int currentTab) {
+        mWindow = window;
+        mTrackers = new FrameJankTracker[tabNames.length];
+        for (int i = 0; i < tabNames.length; i++) {
+            mTrackers[i] = new FrameJankTracker(tabNames[i]);
+        }
+        mCurrentTab = currentTab;
+    }
+
+    /**
+     * Start counting the frames of the selected tab.
+     */
+    public void onResume() {
+        mResumed = true;
+        mTrackers[mCurrentTab].start(mWindow);
+    }
+
+    /**
+     * Stop counting, the statistics of the selected tab are recorded.
+     */
+    public void onPause() {
+        mResumed = false;
+        mTrackers[mCurrentTab].stop(mWindow);
+    }
+
+    @Override
+    public void onPageSelected(int position) {
+        mTrackers[mCurrentTab].stop(mWindow);
+        mCurrentTab = position;
+        if (mResumed) {
+            mTrackers[mCurrentTab].start(mWindow);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.aurora.hulpchef;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+import com.aurora.hulpchef.utilities.StartupScheduler;
+import com.aurora.hulpchef.utilities.TimerRingtone;
+
+/**
+ * Receives the exact alarm scheduled by {@link TimerStore} when a timer goes off.
+ * <p>
+ * This makes the {@link TimerRingtone} ring on time, even when the process of Hulpchef
+ * was reclaimed while the timer was running. While it rings, a notification lets the user
+ * stop the ringing or open Hulpchef.
+ */
+public class TimerAlarmReceiver extends BroadcastReceiver {
+    /**
+     * The action of the intent that dismisses the timers that went off.
+     */
+    private static final String ACTION_DISMISS = "com.aurora.hulpchef.DISMISS_TIMERS";
+    /**
+     * The id of the notification channel of the timers.
+     */
+    private static final String CHANNEL_ID = "timer_alarm";
+    /**
+     * The id of the notification while a timer rings.
+     */
+    private static final int NOTIFICATION_ID = 2;
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (ACTION_DISMISS.equals(intent.getAction())) {
+            // the timers of the recipes in memory, then those of recipes that are gone
+            RecipeSession.getInstance().dismissAlarms();
+            TimerStore.dismissAlarms(context);
+            stopRinging(context);
+            return;
+        }
+
+        // the process can be started for this alarm, without an activity that declared the initialisers
+        TimerRingtone.registerInitialiser();
+        StartupScheduler.getInstance().ensureInitialised(TimerRingtone.INITIALISER, context);
+        if (TimerRingtone.getInstance().ringFromBackground()) {
+            showNotification(context);
+        }
+
+        // Other timers might still be running
+        TimerStore.scheduleNextAlarm(context);
+    }
+
+    /**
+     * Stop the ringing started by the alarm and remove its notification.
+     *
+     * @param context the context to get the notification manager
+     */
+    public static void stopRinging(Context context) {
+        TimerRingtone.getInstance().stopRingingFromBackground();
+        NotificationManager manager = context.getSystemService(NotificationManager.class);
+        if (manager != null) {
+            manager.cancel(NOTIFICATION_ID);
+        }
+    }
+
+    /**
+     * Show a notification while the alarm rings, with actions to stop it or to open Hulpchef.
+     *
+     * @param context the context to create the notification
+     */
+    private static void showNotification(Context context) {
+        NotificationManager manager = context.getSystemService(NotificationManager.class);
+        manager.createNotificationChannel(new NotificationChannel(CHANNEL_ID,
+                context.getString(R.string.timer_channel_name), NotificationManager.IMPORTANCE_HIGH));
+
+        PendingIntent dismiss = PendingIntent.getBroadcast(context, 0,
+                new Intent(context, TimerAlarmReceiver.class).setAction(ACTION_DISMISS),
+                PendingIntent.FLAG_UPDATE_CURRENT);
+        // like the launcher, this brings back the task with the recipe when it still exists
+        PendingIntent open = PendingIntent.getActivity(context, 0,
+                new Intent(context, MainActivity.class)
+                        .setAction(Intent.ACTION_MAIN)
+                        .addCategory(Intent.CATEGORY_LAUNCHER)
+                        .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_RESET_TASK_IF_NEEDED),
+                PendingIntent.FLAG_UPDATE_CURRENT);
+
+        Notification notification = new Notification.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_timer_white)
+                .setContentTitle(context.getString(R.string.timer_notification_title))
+                .setCategory(Notification.CATEGORY_ALARM)
+                .setOngoing(true)
+                .setContentIntent(open)
+                .addAction(new Notification.Action.Builder(null,
+                        context.getString(R.string.timer_notification_dismiss), dismiss).build())
+                .addAction(new Notification.Action.Builder(null,
+                        context.getString(R.string.timer_notification_open), open).build())
+                .build();
+        manager.notify(NOTIFICATION_ID, notification);
+    }
+}
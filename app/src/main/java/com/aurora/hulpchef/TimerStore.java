@@ -0,0 +1,403 @@
+package com.aurora.hulpchef;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+
+import com.aurora.souschefprocessor.recipe.Recipe;
+import com.aurora.souschefprocessor.recipe.RecipeStep;
+import com.aurora.souschefprocessor.recipe.RecipeTimer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persists the state of the timers of a recipe, so they survive the death of the process.
+ * <p>
+ * Running timers are stored as the wall clock deadline on which they go off, so no
+ * process has to stay alive to count down. An exact alarm is scheduled for the next
+ * deadline, which lets {@link TimerAlarmReceiver} ring even when Hulpchef is gone.
+ * <p>
+ * Only timers that differ from their initial state are stored, one line per recipe:
+ * {@code savedAt;step,timer,state,value,timeSetByUser;...} with the numbers in radix 36.
+ * Dismissed timers are not stored, and the lines of recipes that were not used for
+ * {@value MAX_IDLE_MILLIS} milliseconds are removed, unless a timer is running or alarming.
+ */
+public class TimerStore {
+    /**
+     * Name of the shared preferences that hold the timers.
+     */
+    private static final String PREFERENCES = "Timers";
+    /**
+     * Separator between two timers in a stored line.
+     */
+    private static final String TIMER_SEPARATOR = ";";
+    /**
+     * Separator between the fields of one timer.
+     */
+    private static final String FIELD_SEPARATOR = ",";
+    /**
+     * Radix used to write the numbers compactly.
+     */
+    private static final int RADIX = Character.MAX_RADIX;
+    /**
+     * The amount of fields of one stored timer.
+     */
+    private static final int FIELDS = 5;
+    /**
+     * Stored state of a timer that was set by the user, but not started.
+     */
+    private static final int STATE_INITIALISED = 0;
+    /**
+     * Stored state of a paused timer, the value is the amount of milliseconds left.
+     */
+    private static final int STATE_PAUSED = 1;
+    /**
+     * Stored state of a running timer, the value is the deadline.
+     */
+    private static final int STATE_RUNNING = 2;
+    /**
+     * Stored state of a timer that went off and is still alarming, the value is the deadline.
+     */
+    private static final int STATE_ALARMING = 3;
+    /**
+     * Request code of the pending intent for the alarm.
+     */
+    private static final int ALARM_REQUEST_CODE = 0;
+    /**
+     * The time after which the line of a recipe without running timers is removed, two days.
+     */
+    private static final long MAX_IDLE_MILLIS = 2 * 24 * 60 * 60 * 1000L;
+
+    /**
+     * The context used for the preferences and the alarm manager.
+     */
+    private final Context mContext;
+
+    /**
+     * Creates a store for the timers.
+     *
+     * @param context the context, the application context is kept
+     */
+    public TimerStore(Context context) {
+        mContext = context.getApplicationContext();
+    }
+
+    /**
+     * Create a key for a recipe from a hash of its text and timers. The timers are kept with the
+     * original recipe, a translation only changes how it is shown, so the key does not change
+     * when the recipe is translated.
+     *
+     * @param recipe the recipe
+     * @return a key based on the content of the recipe
+     */
+    public static String keyFor(Recipe recipe) {
+        List<String> parts = new ArrayList<>();
+        parts.add(recipe.getDescription());
+        for (RecipeStep step : recipe.getRecipeSteps()) {
+            StringBuilder timers = new StringBuilder();
+            for (RecipeTimer timer : step.getRecipeTimers()) {
+                timers.append(timer.getLowerBound()).append('-').append(timer.getUpperBound()).append(' ');
+            }
+            parts.add(step.getDescription());
+            parts.add(timers.toString());
+        }
+        return ProcessingRegistry.hash(parts);
+    }
+
+    /**
+     * Restore the stored state of the timers of a recipe.
+     *
+     * @param key       the key of the recipe, see {@link #keyFor(Recipe)}
+     * @param allTimers the timers of the recipe, per step
+     */
+    public void restore(String key, List<? extends List<LiveDataTimer>> allTimers) {
+        String line = getPreferences().getString(key, null);
+        if (line == null || line.isEmpty()) {
+            return;
+        }
+        for (String stored : line.split(TIMER_SEPARATOR)) {
+            long[] fields = parseTimer(stored);
+            if (fields == null) {
+                continue;
+            }
+            long step = fields[0];
+            long timer = fields[1];
+            if (step < 0 || step >= allTimers.size() || timer < 0 || timer >= allTimers.get((int) step).size()) {
+                continue;
+            }
+            restoreTimer(allTimers.get((int) step).get((int) timer), (int) fields[2], fields[3], (int) fields[4]);
+        }
+    }
+
+    /**
+     * Store the state of all the timers of a recipe and schedule the alarm for the next deadline.
+     * The lines of recipes that were not used for a while are removed. When no timer is alarming
+     * anymore, the ringing started by {@link TimerAlarmReceiver} stops.
+     *
+     * @param key       the key of the recipe, see {@link #keyFor(Recipe)}
+     * @param allTimers the timers of the recipe, per step
+     */
+    public void save(String key, List<? extends List<LiveDataTimer>> allTimers) {
+        long now = System.currentTimeMillis();
+        StringBuilder line = new StringBuilder(Long.toString(now, RADIX));
+        int empty = line.length();
+        for (int step = 0; step < allTimers.size(); step++) {
+            List<LiveDataTimer> stepTimers = allTimers.get(step);
+            for (int timer = 0; timer < stepTimers.size(); timer++) {
+                appendTimer(line, step, timer, stepTimers.get(timer));
+            }
+        }
+
+        SharedPreferences.Editor editor = getPreferences().edit();
+        if (line.length() == empty) {
+            editor.remove(key);
+        } else {
+            editor.putString(key, line.toString());
+        }
+        for (Map.Entry<String, ?> stored : getPreferences().getAll().entrySet()) {
+            String storedLine = String.valueOf(stored.getValue());
+            if (!stored.getKey().equals(key) && now - savedAt(storedLine) > MAX_IDLE_MILLIS
+                    && !hasActiveTimer(storedLine, now)) {
+                editor.remove(stored.getKey());
+            }
+        }
+        // apply updates the in-memory preferences at once, so the next alarm sees the new deadlines
+        editor.apply();
+        scheduleNextAlarm(mContext);
+        if (!hasAlarmingTimers(mContext)) {
+            TimerAlarmReceiver.stopRinging(mContext);
+        }
+    }
+
+    /**
+     * Check whether a stored timer went off and was not dismissed yet.
+     *
+     * @param context the context to get the preferences
+     * @return true when a timer is alarming
+     */
+    public static boolean hasAlarmingTimers(Context context) {
+        long now = System.currentTimeMillis();
+        for (Object line : context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE).getAll().values()) {
+            for (String stored : String.valueOf(line).split(TIMER_SEPARATOR)) {
+                if (isAlarming(parseTimer(stored), now)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Dismiss all stored timers that went off, for when the user dismisses them without opening the
+     * recipe. They are removed, like every dismissed timer.
+     *
+     * @param context the context to get the preferences
+     */
+    public static void dismissAlarms(Context context) {
+        long now = System.currentTimeMillis();
+        SharedPreferences preferences = context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+        SharedPreferences.Editor editor = preferences.edit();
+        for (Map.Entry<String, ?> stored : preferences.getAll().entrySet()) {
+            StringBuilder line = new StringBuilder();
+            for (String timer : String.valueOf(stored.getValue()).split(TIMER_SEPARATOR)) {
+                if (isAlarming(parseTimer(timer), now)) {
+                    continue;
+                }
+                if (line.length() != 0) {
+                    line.append(TIMER_SEPARATOR);
+                }
+                line.append(timer);
+            }
+            if (line.indexOf(FIELD_SEPARATOR) < 0) {
+                // only the time it was saved is left
+                editor.remove(stored.getKey());
+            } else {
+                editor.putString(stored.getKey(), line.toString());
+            }
+        }
+        editor.apply();
+    }
+
+    /**
+     * Schedule an exact alarm for the first deadline in the future of all stored timers,
+     * or cancel the alarm if no timer is running.
+     *
+     * @param context the context to get the alarm manager
+     */
+    public static void scheduleNextAlarm(Context context) {
+        long now = System.currentTimeMillis();
+        long nextDeadline = Long.MAX_VALUE;
+        Map<String, ?> lines = context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE).getAll();
+        for (Object line : lines.values()) {
+            for (String stored : String.valueOf(line).split(TIMER_SEPARATOR)) {
+                long[] fields = parseTimer(stored);
+                if (fields != null && fields[2] == STATE_RUNNING && fields[3] > now && fields[3] < nextDeadline) {
+                    nextDeadline = fields[3];
+                }
+            }
+        }
+
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        PendingIntent alarmIntent = PendingIntent.getBroadcast(context, ALARM_REQUEST_CODE,
+                new Intent(context, TimerAlarmReceiver.class), PendingIntent.FLAG_UPDATE_CURRENT);
+        if (alarmManager == null) {
+            return;
+        }
+        if (nextDeadline == Long.MAX_VALUE) {
+            alarmManager.cancel(alarmIntent);
+        } else {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, nextDeadline, alarmIntent);
+        }
+    }
+
+    /**
+     * Get the time a stored line was saved.
+     *
+     * @param line the stored line
+     * @return the wall clock time it was saved, 0 for a line without it or with a malformed one
+     */
+    private static long savedAt(String line) {
+        String first = line.split(TIMER_SEPARATOR, 2)[0];
+        if (first.isEmpty() || first.contains(FIELD_SEPARATOR)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(first, RADIX);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Parse the fields of a stored timer.
+     *
+     * @param stored the stored timer
+     * @return the step, timer, state, value and time set by the user, or null when the timer is malformed
+     */
+    private static long[] parseTimer(String stored) {
+        String[] parts = stored.split(FIELD_SEPARATOR);
+        if (parts.length != FIELDS) {
+            return null;
+        }
+        long[] fields = new long[FIELDS];
+        try {
+            for (int i = 0; i < FIELDS; i++) {
+                fields[i] = Long.parseLong(parts[i], RADIX);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return fields;
+    }
+
+    /**
+     * Check whether a stored line has a timer that is running or alarming.
+     *
+     * @param line the stored line
+     * @param now  the current wall clock time
+     * @return true when a timer is running or alarming
+     */
+    private static boolean hasActiveTimer(String line, long now) {
+        for (String stored : line.split(TIMER_SEPARATOR)) {
+            long[] fields = parseTimer(stored);
+            if (fields != null && (isAlarming(fields, now) || fields[2] == STATE_RUNNING)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check whether a stored timer is alarming, or was running and went off since it was stored.
+     *
+     * @param fields the fields of the stored timer, see {@link #parseTimer(String)}, null when malformed
+     * @param now    the current wall clock time
+     * @return true when the timer is alarming
+     */
+    private static boolean isAlarming(long[] fields, long now) {
+        if (fields == null) {
+            return false;
+        }
+        return fields[2] == STATE_ALARMING || (fields[2] == STATE_RUNNING && fields[3] <= now);
+    }
+
+    /**
+     * Append a timer to a stored line, if it is not in its initial state and not dismissed.
+     *
+     * @param line  the line to append to
+     * @param step  the index of the step of the timer
+     * @param timer the index of the timer in the step
+     * @param liveDataTimer the timer to store
+     */
+    private static void appendTimer(StringBuilder line, int step, int timer, LiveDataTimer liveDataTimer) {
+        int state;
+        long value = 0;
+        Integer timerState = liveDataTimer.getTimerState().getValue();
+        boolean finished = Boolean.TRUE.equals(liveDataTimer.getIsFinished().getValue());
+        boolean alarming = Boolean.TRUE.equals(liveDataTimer.isAlarming().getValue());
+
+        if (alarming) {
+            state = STATE_ALARMING;
+            value = liveDataTimer.getDeadline();
+        } else if (finished) {
+            // a dismissed timer is not worth storing
+            return;
+        } else if (timerState != null && timerState == LiveDataTimer.TIMER_RUNNING) {
+            state = STATE_RUNNING;
+            value = liveDataTimer.getDeadline();
+        } else if (timerState != null && timerState == LiveDataTimer.TIMER_PAUSED) {
+            state = STATE_PAUSED;
+            Long millisLeft = liveDataTimer.getMillisLeft().getValue();
+            value = millisLeft == null ? 0 : millisLeft;
+        } else if (liveDataTimer.getTimeSetByUser() != liveDataTimer.getLowerBound()) {
+            state = STATE_INITIALISED;
+        } else {
+            // nothing worth storing
+            return;
+        }
+
+        line.append(TIMER_SEPARATOR).append(Integer.toString(step, RADIX)).append(FIELD_SEPARATOR)
+                .append(Integer.toString(timer, RADIX)).append(FIELD_SEPARATOR)
+                .append(Integer.toString(state, RADIX)).append(FIELD_SEPARATOR)
+                .append(Long.toString(value, RADIX)).append(FIELD_SEPARATOR)
+                .append(Integer.toString(liveDataTimer.getTimeSetByUser(), RADIX));
+    }
+
+    /**
+     * Restore one timer from its stored fields.
+     *
+     * @param liveDataTimer the timer to restore
+     * @param state         the stored state
+     * @param value         the stored deadline or milliseconds left
+     * @param timeSetByUser the stored time set by the user
+     */
+    private static void restoreTimer(LiveDataTimer liveDataTimer, int state, long value, int timeSetByUser) {
+        switch (state) {
+            case STATE_PAUSED:
+                liveDataTimer.restore(timeSetByUser, LiveDataTimer.TIMER_PAUSED, value, false, false);
+                break;
+            case STATE_RUNNING:
+                liveDataTimer.restore(timeSetByUser, LiveDataTimer.TIMER_RUNNING, value, false, false);
+                break;
+            case STATE_ALARMING:
+                liveDataTimer.restore(timeSetByUser, LiveDataTimer.TIMER_RUNNING, value, true, true);
+                break;
+            default:
+                liveDataTimer.restore(timeSetByUser, LiveDataTimer.TIMER_INITIALISED, value, false, false);
+                break;
+        }
+    }
+
+    /**
+     * Get the shared preferences that hold the timers.
+     *
+     * @return the preferences
+     */
+    private SharedPreferences getPreferences() {
+        return mContext.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,128 @@
+package com.aurora.hulpchef;
+
+import com.aurora.souschefprocessor.recipe.ListIngredient;
+import com.aurora.souschefprocessor.recipe.Recipe;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The translated text of a recipe, shown over the original recipe instead of keeping a second,
+ * translated {@link Recipe}.
+ * <p>
+ * The overlay keeps the translated sentences, indexed like {@link Recipe#createSentencesToTranslate()},
+ * and the text the views read: the description, the names and units of the ingredients and the
+ * render models of the steps. The positions of the quantities and timers in the translated steps are
+ * remapped once, when the overlay is built, so the translated recipe itself can be dropped right away.
+ * The translated text of the steps is kept in a text store of its own, next to that of the original.
+ * Switching the language only swaps which text the views read.
+ */
+public final class TranslationOverlay {
+    /**
+     * The translated sentences, indexed like {@link Recipe#createSentencesToTranslate()}.
+     */
+    private final String[] mSentences;
+    /**
+     * The translated description of the recipe.
+     */
+    private final String mDescription;
+    /**
+     * The translated names of the ingredients, indexed like {@link Recipe#getIngredients()}.
+     */
+    private final String[] mIngredientNames;
+    /**
+     * The translated units of the ingredients, indexed like {@link Recipe#getIngredients()}.
+     */
+    private final String[] mIngredientUnits;
+    /**
+     * The render models of the translated steps.
+     */
+    private final List<StepRenderModel> mStepModels;
+
+    /**
+     * Creates an overlay, use {@link #build(Recipe, String[])}.
+     */
+    private TranslationOverlay(String[] sentences, String description, String[] ingredientNames,
+                               String[] ingredientUnits, List<StepRenderModel> stepModels) {
+        mSentences = sentences;
+        mDescription = description;
+        mIngredientNames = ingredientNames;
+        mIngredientUnits = ingredientUnits;
+        mStepModels = stepModels;
+    }
+
+    /**
+     * Build the overlay of a recipe. This is slow, call it off the main thread.
+     * <p>
+     * The translated recipe is only created to let the processor remap the positions of the
+     * quantities and timers. Only the text and copies of the ingredients listed with the steps are
+     * kept, so the translated recipe is garbage afterwards.
+     *
+     * @param original            the recipe in the original language, it is not modified
+     * @param translatedSentences the translations of {@link Recipe#createSentencesToTranslate()}, in order
+     * @return the overlay
+     */
+    public static TranslationOverlay build(Recipe original, String[] translatedSentences) {
+        Recipe translated = original.getTranslatedRecipe(translatedSentences);
+
+        List<ListIngredient> ingredients = translated.getIngredients();
+        String[] names = new String[ingredients.size()];
+        String[] units = new String[ingredients.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = ingredients.get(i).getName();
+            units[i] = ingredients.get(i).getUnit();
+        }
+        // the steps are rendered with the amount of people of the original recipe
+        translated.setNumberOfPeople(original.getNumberOfPeople());
+        return new TranslationOverlay(translatedSentences.clone(), translated.getDescription(), names, units,
+                StepRenderModel.buildAllDetached(translated));
+    }
+
+    /**
+     * Get the translated sentences.
+     *
+     * @return an unmodifiable list of the sentences, indexed like {@link Recipe#createSentencesToTranslate()}
+     */
+    public List<String> getSentences() {
+        return Collections.unmodifiableList(Arrays.asList(mSentences));
+    }
+
+    /**
+     * Get the translated description of the recipe.
+     *
+     * @return the description
+     */
+    public String getDescription() {
+        return mDescription;
+    }
+
+    /**
+     * Get the translated name of an ingredient.
+     *
+     * @param index the index of the ingredient in {@link Recipe#getIngredients()}
+     * @return the name
+     */
+    public String getIngredientName(int index) {
+        return mIngredientNames[index];
+    }
+
+    /**
+     * Get the translated unit of an ingredient.
+     *
+     * @param index the index of the ingredient in {@link Recipe#getIngredients()}
+     * @return the unit
+     */
+    public String getIngredientUnit(int index) {
+        return mIngredientUnits[index];
+    }
+
+    /**
+     * Get the render models of the translated steps.
+     *
+     * @return a model for every step, in order
+     */
+    public List<StepRenderModel> getStepModels() {
+        return mStepModels;
+    }
+}
@@ -1,9 +1,13 @@
 package com.aurora.hulpchef;
 
 import android.annotation.SuppressLint;
+import android.arch.lifecycle.Lifecycle;
+import android.arch.lifecycle.LifecycleObserver;
 import android.arch.lifecycle.LifecycleOwner;
+import android.arch.lifecycle.Observer;
+import android.arch.lifecycle.OnLifecycleEvent;
 import android.content.DialogInterface;
-import android.os.Handler;
+import android.support.v4.content.ContextCompat;
 import android.support.v7.app.AlertDialog;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -11,12 +15,15 @@ import android.widget.ImageView;
 import android.widget.SeekBar;
 import android.widget.TextView;
 
+import com.aurora.hulpchef.utilities.StartupScheduler;
+import com.aurora.hulpchef.utilities.TimerBlinkClock;
 import com.aurora.hulpchef.utilities.TimerRingtone;
+import com.aurora.hulpchef.utilities.TimerTextFormatter;
 
 /**
  * A UI class responsible for filling in the UI with timer data.
  */
-public class UITimer {
+public class UITimer implements LifecycleObserver {
     /**
      * Time constant: seconds in an hour.
      */
@@ -33,10 +40,6 @@ public class UITimer {
      * Time constant: seconds in a minute.
      */
     private static final int AMOUNT_SEC_IN_MIN = 60;
-    /**
-     * The time it takes before the color of a timer changes when it is alarming.
-     */
-    private static final int CHANGE_COLOR_MILLISEC_DELAY = 250;
     /**
      * The amount of milliseconds in a second. Needed to convert
      * RecipeTimers (which are in seconds) to actual timers.
@@ -63,21 +66,71 @@ public class UITimer {
      */
     private static final int PERCENT = 100;
     /**
-     * Data container for timers.
+     * Data container for timers. Null while the card is not bound to a timer.
      */
-    private final LiveDataTimer mLiveDataTimer;
+    private LiveDataTimer mLiveDataTimer = null;
+    /**
+     * LiveCycleOwner responsible for the LiveData objects.
+     */
+    private final LifecycleOwner mOwner;
+    /**
+     * The TextView showing the time left.
+     */
+    private TextView mTimerText;
     /**
      * View where the timer is displayed.
      */
     private View mTimerCard;
     /**
-     * A handler for the flickering of the card, when the timer is alarming
+     * The content of the timer card, which changes color according to the state.
+     */
+    private View mContentView;
+    /**
+     * The icon showing the state of the timer.
      */
-    private Handler mHandler = null;
+    private ImageView mTimerIcon;
     /**
-     * A boolean representing whether the color of the card is dark
+     * The icon indicating that the timer can be changed.
      */
-    private boolean mColorDark = true;
+    private View mEditIcon;
+    /**
+     * The light color of the card, cached to avoid resource lookups while blinking.
+     */
+    private int mColorLight;
+    /**
+     * The dark color of the card, cached to avoid resource lookups while blinking.
+     */
+    private int mColorDark;
+    /**
+     * Formats the time left of the timer without allocating a new String every tick.
+     */
+    private final TimerTextFormatter mTimerTextFormatter = new TimerTextFormatter();
+    /**
+     * Listener for the shared {@link TimerBlinkClock}, used when the timer is alarming.
+     */
+    private final TimerBlinkClock.BlinkListener mBlinkListener = (boolean dark) ->
+            mContentView.setBackgroundColor(dark ? mColorDark : mColorLight);
+    /**
+     * Observer of the time left, updates the text field only when the visible text changes.
+     */
+    private final Observer<Long> mMillisLeftObserver = (Long millisLeft) -> {
+        if (millisLeft != null && mTimerTextFormatter.format(millisLeft)) {
+            mTimerText.setText(mTimerTextFormatter.getChars(), 0, mTimerTextFormatter.length());
+        }
+    };
+    /**
+     * Observer of the alarming state.
+     */
+    private final Observer<Boolean> mAlarmingObserver = (Boolean alarming) ->
+            setAlarm(alarming != null && alarming);
+    /**
+     * Observer of the state of the timer.
+     */
+    private final Observer<Integer> mTimerStateObserver = (Integer timerState) -> {
+        if (timerState != null) {
+            setIconsAndBackground(timerState);
+        }
+    };
 
     /**
      * Sets up text and timer views.
@@ -88,23 +141,80 @@ public class UITimer {
      *                      Normally the activity.
      */
     public UITimer(LiveDataTimer liveDataTimer, View timerCard, LifecycleOwner owner) {
-        this.mLiveDataTimer = liveDataTimer;
-        this.mTimerCard = timerCard;
+        this(timerCard, owner);
+        bind(liveDataTimer);
+    }
 
-        // set timer observer to update text field.
-        TextView timerText = timerCard.findViewById(R.id.tv_timer);
-        liveDataTimer.getMillisLeft().observe(owner, (Long millisLeft) -> {
-            if (millisLeft != null) {
-                timerText.setText(LiveDataTimer.convertTimeToString(millisLeft));
-            }
-        });
+    /**
+     * Sets up the views of a timer card, which can then be bound to different timers.
+     *
+     * @param timerCard view where to put the timer. Should be a timer_card.xml
+     * @param owner     LifeCycleOwner responsible for the LiveData objects.
+     */
+    public UITimer(View timerCard, LifecycleOwner owner) {
+        this.mOwner = owner;
+        this.mTimerCard = timerCard;
+        this.mTimerText = timerCard.findViewById(R.id.tv_timer);
+        this.mContentView = timerCard.findViewById(R.id.cl_timer_content);
+        this.mTimerIcon = timerCard.findViewById(R.id.iv_timer_icon);
+        this.mEditIcon = timerCard.findViewById(R.id.iv_edit_icon);
+        this.mColorLight = ContextCompat.getColor(timerCard.getContext(), R.color.colorPrimary);
+        this.mColorDark = ContextCompat.getColor(timerCard.getContext(), R.color.colorPrimaryDark);
 
         setOnClickListeners();
+    }
 
-        this.mLiveDataTimer.isAlarming().observe(owner, this::setAlarm);
+    /**
+     * Show a timer on the card. The card stops showing the timer it was bound to before.
+     * While it is bound, the card observes the lifecycle of its owner.
+     *
+     * @param liveDataTimer timer data container
+     */
+    public void bind(LiveDataTimer liveDataTimer) {
+        if (liveDataTimer == mLiveDataTimer) {
+            return;
+        }
+        unbind();
+        mLiveDataTimer = liveDataTimer;
+        mTimerTextFormatter.reset();
 
-        this.mLiveDataTimer.getTimerState().observe(owner, this::setIconsAndBackground);
+        mLiveDataTimer.getMillisLeft().observe(mOwner, mMillisLeftObserver);
+        mLiveDataTimer.isAlarming().observe(mOwner, mAlarmingObserver);
+        mLiveDataTimer.getTimerState().observe(mOwner, mTimerStateObserver);
+        mOwner.getLifecycle().addObserver(this);
+    }
 
+    /**
+     * Stop showing the bound timer on the card. The timer itself keeps running (and ringing).
+     * A pooled card no longer observes the lifecycle of its owner.
+     */
+    public void unbind() {
+        if (mLiveDataTimer == null) {
+            return;
+        }
+        mLiveDataTimer.getMillisLeft().removeObserver(mMillisLeftObserver);
+        mLiveDataTimer.isAlarming().removeObserver(mAlarmingObserver);
+        mLiveDataTimer.getTimerState().removeObserver(mTimerStateObserver);
+        setFlickering(false);
+        mOwner.getLifecycle().removeObserver(this);
+        mLiveDataTimer = null;
+    }
+
+    /**
+     * Get the card on which this timer is shown.
+     *
+     * @return the timer card
+     */
+    public View getTimerCard() {
+        return mTimerCard;
+    }
+
+    /**
+     * Stop following the blink clock when the owner is destroyed, so the clock can stop.
+     */
+    @OnLifecycleEvent(Lifecycle.Event.ON_DESTROY)
+    void onOwnerDestroyed() {
+        TimerBlinkClock.getInstance().unsubscribe(mBlinkListener);
     }
 
     /**
@@ -114,14 +224,22 @@ public class UITimer {
      */
     private void setOnClickListeners() {
 
-        mTimerCard.setOnClickListener((View v) -> mLiveDataTimer.toggleTimer());
+        mTimerCard.setOnClickListener((View v) -> {
+            if (mLiveDataTimer != null) {
+                mLiveDataTimer.toggleTimer();
+            }
+        });
         mTimerCard.setOnLongClickListener((View v) -> {
-            mLiveDataTimer.resetTimer();
+            if (mLiveDataTimer != null) {
+                mLiveDataTimer.resetTimer();
+            }
             return true;
         });
-        if (mLiveDataTimer.canChangeTimer()) {
-            mTimerCard.findViewById(R.id.iv_edit_icon).setOnClickListener((View v) -> setTimerPopup());
-        }
+        mEditIcon.setOnClickListener((View v) -> {
+            if (mLiveDataTimer != null && mLiveDataTimer.canChangeTimer()) {
+                setTimerPopup();
+            }
+        });
     }
 
     /**
@@ -129,28 +247,23 @@ public class UITimer {
      * @param timerState The current state of the timer
      */
     private void setIconsAndBackground(int timerState) {
-        ImageView imageView = mTimerCard.findViewById(R.id.iv_timer_icon);
-        View contentView = mTimerCard.findViewById(R.id.cl_timer_content);
-
         // Check whether the edit icon has to be displayed
-        if (mLiveDataTimer.canChangeTimer()) {
-            if (timerState == LiveDataTimer.TIMER_INITIALISED) {
-                mTimerCard.findViewById(R.id.iv_edit_icon).setVisibility(View.VISIBLE);
-            } else {
-                mTimerCard.findViewById(R.id.iv_edit_icon).setVisibility(View.GONE);
-            }
+        if (mLiveDataTimer.canChangeTimer() && timerState == LiveDataTimer.TIMER_INITIALISED) {
+            mEditIcon.setVisibility(View.VISIBLE);
+        } else {
+            mEditIcon.setVisibility(View.GONE);
         }
 
         // Change color and icon according to the timer state
         if (timerState == LiveDataTimer.TIMER_RUNNING) {
-            imageView.setImageResource(R.drawable.ic_pause_white);
-            contentView.setBackgroundColor(mTimerCard.getResources().getColor(R.color.colorPrimary));
+            mTimerIcon.setImageResource(R.drawable.ic_pause_white);
+            mContentView.setBackgroundColor(mColorLight);
         } else if (timerState == LiveDataTimer.TIMER_PAUSED) {
-            imageView.setImageResource(R.drawable.ic_play_white);
-            contentView.setBackgroundColor(mTimerCard.getResources().getColor(R.color.colorPrimaryDark));
+            mTimerIcon.setImageResource(R.drawable.ic_play_white);
+            mContentView.setBackgroundColor(mColorDark);
         } else if (timerState == LiveDataTimer.TIMER_INITIALISED) {
-            imageView.setImageResource(R.drawable.ic_timer_white);
-            contentView.setBackgroundColor(mTimerCard.getResources().getColor(R.color.colorPrimaryDark));
+            mTimerIcon.setImageResource(R.drawable.ic_timer_white);
+            mContentView.setBackgroundColor(mColorDark);
         }
     }
 
@@ -163,6 +276,8 @@ public class UITimer {
         setFlickering(alarming);
 
         if (alarming && !mLiveDataTimer.isRinging()) {
+            // the ringtone is looked up on first use when the startup did not get to it yet
+            StartupScheduler.getInstance().ensureInitialised(TimerRingtone.INITIALISER, mTimerCard.getContext());
             TimerRingtone.getInstance().addRingingTimer();
             mLiveDataTimer.setRinging(true);
         } else if (!alarming && mLiveDataTimer.isRinging()) {
@@ -172,37 +287,14 @@ public class UITimer {
     }
 
     /**
-     * Set the flickering of a timer on or off
+     * Set the flickering of a timer on or off, by following the shared {@link TimerBlinkClock}
      * @param flicker a boolean, true if flickering must be turned on, false otherwise
      */
     private void setFlickering(boolean flicker) {
-        View contentView = mTimerCard.findViewById(R.id.cl_timer_content);
-
         if (flicker) {
-            if (mHandler == null) {
-                mHandler = new Handler();
-            }
-
-            mHandler.postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                    if (mColorDark) {
-                        contentView.setBackgroundColor(
-                                mTimerCard.getResources().getColor(R.color.colorPrimary));
-                        mColorDark = false;
-                    } else {
-                        contentView.setBackgroundColor(
-                                mTimerCard.getResources().getColor(R.color.colorPrimaryDark));
-                        mColorDark = true;
-                    }
-                    mHandler.postDelayed(this, CHANGE_COLOR_MILLISEC_DELAY);
-                }
-            }, CHANGE_COLOR_MILLISEC_DELAY);
-
+            TimerBlinkClock.getInstance().subscribe(mBlinkListener);
         } else {
-            if (mHandler != null) {
-                mHandler.removeCallbacksAndMessages(null);
-            }
+            TimerBlinkClock.getInstance().unsubscribe(mBlinkListener);
         }
     }
 
@@ -211,8 +303,11 @@ public class UITimer {
      * The user then can select the value between the upper and lower bound he/she prefers
      */
     private void setTimerPopup() {
+        // the card may be recycled for another step while the popup is shown, the popup keeps its timer
+        final LiveDataTimer timer = mLiveDataTimer;
+
         // Calculate the difference and the associated step for the Seekbar
-        int difference = mLiveDataTimer.getUpperBound() - mLiveDataTimer.getLowerBound();
+        int difference = timer.getUpperBound() - timer.getLowerBound();
         int step;
         if (difference >= AMOUNT_SEC_IN_HOUR) {
             step = MINUTE_STEP;
@@ -230,20 +325,20 @@ public class UITimer {
         @SuppressLint("InflateParams")
         View promptView = li.inflate(R.layout.prompt_timer_card, null);
         SeekBar seekBar = promptView.findViewById(R.id.sk_timer);
-        if (mLiveDataTimer.getMillisLeft().getValue() != null) {
-            int currentProgress = convertSecondsToProgress((int) (mLiveDataTimer.getMillisLeft().getValue() / MILLIS));
+        if (timer.getMillisLeft().getValue() != null) {
+            int currentProgress = convertSecondsToProgress(timer, (int) (timer.getMillisLeft().getValue() / MILLIS));
             seekBar.setProgress(currentProgress, true);
         }
 
         // Get the TextView of the popup and set to the initial value
         final TextView seekBarValue = promptView.findViewById(R.id.tv_timer);
-        seekBarValue.setText(LiveDataTimer.convertTimeToString(mLiveDataTimer.getMillisLeft().getValue()));
+        seekBarValue.setText(LiveDataTimer.convertTimeToString(timer.getMillisLeft().getValue()));
 
         // Set the listener of the SeekBar
         seekBar.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
             @Override
             public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
-                int newValue = convertProgressToSeconds(progress, step);
+                int newValue = convertProgressToSeconds(timer, progress, step);
                 seekBarValue.setText(LiveDataTimer.convertTimeToString(newValue * MILLIS));
             }
 
@@ -262,36 +357,37 @@ public class UITimer {
         AlertDialog.Builder alertDialogBuilder = new AlertDialog.Builder(mTimerCard.getContext());
         alertDialogBuilder.setView(promptView);
         alertDialogBuilder.setCancelable(false)
-                .setPositiveButton("Ok", (DialogInterface dialogInterface, int id) -> {
-                    int timeSetByUser = convertProgressToSeconds(seekBar.getProgress(), step);
-                    mLiveDataTimer.setTimeSetByUser(timeSetByUser);
-                });
+                .setPositiveButton("Ok", (DialogInterface dialogInterface, int id) ->
+                        timer.setTimeSetByUser(convertProgressToSeconds(timer, seekBar.getProgress(), step)));
         alertDialogBuilder.create().show();
     }
 
     /**
      * Calculate the amount of seconds set by user using the progress of the SeekBar
      *
+     * @param timer    The timer that is changed
      * @param progress The progress of the SeekBar, representing a value between 0 and 100
+     * @param step     The amount of seconds one step of the SeekBar changes
      * @return The amount of seconds currently chosen with the SeekBar
      */
-    private int convertProgressToSeconds(int progress, int step) {
-        int difference = mLiveDataTimer.getUpperBound() - mLiveDataTimer.getLowerBound();
+    private static int convertProgressToSeconds(LiveDataTimer timer, int progress, int step) {
+        int difference = timer.getUpperBound() - timer.getLowerBound();
         double progressValue = ((double) (difference)) * progress / PERCENT;
         int incrementValue = (int) Math.floor(progressValue / (double) step) * step;
 
-        return mLiveDataTimer.getLowerBound() + incrementValue;
+        return timer.getLowerBound() + incrementValue;
     }
 
     /**
      * Calculate the progress of the SeekBar using an amount of seconds
      *
+     * @param timer   The timer that is changed
      * @param seconds The amount of seconds currently chosen by the user
      * @return The amount of progress of the SeekBar
      */
-    private int convertSecondsToProgress(int seconds) {
-        int difference = mLiveDataTimer.getUpperBound() - mLiveDataTimer.getLowerBound();
-        int relativeDifference = seconds - mLiveDataTimer.getLowerBound();
+    private static int convertSecondsToProgress(LiveDataTimer timer, int seconds) {
+        int difference = timer.getUpperBound() - timer.getLowerBound();
+        int relativeDifference = seconds - timer.getLowerBound();
         return (int) ((relativeDifference / (double) difference) * PERCENT);
     }
 }
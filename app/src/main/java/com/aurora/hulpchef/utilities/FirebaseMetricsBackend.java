@@ -0,0 +1,68 @@
+package com.aurora.hulpchef.utilities;
+
+import com.google.firebase.perf.FirebasePerformance;
+import com.google.firebase.perf.metrics.Trace;
+
+import java.util.Map;
+
+/**
+ * Records the metrics of Hulpchef as custom traces of Firebase Performance Monitoring.
+ * <p>
+ * A timer is a trace that runs as long as the timer. Firebase has no counters or histograms
+ * of their own, so they are recorded as a short trace with the metric {@value #METRIC_COUNT}
+ * or {@value #METRIC_VALUE}, which the console aggregates per trace.
+ */
+public class FirebaseMetricsBackend implements Metrics.Backend {
+    /**
+     * The metric of a trace that holds the amount added to a counter.
+     */
+    private static final String METRIC_COUNT = "count";
+    /**
+     * The metric of a trace that holds the value recorded in a histogram.
+     */
+    private static final String METRIC_VALUE = "value";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object startTimer(String name) {
+        Trace trace = FirebasePerformance.getInstance().newTrace(name);
+        trace.start();
+        return trace;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void stopTimer(String name, Object handle, long durationMillis, Map<String, String> attributes) {
+        Trace trace = (Trace) handle;
+        for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+            trace.putAttribute(attribute.getKey(), attribute.getValue());
+        }
+        trace.stop();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void count(String name, long amount) {
+        Trace trace = FirebasePerformance.getInstance().newTrace(name);
+        trace.start();
+        trace.incrementMetric(METRIC_COUNT, amount);
+        trace.stop();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void record(String name, long value) {
+        Trace trace = FirebasePerformance.getInstance().newTrace(name);
+        trace.start();
+        trace.putMetric(METRIC_VALUE, value);
+        trace.stop();
+    }
+}
@@ -0,0 +1,141 @@
+package com.aurora.hulpchef.utilities;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+/**
+ * Counts the frames and janky frames drawn by a window between {@link #start(Window)} and
+ * {@link #stop(Window)}, and logs a summary when it stops. The summary is also recorded in
+ * {@link Metrics}, as histograms named after the label.
+ * <p>
+ * Used to compare how smooth an interaction is, like the first swipe through the steps,
+ * before and after a change. The frame metrics are delivered on a background thread,
+ * so counting does not add work to the main thread.
+ */
+public final class FrameJankTracker implements Window.OnFrameMetricsAvailableListener {
+    /**
+     * Tag for logging.
+     */
+    private static final String TAG = FrameJankTracker.class.getSimpleName();
+    /**
+     * The time a frame can take at 60 frames per second, in nanoseconds.
+     */
+    private static final long FRAME_BUDGET_NANOS = 16_666_667L;
+    /**
+     * Amount of nanoseconds in a millisecond.
+     */
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    /**
+     * The thread on which the frame metrics of all trackers are delivered.
+     */
+    private static HandlerThread sMetricsThread = null;
+
+    /**
+     * Name of the interaction that is tracked, used in the log.
+     */
+    private final String mLabel;
+    /**
+     * The amount of frames drawn while tracking.
+     */
+    private int mFrames = 0;
+    /**
+     * The amount of frames that took longer than the frame budget.
+     */
+    private int mJankyFrames = 0;
+    /**
+     * The longest frame, in nanoseconds.
+     */
+    private long mWorstFrameNanos = 0;
+    /**
+     * Whether the tracker is listening to a window.
+     */
+    private boolean mTracking = false;
+
+    /**
+     * Creates a tracker.
+     *
+     * @param label name of the interaction that is tracked, used in the log
+     */
+    public FrameJankTracker(String label) {
+        mLabel = label;
+    }
+
+    /**
+     * Start counting the frames of a window. Does nothing when already tracking.
+     *
+     * @param window the window to track
+     */
+    public synchronized void start(Window window) {
+        if (mTracking) {
+            return;
+        }
+        mTracking = true;
+        mFrames = 0;
+        mJankyFrames = 0;
+        mWorstFrameNanos = 0;
+        window.addOnFrameMetricsAvailableListener(this, getMetricsHandler());
+    }
+
+    /**
+     * Stop counting and log the summary. Does nothing when not tracking.
+     *
+     * @param window the window that was tracked
+     */
+    public synchronized void stop(Window window) {
+        if (!mTracking) {
+            return;
+        }
+        mTracking = false;
+        window.removeOnFrameMetricsAvailableListener(this);
+        Log.i(TAG, mLabel + ": " + mFrames + " frames, " + mJankyFrames + " janky, worst "
+                + mWorstFrameNanos / NANOS_PER_MILLI + "ms");
+        if (mFrames > 0) {
+            String metric = mLabel.replace(' ', '_');
+            Metrics metrics = Metrics.getInstance();
+            metrics.record(metric + "_frames", mFrames);
+            metrics.record(metric + "_janky_frames", mJankyFrames);
+            metrics.record(metric + "_worst_frame_ms", mWorstFrameNanos / NANOS_PER_MILLI);
+        }
+    }
+
+    /**
+     * Whether the tracker is counting frames.
+     *
+     * @return true between start and stop
+     */
+    public synchronized boolean isTracking() {
+        return mTracking;
+    }
+
+    @Override
+    public synchronized void onFrameMetricsAvailable(Window window, FrameMetrics frameMetrics,
+                                                     int dropCountSinceLastInvocation) {
+        if (!mTracking) {
+            return;
+        }
+        long duration = frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION);
+        mFrames++;
+        if (duration > FRAME_BUDGET_NANOS) {
+            mJankyFrames++;
+        }
+        mWorstFrameNanos = Math.max(mWorstFrameNanos, duration);
+        // frames the system could not report were dropped, so they were janky
+        mJankyFrames += dropCountSinceLastInvocation;
+    }
+
+    /**
+     * Get the handler of the thread on which the frame metrics are delivered.
+     *
+     * @return the handler, the thread is started the first time
+     */
+    private static synchronized Handler getMetricsHandler() {
+        if (sMetricsThread == null) {
+            sMetricsThread = new HandlerThread("FrameMetrics");
+            sMetricsThread.start();
+        }
+        return new Handler(sMetricsThread.getLooper());
+    }
+}
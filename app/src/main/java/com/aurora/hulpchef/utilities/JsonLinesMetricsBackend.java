@@ -0,0 +1,207 @@
+package com.aurora.hulpchef.utilities;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Records the metrics of Hulpchef in a local file, one JSON object per line, so they can be
+ * checked without a network, for example in tests or with {@code adb shell run-as}.
+ * <p>
+ * A line looks like {@code {"time":1556000000000,"type":"timer","name":"recipe_pipeline","millis":1234,
+ * "attributes":{"result":"success"}}}, with the type {@code timer}, {@code counter} or
+ * {@code histogram} and the field {@code millis}, {@code amount} or {@code value}.
+ * The lines are written on a background thread, in the order the metrics were recorded.
+ */
+public class JsonLinesMetricsBackend implements Metrics.Backend {
+    /**
+     * Tag for logging.
+     */
+    private static final String TAG = JsonLinesMetricsBackend.class.getSimpleName();
+    /**
+     * An existing file larger than this is started over, so it does not grow forever.
+     */
+    private static final long MAX_FILE_BYTES = 1024 * 1024;
+
+    /**
+     * Opens the writer, called once on the writing thread.
+     */
+    private final WriterFactory mWriterFactory;
+    /**
+     * Writes the lines, one at a time.
+     */
+    private final Executor mExecutor;
+    /**
+     * The writer, null until the first line is written.
+     */
+    private Writer mWriter = null;
+    /**
+     * Whether writing failed, after which nothing is written anymore.
+     */
+    private boolean mFailed = false;
+
+    /**
+     * Creates a backend that appends to a file.
+     *
+     * @param file the file to write to, it is created when needed
+     */
+    public JsonLinesMetricsBackend(File file) {
+        this(() -> openFile(file), Executors.newSingleThreadExecutor(
+                (Runnable runnable) -> new Thread(runnable, "JsonLinesMetricsBackend")));
+    }
+
+    /**
+     * Creates a backend that writes to any writer.
+     *
+     * @param writerFactory opens the writer, called once on the executor
+     * @param executor      runs the writing, one line at a time and in order
+     */
+    JsonLinesMetricsBackend(WriterFactory writerFactory, Executor executor) {
+        mWriterFactory = writerFactory;
+        mExecutor = executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object startTimer(String name) {
+        // only the duration is written, when the timer stops
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void stopTimer(String name, Object handle, long durationMillis, Map<String, String> attributes) {
+        StringBuilder line = startLine("timer", name).append(",\"millis\":").append(durationMillis);
+        if (!attributes.isEmpty()) {
+            line.append(",\"attributes\":{");
+            boolean first = true;
+            for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+                if (!first) {
+                    line.append(',');
+                }
+                first = false;
+                appendString(line, attribute.getKey()).append(':');
+                appendString(line, attribute.getValue());
+            }
+            line.append('}');
+        }
+        write(line);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void count(String name, long amount) {
+        write(startLine("counter", name).append(",\"amount\":").append(amount));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void record(String name, long value) {
+        write(startLine("histogram", name).append(",\"value\":").append(value));
+    }
+
+    /**
+     * Start a line with the time, type and name of a metric.
+     *
+     * @param type the type of the metric
+     * @param name the name of the metric
+     * @return the unfinished line
+     */
+    private static StringBuilder startLine(String type, String name) {
+        StringBuilder line = new StringBuilder("{\"time\":").append(System.currentTimeMillis())
+                .append(",\"type\":\"").append(type).append("\",\"name\":");
+        return appendString(line, name);
+    }
+
+    /**
+     * Append a string as a JSON string, with quotes and escapes.
+     *
+     * @param builder the builder to append to
+     * @param text    the string
+     * @return the builder
+     */
+    private static StringBuilder appendString(StringBuilder builder, String text) {
+        builder.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < ' ') {
+                builder.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"');
+    }
+
+    /**
+     * Finish a line and write it in the background.
+     *
+     * @param line the line without its closing brace
+     */
+    private void write(StringBuilder line) {
+        String text = line.append("}\n").toString();
+        mExecutor.execute(() -> {
+            if (mFailed) {
+                return;
+            }
+            try {
+                if (mWriter == null) {
+                    mWriter = mWriterFactory.open();
+                }
+                mWriter.write(text);
+                mWriter.flush();
+            } catch (IOException e) {
+                Log.w(TAG, "Writing metrics failed, no more metrics are written", e);
+                mFailed = true;
+            }
+        });
+    }
+
+    /**
+     * Open a file to append to, starting it over when it is too large.
+     *
+     * @param file the file
+     * @return a writer appending to the file
+     * @throws IOException when the file could not be opened
+     */
+    private static Writer openFile(File file) throws IOException {
+        File directory = file.getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        boolean append = file.length() < MAX_FILE_BYTES;
+        return new OutputStreamWriter(new FileOutputStream(file, append), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Opens the writer the lines are written to.
+     */
+    interface WriterFactory {
+        /**
+         * Open the writer.
+         *
+         * @return the writer
+         * @throws IOException when the writer could not be opened
+         */
+        Writer open() throws IOException;
+    }
+}
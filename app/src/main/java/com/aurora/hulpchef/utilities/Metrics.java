@@ -0,0 +1,210 @@
+package com.aurora.hulpchef.utilities;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A singleton class through which Hulpchef records its metrics: timers, counters and histograms.
+ * <p>
+ * The metrics are handed to the {@link Backend}s that are set, so where they end up can be chosen
+ * when Hulpchef starts, see {@link FirebaseMetricsBackend} and {@link JsonLinesMetricsBackend}.
+ * Without backends recording a metric does nothing. All methods can be called from any thread.
+ */
+public final class Metrics {
+    /**
+     * The singleton instance
+     */
+    private static final Metrics mInstance = new Metrics();
+
+    /**
+     * Where the metrics are recorded.
+     */
+    private volatile Backend[] mBackends = new Backend[0];
+
+    /**
+     * The private constructor for the Metrics-singleton
+     */
+    private Metrics() {
+        // Private constructor for singleton
+    }
+
+    /**
+     * Get the Metrics instance
+     *
+     * @return the instance
+     */
+    public static Metrics getInstance() {
+        return mInstance;
+    }
+
+    /**
+     * Set where the metrics are recorded, replacing the previous backends.
+     * Timers that are running keep recording to the backends they were started with.
+     *
+     * @param backends the backends
+     */
+    public void setBackends(Backend... backends) {
+        mBackends = backends.clone();
+    }
+
+    /**
+     * Start timing an operation. Call {@link Timer#stop()} when the operation is done.
+     *
+     * @param name the name of the timer, like {@code recipe_pipeline}
+     * @return the running timer
+     */
+    public Timer startTimer(String name) {
+        return new Timer(name, mBackends);
+    }
+
+    /**
+     * Increase a counter by one.
+     *
+     * @param name the name of the counter
+     */
+    public void count(String name) {
+        count(name, 1);
+    }
+
+    /**
+     * Increase a counter.
+     *
+     * @param name   the name of the counter
+     * @param amount the amount to add
+     */
+    public void count(String name, long amount) {
+        for (Backend backend : mBackends) {
+            backend.count(name, amount);
+        }
+    }
+
+    /**
+     * Record a value in a histogram, like a size or a duration that is measured elsewhere.
+     *
+     * @param name  the name of the histogram
+     * @param value the value
+     */
+    public void record(String name, long value) {
+        for (Backend backend : mBackends) {
+            backend.record(name, value);
+        }
+    }
+
+    /**
+     * Where the metrics are recorded.
+     */
+    public interface Backend {
+        /**
+         * A timer is started.
+         *
+         * @param name the name of the timer
+         * @return anything the backend needs to stop the timer, passed to
+         * {@link #stopTimer(String, Object, long, Map)}, may be null
+         */
+        Object startTimer(String name);
+
+        /**
+         * A timer is stopped.
+         *
+         * @param name           the name of the timer
+         * @param handle         what {@link #startTimer(String)} returned
+         * @param durationMillis how long the timer ran
+         * @param attributes     the attributes of the timer
+         */
+        void stopTimer(String name, Object handle, long durationMillis, Map<String, String> attributes);
+
+        /**
+         * A counter is increased.
+         *
+         * @param name   the name of the counter
+         * @param amount the amount that is added
+         */
+        void count(String name, long amount);
+
+        /**
+         * A value is recorded in a histogram.
+         *
+         * @param name  the name of the histogram
+         * @param value the value
+         */
+        void record(String name, long value);
+    }
+
+    /**
+     * A running timer. Stopping it records its duration in the backends it was started with.
+     */
+    public static final class Timer {
+        /**
+         * The name of the timer.
+         */
+        private final String mName;
+        /**
+         * The backends the timer was started with.
+         */
+        private final Backend[] mBackends;
+        /**
+         * What every backend returned when the timer was started.
+         */
+        private final Object[] mHandles;
+        /**
+         * The attributes of the timer, in order of adding.
+         */
+        private final Map<String, String> mAttributes = new LinkedHashMap<>();
+        /**
+         * The time the timer was started, in nanoseconds.
+         */
+        private final long mStartNanos;
+        /**
+         * Whether the timer is stopped.
+         */
+        private boolean mStopped = false;
+
+        /**
+         * Starts a timer, use {@link Metrics#startTimer(String)}.
+         *
+         * @param name     the name of the timer
+         * @param backends the backends to record the timer in
+         */
+        private Timer(String name, Backend[] backends) {
+            mName = name;
+            mBackends = backends;
+            mHandles = new Object[backends.length];
+            for (int i = 0; i < backends.length; i++) {
+                mHandles[i] = backends[i].startTimer(name);
+            }
+            mStartNanos = System.nanoTime();
+        }
+
+        /**
+         * Add an attribute to the timer, like the outcome of the operation.
+         *
+         * @param key   the key of the attribute
+         * @param value the value of the attribute
+         * @return this timer
+         */
+        public synchronized Timer putAttribute(String key, String value) {
+            mAttributes.put(key, value);
+            return this;
+        }
+
+        /**
+         * Stop the timer and record it. Stopping a timer that is already stopped does nothing.
+         */
+        public void stop() {
+            long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - mStartNanos);
+            Map<String, String> attributes;
+            synchronized (this) {
+                if (mStopped) {
+                    return;
+                }
+                mStopped = true;
+                attributes = Collections.unmodifiableMap(new LinkedHashMap<>(mAttributes));
+            }
+            for (int i = 0; i < mBackends.length; i++) {
+                mBackends[i].stopTimer(mName, mHandles[i], durationMillis, attributes);
+            }
+        }
+    }
+}
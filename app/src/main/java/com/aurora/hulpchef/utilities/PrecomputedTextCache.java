@@ -0,0 +1,134 @@
+package com.aurora.hulpchef.utilities;
+
+import android.os.AsyncTask;
+import android.support.v4.text.PrecomputedTextCompat;
+import android.support.v4.util.LruCache;
+import android.support.v4.widget.TextViewCompat;
+import android.support.v7.widget.AppCompatTextView;
+import android.widget.TextView;
+
+import java.util.Objects;
+import java.util.concurrent.Future;
+
+/**
+ * Measures the text of the steps and the description on a background thread, and keeps the
+ * measured text so it can be shown again without measuring it on the main thread.
+ * <p>
+ * The text is measured with {@link PrecomputedTextCompat}, which uses PrecomputedText on API 28
+ * and newer and measures the text in advance on older versions. The main thread only waits
+ * for the measured text when the TextView is measured before the background work is done.
+ * <p>
+ * The measured text is cached by text, amount of servings and the parameters it is measured with, so
+ * changing the amount of servings back and forth or swiping back to a step reuses the measured text.
+ * The measurement does not depend on the width of the TextView, the line breaks are made when it is laid out.
+ */
+public final class PrecomputedTextCache {
+    /**
+     * The singleton instance
+     */
+    private static final PrecomputedTextCache mInstance = new PrecomputedTextCache();
+    /**
+     * The amount of measured texts that are kept.
+     */
+    private static final int MAX_ENTRIES = 200;
+
+    /**
+     * The measured texts, or the work measuring them.
+     */
+    private final LruCache<Key, Future<PrecomputedTextCompat>> mCache = new LruCache<>(MAX_ENTRIES);
+
+    /**
+     * The private constructor for the PrecomputedTextCache-singleton
+     */
+    private PrecomputedTextCache() {
+        // Private constructor for singleton
+    }
+
+    /**
+     * Get the PrecomputedTextCache instance
+     *
+     * @return the instance
+     */
+    public static PrecomputedTextCache getInstance() {
+        return mInstance;
+    }
+
+    /**
+     * Show a text in a TextView, measuring it in the background when it is not cached.
+     * Must be called on the main thread.
+     *
+     * @param textView the TextView to show the text in
+     * @param text     the text to show
+     * @param servings the amount of servings the text was made for, 0 if it does not depend on it
+     */
+    public void setText(TextView textView, CharSequence text, int servings) {
+        if (!(textView instanceof AppCompatTextView)) {
+            // only AppCompatTextView can wait for measured text
+            textView.setText(text);
+            return;
+        }
+        PrecomputedTextCompat.Params params = TextViewCompat.getTextMetricsParams(textView);
+        Key key = new Key(text.toString(), servings, params);
+        Future<PrecomputedTextCompat> measured = mCache.get(key);
+        if (measured == null) {
+            measured = PrecomputedTextCompat.getTextFuture(text, params, AsyncTask.THREAD_POOL_EXECUTOR);
+            mCache.put(key, measured);
+        }
+        ((AppCompatTextView) textView).setTextFuture(measured);
+    }
+
+    /**
+     * Drop all measured texts, this is done when another recipe is shown.
+     */
+    public void clear() {
+        mCache.evictAll();
+    }
+
+    /**
+     * Key of a measured text in the cache.
+     */
+    private static final class Key {
+        /**
+         * The text.
+         */
+        private final String mText;
+        /**
+         * The amount of servings the text was made for.
+         */
+        private final int mServings;
+        /**
+         * The parameters the text was measured with.
+         */
+        private final PrecomputedTextCompat.Params mParams;
+
+        /**
+         * Creates a key.
+         *
+         * @param text     the text
+         * @param servings the amount of servings the text was made for
+         * @param params   the parameters the text is measured with
+         */
+        Key(String text, int servings, PrecomputedTextCompat.Params params) {
+            mText = text;
+            mServings = servings;
+            mParams = params;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return mServings == other.mServings && mText.equals(other.mText) && mParams.equals(other.mParams);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mText, mServings, mParams);
+        }
+    }
+}
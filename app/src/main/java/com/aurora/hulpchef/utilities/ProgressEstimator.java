@@ -0,0 +1,424 @@
+package com.aurora.hulpchef.utilities;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.aurora.auroralib.ExtractedText;
+import com.aurora.auroralib.Section;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A singleton class that estimates how long the stages of detecting a recipe take, from how long
+ * they took before on this device.
+ * <p>
+ * Every stage keeps a linear model of its duration against the size of the input, the amount of
+ * characters in the {@link ExtractedText}. The model is fit on the measured durations, where older
+ * measurements weigh less, and is kept in the shared preferences so the next run starts from it.
+ * Before a stage has been measured, a default duration is used.
+ * <p>
+ * The estimates are turned into an {@link Estimate}, which gives the progress and the remaining
+ * time at any moment, so the progress can be shown without polling the processor.
+ */
+public final class ProgressEstimator {
+    /**
+     * Creating the annotation pipelines, which does not depend on the input.
+     */
+    public static final String STAGE_PIPELINES = "pipelines";
+    /**
+     * Detecting the recipe in the extracted text, which grows with the input.
+     */
+    public static final String STAGE_DETECTION = "detection";
+    /**
+     * The progress when the work is done.
+     */
+    public static final int MAX_PROGRESS = 100;
+    /**
+     * Tag for logging.
+     */
+    private static final String TAG = ProgressEstimator.class.getSimpleName();
+    /**
+     * The name of the shared preferences the models are kept in.
+     */
+    private static final String PREFERENCES = "progress_estimates";
+    /**
+     * The duration of creating the pipelines before it was ever measured.
+     */
+    private static final long DEFAULT_PIPELINES_MILLIS = 6000;
+    /**
+     * The duration of detecting a recipe per character before it was ever measured.
+     */
+    private static final double DEFAULT_DETECTION_MILLIS_PER_CHAR = 2.0;
+    /**
+     * The input size used before any input was measured.
+     */
+    private static final int DEFAULT_INPUT_SIZE = 2000;
+    /**
+     * The singleton instance
+     */
+    private static final ProgressEstimator mInstance = new ProgressEstimator();
+
+    /**
+     * The model of every stage, by the name of the stage.
+     */
+    private final Map<String, StageModel> mModels = new HashMap<>();
+    /**
+     * The preferences the models are kept in, null until initialized.
+     */
+    private SharedPreferences mPreferences = null;
+
+    /**
+     * The private constructor for the ProgressEstimator-singleton
+     */
+    private ProgressEstimator() {
+        // Private constructor for singleton
+    }
+
+    /**
+     * Get the ProgressEstimator instance
+     *
+     * @return the instance
+     */
+    public static ProgressEstimator getInstance() {
+        return mInstance;
+    }
+
+    /**
+     * Load the models measured in earlier runs. Measurements before this are kept in memory only.
+     *
+     * @param context the context to get the shared preferences
+     */
+    public synchronized void initialize(Context context) {
+        if (mPreferences != null) {
+            return;
+        }
+        mPreferences = context.getApplicationContext().getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+        for (String stage : new String[]{STAGE_PIPELINES, STAGE_DETECTION}) {
+            StageModel stored = StageModel.parse(mPreferences.getString(stage, null));
+            if (stored != null && !mModels.containsKey(stage)) {
+                mModels.put(stage, stored);
+            }
+        }
+    }
+
+    /**
+     * Estimate how long a stage will take.
+     *
+     * @param stage     the name of the stage
+     * @param inputSize the amount of characters of the input, or -1 when it is not known yet
+     * @return the estimated duration in milliseconds
+     */
+    public synchronized long estimateMillis(String stage, int inputSize) {
+        StageModel model = mModels.get(stage);
+        int size = inputSize;
+        if (size < 0) {
+            size = model == null ? DEFAULT_INPUT_SIZE : model.getMeanInputSize();
+        }
+        if (model != null) {
+            return model.estimate(size);
+        }
+        if (STAGE_PIPELINES.equals(stage)) {
+            return DEFAULT_PIPELINES_MILLIS;
+        }
+        return Math.round(DEFAULT_DETECTION_MILLIS_PER_CHAR * size);
+    }
+
+    /**
+     * Add how long a stage took to its model and keep the model for the next run.
+     *
+     * @param stage     the name of the stage
+     * @param inputSize the amount of characters of the input
+     * @param millis    how long the stage took
+     */
+    public synchronized void recordStage(String stage, int inputSize, long millis) {
+        long estimated = estimateMillis(stage, inputSize);
+        StageModel model = mModels.get(stage);
+        if (model == null) {
+            model = new StageModel(!STAGE_PIPELINES.equals(stage));
+            mModels.put(stage, model);
+        }
+        model.add(inputSize, millis);
+        Log.d(TAG, stage + " took " + millis + "ms for " + inputSize + " chars, estimated " + estimated + "ms");
+        Metrics.getInstance().record(stage + "_estimate_error_ms", millis - estimated);
+        if (mPreferences != null) {
+            mPreferences.edit().putString(stage, model.toString()).apply();
+        }
+    }
+
+    /**
+     * Get the size of an input as used by the models.
+     *
+     * @param extractedText the input
+     * @return the amount of characters in the titles and bodies of the input
+     */
+    public static int inputSize(ExtractedText extractedText) {
+        int size = length(extractedText.getTitle());
+        if (extractedText.getSections() != null) {
+            for (Section section : extractedText.getSections()) {
+                size += length(section.getTitle()) + length(section.getBody());
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Get the length of a text that can be null.
+     *
+     * @param text the text
+     * @return the length, 0 for null
+     */
+    private static int length(String text) {
+        return text == null ? 0 : text.length();
+    }
+
+    /**
+     * A linear model of the duration of a stage against the size of the input, fit with weighted
+     * least squares. Every new measurement multiplies the weight of the earlier ones with
+     * {@value DECAY}, so the model follows the device when it gets slower or faster.
+     */
+    static final class StageModel {
+        /**
+         * The factor the weight of the earlier measurements is multiplied with on every measurement.
+         */
+        static final double DECAY = 0.8;
+        /**
+         * The input sizes should vary this much relative to their mean to fit a slope.
+         */
+        private static final double MIN_RELATIVE_SPREAD = 0.1;
+        /**
+         * The separator of the sums when the model is stored.
+         */
+        private static final String SEPARATOR = ",";
+
+        /**
+         * Whether the duration is proportional to the input when no slope can be fit.
+         */
+        private final boolean mScalesWithInput;
+        /**
+         * The sum of the weights.
+         */
+        private double mWeight = 0;
+        /**
+         * The weighted sum of the input sizes.
+         */
+        private double mSumSize = 0;
+        /**
+         * The weighted sum of the durations.
+         */
+        private double mSumMillis = 0;
+        /**
+         * The weighted sum of the squared input sizes.
+         */
+        private double mSumSizeSquared = 0;
+        /**
+         * The weighted sum of the input sizes times the durations.
+         */
+        private double mSumSizeMillis = 0;
+
+        /**
+         * Creates a model without measurements.
+         *
+         * @param scalesWithInput whether the duration is proportional to the input when no slope can be fit
+         */
+        StageModel(boolean scalesWithInput) {
+            mScalesWithInput = scalesWithInput;
+        }
+
+        /**
+         * Add a measurement.
+         *
+         * @param inputSize the size of the input
+         * @param millis    the duration
+         */
+        void add(int inputSize, long millis) {
+            mWeight = mWeight * DECAY + 1;
+            mSumSize = mSumSize * DECAY + inputSize;
+            mSumMillis = mSumMillis * DECAY + millis;
+            mSumSizeSquared = mSumSizeSquared * DECAY + (double) inputSize * inputSize;
+            mSumSizeMillis = mSumSizeMillis * DECAY + (double) inputSize * millis;
+        }
+
+        /**
+         * Estimate the duration for an input.
+         * <p>
+         * When the measured inputs vary enough, the fitted line is used. Otherwise the duration is
+         * scaled with the input if the stage scales with it, or the mean duration is used.
+         *
+         * @param inputSize the size of the input
+         * @return the estimated duration, at least 0
+         */
+        long estimate(int inputSize) {
+            double meanSize = mSumSize / mWeight;
+            double meanMillis = mSumMillis / mWeight;
+            double variance = mSumSizeSquared / mWeight - meanSize * meanSize;
+            double estimate;
+            double slope = variance > 0 ? (mSumSizeMillis / mWeight - meanSize * meanMillis) / variance : 0;
+            if (Math.sqrt(Math.max(variance, 0)) > MIN_RELATIVE_SPREAD * meanSize && slope >= 0) {
+                estimate = meanMillis + slope * (inputSize - meanSize);
+            } else if (mScalesWithInput && meanSize > 0) {
+                estimate = meanMillis / meanSize * inputSize;
+            } else {
+                estimate = meanMillis;
+            }
+            return Math.max(0, Math.round(estimate));
+        }
+
+        /**
+         * Get the weighted mean of the measured input sizes.
+         *
+         * @return the mean input size
+         */
+        int getMeanInputSize() {
+            return (int) Math.round(mSumSize / mWeight);
+        }
+
+        /**
+         * Read a model stored with {@link #toString()}.
+         *
+         * @param stored the stored model, can be null
+         * @return the model, or null when nothing or something invalid was stored
+         */
+        static StageModel parse(String stored) {
+            if (stored == null) {
+                return null;
+            }
+            String[] parts = stored.split(SEPARATOR);
+            if (parts.length != 6) {
+                return null;
+            }
+            try {
+                StageModel model = new StageModel(Boolean.parseBoolean(parts[0]));
+                model.mWeight = Double.parseDouble(parts[1]);
+                model.mSumSize = Double.parseDouble(parts[2]);
+                model.mSumMillis = Double.parseDouble(parts[3]);
+                model.mSumSizeSquared = Double.parseDouble(parts[4]);
+                model.mSumSizeMillis = Double.parseDouble(parts[5]);
+                return model.mWeight > 0 ? model : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Write the model so it can be read with {@link #parse(String)}.
+         *
+         * @return the stored model
+         */
+        @Override
+        public String toString() {
+            return mScalesWithInput + SEPARATOR + mWeight + SEPARATOR + mSumSize + SEPARATOR + mSumMillis
+                    + SEPARATOR + mSumSizeSquared + SEPARATOR + mSumSizeMillis;
+        }
+    }
+
+    /**
+     * The progress of the remaining work from a moment on, given how long that work is estimated
+     * to take.
+     * <p>
+     * The progress grows linearly to {@value LINEAR_END} percent of the way at the estimated end.
+     * When the work takes longer, it keeps slowing down towards {@value MAX_FRACTION}, so it never
+     * stands still and never reaches the end before the work is done.
+     */
+    public static final class Estimate {
+        /**
+         * The part of the remaining progress reached at the estimated end.
+         */
+        static final double LINEAR_END = 0.9;
+        /**
+         * The part of the remaining progress that is never passed while the work is running.
+         */
+        static final double MAX_FRACTION = 0.99;
+
+        /**
+         * The progress at the start, between 0 and {@value ProgressEstimator#MAX_PROGRESS}.
+         */
+        private final double mStartProgress;
+        /**
+         * The elapsed realtime at the start in milliseconds.
+         */
+        private final long mStartTime;
+        /**
+         * How long the remaining work is estimated to take in milliseconds.
+         */
+        private final long mEstimatedMillis;
+
+        /**
+         * Creates an estimate.
+         *
+         * @param startProgress   the progress at the start
+         * @param startTime       the elapsed realtime at the start
+         * @param estimatedMillis how long the remaining work is estimated to take
+         */
+        public Estimate(double startProgress, long startTime, long estimatedMillis) {
+            mStartProgress = startProgress;
+            mStartTime = startTime;
+            mEstimatedMillis = Math.max(1, estimatedMillis);
+        }
+
+        /**
+         * Get the progress at a moment.
+         *
+         * @param now the elapsed realtime
+         * @return the progress, between the start progress and {@value ProgressEstimator#MAX_PROGRESS}
+         */
+        public double progressAt(long now) {
+            double elapsed = Math.max(0, now - mStartTime);
+            double fraction;
+            if (elapsed <= mEstimatedMillis) {
+                fraction = LINEAR_END * elapsed / mEstimatedMillis;
+            } else {
+                double overtime = (elapsed - mEstimatedMillis) / mEstimatedMillis;
+                fraction = LINEAR_END + (MAX_FRACTION - LINEAR_END) * (1 - Math.exp(-overtime));
+            }
+            return mStartProgress + (MAX_PROGRESS - mStartProgress) * fraction;
+        }
+
+        /**
+         * Get the moment at which a progress is reached, the inverse of {@link #progressAt(long)}.
+         *
+         * @param progress the progress
+         * @return the elapsed realtime, or {@link Long#MAX_VALUE} when the progress is never reached
+         */
+        public long timeOfProgress(double progress) {
+            if (mStartProgress >= MAX_PROGRESS) {
+                return Long.MAX_VALUE;
+            }
+            double fraction = (progress - mStartProgress) / (MAX_PROGRESS - mStartProgress);
+            if (fraction <= 0) {
+                return mStartTime;
+            }
+            if (fraction >= MAX_FRACTION) {
+                return Long.MAX_VALUE;
+            }
+            double elapsed;
+            if (fraction <= LINEAR_END) {
+                elapsed = fraction / LINEAR_END * mEstimatedMillis;
+            } else {
+                double overtime = -Math.log(1 - (fraction - LINEAR_END) / (MAX_FRACTION - LINEAR_END));
+                elapsed = mEstimatedMillis * (1 + overtime);
+            }
+            return mStartTime + (long) Math.ceil(elapsed);
+        }
+
+        /**
+         * Get the estimated remaining time at a moment.
+         *
+         * @param now the elapsed realtime
+         * @return the remaining milliseconds, 0 when the estimated end has passed
+         */
+        public long remainingMillisAt(long now) {
+            return Math.max(0, mStartTime + mEstimatedMillis - now);
+        }
+
+        /**
+         * Get the elapsed realtime at which the remaining work is estimated to be done.
+         *
+         * @return the estimated end
+         */
+        public long getEstimatedEnd() {
+            return mStartTime + mEstimatedMillis;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.aurora.hulpchef.utilities;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact storage for the text of a recipe: all text lives in one char array, and pieces of it
+ * are referred to by (offset, length) spans instead of being copied into separate Strings.
+ * <p>
+ * Short strings that repeat a lot, like units and ingredient names, are interned by the
+ * {@link Builder}, so every occurrence shares the same span.
+ * A store is immutable once built and can be shared between threads.
+ */
+public final class RecipeTextStore {
+    /**
+     * Estimated size of the header of an array or object on the heap, in bytes.
+     */
+    private static final int OBJECT_HEADER_BYTES = 16;
+
+    /**
+     * All text of the store.
+     */
+    private final char[] mChars;
+
+    /**
+     * Creates a store, use a {@link Builder}.
+     *
+     * @param chars all text of the store
+     */
+    private RecipeTextStore(char[] chars) {
+        mChars = chars;
+    }
+
+    /**
+     * Get a view on a piece of the text, without copying it.
+     *
+     * @param offset the offset of the piece in the store
+     * @param length the length of the piece
+     * @return a CharSequence backed by the store
+     */
+    public TextSpan span(int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > mChars.length) {
+            throw new IndexOutOfBoundsException("span " + offset + "+" + length + " of " + mChars.length);
+        }
+        return new TextSpan(offset, length);
+    }
+
+    /**
+     * Append a piece of the text to a StringBuilder, without creating intermediate objects.
+     *
+     * @param builder the builder to append to
+     * @param offset  the offset of the piece in the store
+     * @param length  the length of the piece
+     */
+    public void appendTo(StringBuilder builder, int offset, int length) {
+        builder.append(mChars, offset, length);
+    }
+
+    /**
+     * Check whether two pieces of text, possibly from different stores, are equal.
+     *
+     * @param offset      the offset of the piece in this store
+     * @param other       the store of the other piece
+     * @param otherOffset the offset of the other piece
+     * @param length      the length of both pieces
+     * @return true if the pieces hold the same characters
+     */
+    public boolean regionEquals(int offset, RecipeTextStore other, int otherOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            if (mChars[offset + i] != other.mChars[otherOffset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the amount of characters in the store.
+     *
+     * @return the length of all text
+     */
+    public int length() {
+        return mChars.length;
+    }
+
+    /**
+     * Estimate the memory the text of the store takes on the heap.
+     *
+     * @return the estimated size in bytes
+     */
+    public long getFootprintBytes() {
+        return OBJECT_HEADER_BYTES + (long) Character.BYTES * mChars.length;
+    }
+
+    /**
+     * A piece of the text of the store, which does not copy the characters.
+     */
+    public final class TextSpan implements CharSequence {
+        /**
+         * The offset of the piece in the store.
+         */
+        private final int mOffset;
+        /**
+         * The length of the piece.
+         */
+        private final int mLength;
+
+        /**
+         * Creates a span, use {@link RecipeTextStore#span(int, int)}.
+         *
+         * @param offset the offset of the piece in the store
+         * @param length the length of the piece
+         */
+        private TextSpan(int offset, int length) {
+            mOffset = offset;
+            mLength = length;
+        }
+
+        /**
+         * Get the offset of the piece in the store.
+         *
+         * @return the offset
+         */
+        public int getOffset() {
+            return mOffset;
+        }
+
+        @Override
+        public int length() {
+            return mLength;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= mLength) {
+                throw new IndexOutOfBoundsException("index " + index + ", length " + mLength);
+            }
+            return mChars[mOffset + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > mLength || start > end) {
+                throw new IndexOutOfBoundsException("subSequence " + start + "-" + end + ", length " + mLength);
+            }
+            return new TextSpan(mOffset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(mChars, mOffset, mLength);
+        }
+    }
+
+    /**
+     * Collects the text of a recipe into one store.
+     */
+    public static final class Builder {
+        /**
+         * The text collected so far.
+         */
+        private final StringBuilder mText = new StringBuilder();
+        /**
+         * The offset of every interned string.
+         */
+        private final Map<String, Integer> mInterned = new HashMap<>();
+
+        /**
+         * Add a text to the store.
+         *
+         * @param text the text
+         * @return the offset of the text in the store
+         */
+        public int append(CharSequence text) {
+            int offset = mText.length();
+            mText.append(text);
+            return offset;
+        }
+
+        /**
+         * Add a text to the store only once, for text that repeats like units and names.
+         *
+         * @param text the text
+         * @return the offset of the text in the store, the same for every equal text
+         */
+        public int intern(String text) {
+            Integer offset = mInterned.get(text);
+            if (offset == null) {
+                offset = append(text);
+                mInterned.put(text, offset);
+            }
+            return offset;
+        }
+
+        /**
+         * Create the store with all text added so far.
+         *
+         * @return the store
+         */
+        public RecipeTextStore build() {
+            char[] chars = new char[mText.length()];
+            mText.getChars(0, chars.length, chars, 0);
+            return new RecipeTextStore(chars);
+        }
+    }
+}
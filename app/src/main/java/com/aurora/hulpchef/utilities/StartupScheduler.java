@@ -0,0 +1,311 @@
+package com.aurora.hulpchef.utilities;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * A singleton class that runs the initialisers of Hulpchef, so only the work needed for the first
+ * frame runs before it.
+ * <p>
+ * Every initialiser is declared with a name, the thread it runs on, when it runs and the
+ * initialisers it depends on. Initialisers that are not needed for the first frame run after the
+ * first draw, or earlier when they are first used through {@link #ensureInitialised(String, Context)}.
+ * An initialiser only runs once, after all its dependencies, and the time it took is recorded.
+ * An initialiser that fails is logged and counts as failed, the initialisers depending on it do
+ * not run.
+ */
+public final class StartupScheduler {
+    /**
+     * Tag for logging.
+     */
+    private static final String TAG = StartupScheduler.class.getSimpleName();
+    /**
+     * The singleton instance
+     */
+    private static final StartupScheduler mInstance = new StartupScheduler();
+
+    /**
+     * The thread an initialiser runs on, when it is scheduled.
+     */
+    public enum Affinity {
+        /**
+         * Runs on the main thread, for work that touches views.
+         */
+        MAIN,
+        /**
+         * Runs on a background thread.
+         */
+        BACKGROUND
+    }
+
+    /**
+     * When an initialiser runs.
+     */
+    public enum When {
+        /**
+         * When {@link #start(Activity)} is called, before the first frame.
+         */
+        IMMEDIATELY,
+        /**
+         * After the first frame of the activity is drawn.
+         */
+        AFTER_FIRST_DRAW
+    }
+
+    /**
+     * The work of an initialiser.
+     */
+    public interface Initialiser {
+        /**
+         * Initialise a part of Hulpchef.
+         *
+         * @param context the application context
+         */
+        void initialise(Context context);
+    }
+
+    /**
+     * The registered initialisers, in order of registration.
+     */
+    private final Map<String, Node> mNodes = new LinkedHashMap<>();
+    /**
+     * The time every initialiser took in milliseconds, in order of completion.
+     */
+    private final Map<String, Long> mDurations = Collections.synchronizedMap(new LinkedHashMap<>());
+    /**
+     * Runs work on the main thread.
+     */
+    private final Executor mMainExecutor = new Handler(Looper.getMainLooper())::post;
+    /**
+     * The application context, set by {@link #start(Activity)} or the first
+     * {@link #ensureInitialised(String, Context)}.
+     */
+    private volatile Context mContext = null;
+
+    /**
+     * The private constructor for the StartupScheduler-singleton
+     */
+    private StartupScheduler() {
+        // Private constructor for singleton
+    }
+
+    /**
+     * Get the StartupScheduler instance
+     *
+     * @return the instance
+     */
+    public static StartupScheduler getInstance() {
+        return mInstance;
+    }
+
+    /**
+     * Declare an initialiser. Registering a name a second time is ignored, so activities can
+     * register their initialisers every time they are created.
+     *
+     * @param name         the unique name of the initialiser
+     * @param affinity     the thread the initialiser runs on when it is scheduled
+     * @param when         when the initialiser runs
+     * @param initialiser  the work of the initialiser
+     * @param dependencies the names of the initialisers that must have run before, must be registered before
+     */
+    public synchronized void register(String name, Affinity affinity, When when, Initialiser initialiser,
+                                      String... dependencies) {
+        if (mNodes.containsKey(name)) {
+            return;
+        }
+        List<Node> dependencyNodes = new ArrayList<>(dependencies.length);
+        for (String dependency : dependencies) {
+            Node node = mNodes.get(dependency);
+            if (node == null) {
+                throw new IllegalArgumentException("Unknown dependency " + dependency + " of " + name);
+            }
+            dependencyNodes.add(node);
+        }
+        mNodes.put(name, new Node(name, affinity, when, initialiser, dependencyNodes));
+    }
+
+    /**
+     * Run the initialisers that are needed immediately and schedule the ones that run after
+     * the first frame of the activity is drawn.
+     *
+     * @param activity the activity that is starting
+     */
+    public void start(Activity activity) {
+        List<Node> immediately = new ArrayList<>();
+        List<Node> afterFirstDraw = new ArrayList<>();
+        synchronized (this) {
+            mContext = activity.getApplicationContext();
+            for (Node node : mNodes.values()) {
+                if (node.mWhen == When.IMMEDIATELY) {
+                    immediately.add(node);
+                } else if (node.mWhen == When.AFTER_FIRST_DRAW) {
+                    afterFirstDraw.add(node);
+                }
+            }
+        }
+        // Needed for the first frame, so run them now on the calling thread
+        for (Node node : immediately) {
+            node.run();
+        }
+
+        View decorView = activity.getWindow().getDecorView();
+        decorView.getViewTreeObserver().addOnDrawListener(new ViewTreeObserver.OnDrawListener() {
+            /**
+             * Whether the first draw was seen already.
+             */
+            private boolean mDrawn = false;
+
+            @Override
+            public void onDraw() {
+                if (mDrawn) {
+                    return;
+                }
+                mDrawn = true;
+                // listeners can not be removed while drawing, and the frame is not finished yet
+                decorView.post(() -> {
+                    decorView.getViewTreeObserver().removeOnDrawListener(this);
+                    for (Node node : afterFirstDraw) {
+                        schedule(node);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Make sure an initialiser has run, running it and its dependencies on the calling thread
+     * when it has not run yet. Call this before first using what the initialiser prepares, also
+     * when no activity was started, for example in a broadcast receiver.
+     *
+     * @param name    the name of the initialiser
+     * @param context a context, its application context is used when no activity was started
+     * @return true when the initialiser ran successfully, now or before
+     */
+    public boolean ensureInitialised(String name, Context context) {
+        Node node;
+        synchronized (this) {
+            if (mContext == null) {
+                mContext = context.getApplicationContext();
+            }
+            node = mNodes.get(name);
+        }
+        if (node == null) {
+            throw new IllegalArgumentException("Unknown initialiser " + name);
+        }
+        node.run();
+        return !node.mDone.isCompletedExceptionally();
+    }
+
+    /**
+     * Get the time the initialisers took.
+     *
+     * @return a copy of the durations in milliseconds by name, in order of completion
+     */
+    public Map<String, Long> getDurations() {
+        synchronized (mDurations) {
+            return new LinkedHashMap<>(mDurations);
+        }
+    }
+
+    /**
+     * Run an initialiser on the thread of its affinity, after its dependencies are done. When a
+     * dependency failed, the initialiser still gets to log that it is skipped.
+     *
+     * @param node the initialiser
+     */
+    private void schedule(Node node) {
+        List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+        for (Node dependency : node.mDependencies) {
+            schedule(dependency);
+            dependencies.add(dependency.mDone);
+        }
+        Executor executor = node.mAffinity == Affinity.MAIN ? mMainExecutor : AsyncTask.THREAD_POOL_EXECUTOR;
+        CompletableFuture.allOf(dependencies.toArray(new CompletableFuture[0]))
+                .whenCompleteAsync((Void done, Throwable failure) -> node.run(), executor);
+    }
+
+    /**
+     * A registered initialiser.
+     */
+    private final class Node {
+        /**
+         * The name of the initialiser.
+         */
+        private final String mName;
+        /**
+         * The thread the initialiser runs on when it is scheduled.
+         */
+        private final Affinity mAffinity;
+        /**
+         * When the initialiser runs.
+         */
+        private final When mWhen;
+        /**
+         * The work of the initialiser.
+         */
+        private final Initialiser mInitialiser;
+        /**
+         * The initialisers that must run before this one.
+         */
+        private final List<Node> mDependencies;
+        /**
+         * Completes when the initialiser has run.
+         */
+        private final CompletableFuture<Void> mDone = new CompletableFuture<>();
+
+        /**
+         * Creates a node.
+         */
+        Node(String name, Affinity affinity, When when, Initialiser initialiser, List<Node> dependencies) {
+            mName = name;
+            mAffinity = affinity;
+            mWhen = when;
+            mInitialiser = initialiser;
+            mDependencies = dependencies;
+        }
+
+        /**
+         * Run the dependencies and the initialiser on the calling thread, unless they already ran.
+         * A failure is logged here, because on a pool thread it would be lost.
+         */
+        synchronized void run() {
+            if (mDone.isDone()) {
+                return;
+            }
+            for (Node dependency : mDependencies) {
+                dependency.run();
+                if (dependency.mDone.isCompletedExceptionally()) {
+                    Log.e(TAG, mName + " not initialised, " + dependency.mName + " failed");
+                    mDone.completeExceptionally(new IllegalStateException(dependency.mName + " failed"));
+                    return;
+                }
+            }
+            long start = SystemClock.elapsedRealtime();
+            try {
+                mInitialiser.initialise(mContext);
+                long duration = SystemClock.elapsedRealtime() - start;
+                mDurations.put(mName, duration);
+                Log.d(TAG, mName + " initialised in " + duration + "ms on " + Thread.currentThread().getName());
+                mDone.complete(null);
+            } catch (RuntimeException e) {
+                Log.e(TAG, mName + " failed on " + Thread.currentThread().getName(), e);
+                mDone.completeExceptionally(e);
+            }
+        }
+    }
+}
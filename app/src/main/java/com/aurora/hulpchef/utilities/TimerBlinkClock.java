@@ -0,0 +1,179 @@
+package com.aurora.hulpchef.utilities;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A singleton clock that makes all alarming timers blink in the same rhythm.
+ * <p>
+ * Only one callback is posted on the main thread, regardless of the amount of alarming timers.
+ * The clock stops itself when the last listener unsubscribes.
+ */
+public final class TimerBlinkClock {
+    /**
+     * The time it takes before the color of an alarming timer changes.
+     */
+    static final int BLINK_INTERVAL_MILLIS = 250;
+
+    /**
+     * The singleton instance
+     */
+    private static final TimerBlinkClock mInstance = new TimerBlinkClock(new MainThreadScheduler());
+
+    /**
+     * Schedules the ticks of the clock
+     */
+    private final Scheduler mScheduler;
+
+    /**
+     * The listeners that are notified on every tick
+     */
+    private final List<BlinkListener> mListeners = new ArrayList<>();
+
+    /**
+     * The runnable that is posted for every tick
+     */
+    private final Runnable mTick = this::tick;
+
+    /**
+     * A boolean representing whether the blinking timers currently show the dark color
+     */
+    private boolean mDark = true;
+
+    /**
+     * A boolean representing whether a tick is currently scheduled
+     */
+    private boolean mRunning = false;
+
+    /**
+     * Creates a clock that uses the given scheduler to post its ticks
+     *
+     * @param scheduler the scheduler for the ticks
+     */
+    TimerBlinkClock(Scheduler scheduler) {
+        mScheduler = scheduler;
+    }
+
+    /**
+     * Get the TimerBlinkClock instance
+     *
+     * @return the instance
+     */
+    public static TimerBlinkClock getInstance() {
+        return mInstance;
+    }
+
+    /**
+     * Let a listener follow the clock. Starts the clock if it was not running.
+     *
+     * @param listener the listener to notify on every tick
+     */
+    public void subscribe(BlinkListener listener) {
+        if (!mListeners.contains(listener)) {
+            mListeners.add(listener);
+        }
+        if (!mRunning) {
+            mRunning = true;
+            mScheduler.postDelayed(mTick, BLINK_INTERVAL_MILLIS);
+        }
+    }
+
+    /**
+     * Stop notifying a listener. Stops the clock when no listeners are left.
+     *
+     * @param listener the listener to remove
+     */
+    public void unsubscribe(BlinkListener listener) {
+        mListeners.remove(listener);
+        if (mListeners.isEmpty() && mRunning) {
+            mScheduler.removeCallbacks(mTick);
+            mRunning = false;
+            mDark = true;
+        }
+    }
+
+    /**
+     * Returns true if the clock has a tick scheduled
+     *
+     * @return boolean representing whether the clock is running
+     */
+    public boolean isRunning() {
+        return mRunning;
+    }
+
+    /**
+     * Flip the color and notify all listeners, then schedule the next tick
+     */
+    private void tick() {
+        mDark = !mDark;
+        // Indexed loop, so no iterator is allocated every tick
+        for (int i = 0; i < mListeners.size(); i++) {
+            mListeners.get(i).onBlink(mDark);
+        }
+        if (mListeners.isEmpty()) {
+            mRunning = false;
+        } else {
+            mScheduler.postDelayed(mTick, BLINK_INTERVAL_MILLIS);
+        }
+    }
+
+    /**
+     * Listener that is notified on every tick of the clock
+     */
+    public interface BlinkListener {
+        /**
+         * Called on every tick of the clock
+         *
+         * @param dark true if the dark color must be shown, false otherwise
+         */
+        void onBlink(boolean dark);
+    }
+
+    /**
+     * Abstraction of the main thread handler, so the clock can be tested without a Looper
+     */
+    interface Scheduler {
+        /**
+         * Post a runnable after a delay
+         *
+         * @param runnable    the runnable to post
+         * @param delayMillis the delay in milliseconds
+         */
+        void postDelayed(Runnable runnable, long delayMillis);
+
+        /**
+         * Remove a posted runnable
+         *
+         * @param runnable the runnable to remove
+         */
+        void removeCallbacks(Runnable runnable);
+    }
+
+    /**
+     * Scheduler that posts on the main thread
+     */
+    private static final class MainThreadScheduler implements Scheduler {
+        /**
+         * The handler of the main thread, created on first use
+         */
+        private Handler mHandler = null;
+
+        @Override
+        public void postDelayed(Runnable runnable, long delayMillis) {
+            if (mHandler == null) {
+                mHandler = new Handler(Looper.getMainLooper());
+            }
+            mHandler.postDelayed(runnable, delayMillis);
+        }
+
+        @Override
+        public void removeCallbacks(Runnable runnable) {
+            if (mHandler != null) {
+                mHandler.removeCallbacks(runnable);
+            }
+        }
+    }
+}
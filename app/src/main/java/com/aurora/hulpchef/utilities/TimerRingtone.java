@@ -12,6 +12,10 @@ import java.util.concurrent.atomic.AtomicInteger;
  * A singleton class for the Ringtone playing when one or multiple timers finishes
  */
 public final class TimerRingtone {
+    /**
+     * Name of the startup initialiser that looks up the ringtone.
+     */
+    public static final String INITIALISER = "ringtone";
     /**
      * The singleton instance
      */
@@ -32,6 +36,12 @@ public final class TimerRingtone {
      */
     private boolean mInitialized = false;
 
+    /**
+     * A boolean representing whether the Ringtone was started by an alarm, before any timer in the UI
+     * took over the ringing
+     */
+    private boolean mRingingFromBackground = false;
+
     /**
      * The private constructor for the TimerRingtone-singleton
      */
@@ -49,10 +59,24 @@ public final class TimerRingtone {
     }
 
     /**
-     * Initiate the TimerRingtone with a Context
+     * Declare the initialiser that looks up the ringtone in the {@link StartupScheduler}. It runs in
+     * the background after the first frame, or earlier through
+     * {@link StartupScheduler#ensureInitialised(String, Context)} when a timer rings first.
+     * Declaring it again is ignored.
+     */
+    public static void registerInitialiser() {
+        // Looking up the ringtone does three RingtoneManager lookups, only needed when a timer rings
+        StartupScheduler.getInstance().register(INITIALISER, StartupScheduler.Affinity.BACKGROUND,
+                StartupScheduler.When.AFTER_FIRST_DRAW, (Context context) -> mInstance.initialize(context));
+    }
+
+    /**
+     * Initiate the TimerRingtone with a Context. Looking up the ringtone is slow, so this is done
+     * after the first frame by the {@link StartupScheduler}, or when a timer first rings.
+     * Can be called from any thread, only the first call does the work.
      * @param context The context to which the Ringtone is connected
      */
-    public void initialize(Context context) {
+    public synchronized void initialize(Context context) {
         if (!mInitialized) {
             // Preparing the ringtone for the alarm
             Uri alert = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
@@ -79,10 +103,41 @@ public final class TimerRingtone {
      * Add a ringing timer to the Ringtone
      */
     public void addRingingTimer() {
+        // The timer in the UI now controls the ringing that was started by the alarm
+        mRingingFromBackground = false;
         mAmountRinging.incrementAndGet();
         updateRingtone();
     }
 
+    /**
+     * Start ringing because a timer went off while no timer in the UI was ringing, for example
+     * because the process was reclaimed while the timer was running.
+     * <p>
+     * The ringing continues until {@link #stopRingingFromBackground()} is called, or a timer in the
+     * UI is added and removed again.
+     *
+     * @return true when the ringing was started, false when a timer in the UI is ringing already
+     */
+    public synchronized boolean ringFromBackground() {
+        if (mAmountRinging.get() == 0) {
+            mRingingFromBackground = true;
+            updateRingtone();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Stop the ringing started by {@link #ringFromBackground()}, because the timer that went off
+     * was dismissed. Timers in the UI that are ringing keep ringing.
+     */
+    public synchronized void stopRingingFromBackground() {
+        if (mRingingFromBackground) {
+            mRingingFromBackground = false;
+            updateRingtone();
+        }
+    }
+
     /**
      * Remove a ringing timer from the Ringtone
      */
@@ -95,9 +150,14 @@ public final class TimerRingtone {
      * Update the Ringtone according to the amount of ringing timers
      */
     private void updateRingtone() {
-        if (mAmountRinging.get() > 0 && !mRingtone.isPlaying()) {
+        if (mRingtone == null) {
+            // looking up the ringtone failed, the StartupScheduler logged why
+            return;
+        }
+        boolean mustRing = mAmountRinging.get() > 0 || mRingingFromBackground;
+        if (mustRing && !mRingtone.isPlaying()) {
             mRingtone.play();
-        } else if (mAmountRinging.get() == 0 && mRingtone.isPlaying()) {
+        } else if (!mustRing && mRingtone.isPlaying()) {
             mRingtone.stop();
         }
     }
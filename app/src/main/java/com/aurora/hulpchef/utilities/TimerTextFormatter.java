@@ -0,0 +1,137 @@
+package com.aurora.hulpchef.utilities;
+
+/**
+ * Formats the time left on a timer as H:MM:SS (or MM:SS when there are no hours).
+ * <p>
+ * The text is written into a reusable char array, so formatting a tick of a running timer
+ * does not allocate. Keep one formatter per timer view and pass {@link #getChars()} to
+ * {@link android.widget.TextView#setText(char[], int, int)}.
+ */
+public final class TimerTextFormatter implements CharSequence {
+    /**
+     * The amount of milliseconds in a second.
+     */
+    private static final int MILLIS = 1000;
+    /**
+     * Amount of seconds in a minute and minutes in an hour.
+     */
+    private static final int TIME_BABIES = 60;
+    /**
+     * Radix of the digits that are written.
+     */
+    private static final int RADIX = 10;
+    /**
+     * Enough room for the largest amount of hours in a long of milliseconds, followed by ":MM:SS".
+     */
+    private static final int MAX_LENGTH = 24;
+
+    /**
+     * The buffer holding the formatted text.
+     */
+    private final char[] mChars = new char[MAX_LENGTH];
+    /**
+     * The amount of valid characters in the buffer.
+     */
+    private int mLength = 0;
+    /**
+     * The amount of seconds currently in the buffer, -1 if nothing has been formatted yet.
+     */
+    private long mFormattedSeconds = -1;
+
+    /**
+     * Write the given time into the buffer.
+     *
+     * @param amountMilliSeconds the amount of milliseconds to format
+     * @return true if the visible text changed, false if the buffer already held this text
+     */
+    public boolean format(long amountMilliSeconds) {
+        long amountSeconds = Math.max(0, amountMilliSeconds / MILLIS);
+        if (amountSeconds == mFormattedSeconds) {
+            return false;
+        }
+        mFormattedSeconds = amountSeconds;
+
+        long amountHours = amountSeconds / TIME_BABIES / TIME_BABIES;
+        int amountMins = (int) (amountSeconds % (TIME_BABIES * TIME_BABIES)) / TIME_BABIES;
+        int amountSec = (int) (amountSeconds % TIME_BABIES);
+
+        mLength = 0;
+        // Only add hours when there are hours.
+        if (amountHours != 0) {
+            writeNumber(amountHours);
+            mChars[mLength++] = ':';
+        }
+        writeTwoDigits(amountMins);
+        mChars[mLength++] = ':';
+        writeTwoDigits(amountSec);
+        return true;
+    }
+
+    /**
+     * Forget the formatted time, so the next call to {@link #format(long)} always reports a change.
+     * Used when the view of this formatter starts showing another timer.
+     */
+    public void reset() {
+        mFormattedSeconds = -1;
+    }
+
+    /**
+     * Get the buffer of this formatter. Only the first {@link #length()} characters are valid.
+     *
+     * @return the backing char array, not a copy
+     */
+    public char[] getChars() {
+        return mChars;
+    }
+
+    @Override
+    public int length() {
+        return mLength;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= mLength) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + mLength);
+        }
+        return mChars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new String(mChars, start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(mChars, 0, mLength);
+    }
+
+    /**
+     * Append a number between 0 and 99 with a leading zero.
+     *
+     * @param number the number to append
+     */
+    private void writeTwoDigits(int number) {
+        mChars[mLength++] = (char) ('0' + number / RADIX);
+        mChars[mLength++] = (char) ('0' + number % RADIX);
+    }
+
+    /**
+     * Append a positive number without leading zeros.
+     *
+     * @param number the number to append
+     */
+    private void writeNumber(long number) {
+        int digits = 1;
+        for (long rest = number / RADIX; rest != 0; rest /= RADIX) {
+            digits++;
+        }
+        long rest = number;
+        for (int i = mLength + digits - 1; i >= mLength; i--) {
+            mChars[i] = (char) ('0' + rest % RADIX);
+            rest /= RADIX;
+        }
+        mLength += digits;
+    }
+}
@@ -0,0 +1,206 @@
+package com.aurora.hulpchef.utilities;
+
+import android.os.Trace;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import com.aurora.hulpchef.BuildConfig;
+
+import java.lang.reflect.Method;
+
+/**
+ * Named sections in a systrace, to see where the time of cold start and rendering the tabs goes.
+ * <p>
+ * Synchronous sections begin and end on the same thread, like {@link Trace#beginSection(String)}.
+ * Asynchronous sections can end on another thread or in a later frame, they are told apart by
+ * their name and cookie. The SDK Hulpchef compiles against has no public method for these, so
+ * they use the hidden methods of {@link Trace} that the framework itself uses; when those are not
+ * there, the asynchronous sections are left out.
+ * <p>
+ * The sections are only recorded in debug builds. In release builds every method returns on
+ * the constant {@link #ENABLED}, so the calls cost nothing and can be left in the code.
+ */
+public final class TraceSections {
+    /**
+     * Whether the sections are recorded.
+     */
+    public static final boolean ENABLED = BuildConfig.DEBUG;
+    /**
+     * Tag for logging.
+     */
+    private static final String TAG = TraceSections.class.getSimpleName();
+    /**
+     * The trace tag of apps, {@code Trace.TRACE_TAG_APP}.
+     */
+    private static final long TRACE_TAG_APP = 1L << 12;
+    /**
+     * The longest name a section can have.
+     */
+    private static final int MAX_NAME_LENGTH = 127;
+
+    /**
+     * The hidden method to begin an asynchronous section, null when it is not there.
+     */
+    private static Method sAsyncTraceBegin = null;
+    /**
+     * The hidden method to end an asynchronous section, null when it is not there.
+     */
+    private static Method sAsyncTraceEnd = null;
+    /**
+     * Whether the hidden methods are looked up.
+     */
+    private static boolean sAsyncMethodsResolved = false;
+
+    /**
+     * Private constructor, this class only has static methods.
+     */
+    private TraceSections() {
+        throw new IllegalStateException("Utility Class");
+    }
+
+    /**
+     * Begin a section on the calling thread, end it with {@link #end()} on the same thread.
+     *
+     * @param name the name of the section
+     */
+    public static void begin(String name) {
+        if (!ENABLED) {
+            return;
+        }
+        Trace.beginSection(truncate(name));
+    }
+
+    /**
+     * End the last section that was begun on the calling thread.
+     */
+    public static void end() {
+        if (!ENABLED) {
+            return;
+        }
+        Trace.endSection();
+    }
+
+    /**
+     * Begin a section that can end on another thread, end it with {@link #endAsync(String, int)}.
+     *
+     * @param name   the name of the section
+     * @param cookie tells sections with the same name apart that overlap
+     */
+    public static void beginAsync(String name, int cookie) {
+        if (!ENABLED) {
+            return;
+        }
+        invokeHidden(getAsyncTraceBegin(), name, cookie);
+    }
+
+    /**
+     * End a section that was begun with {@link #beginAsync(String, int)}.
+     *
+     * @param name   the name of the section
+     * @param cookie the cookie the section was begun with
+     */
+    public static void endAsync(String name, int cookie) {
+        if (!ENABLED) {
+            return;
+        }
+        invokeHidden(getAsyncTraceEnd(), name, cookie);
+    }
+
+    /**
+     * Begin an asynchronous section now and end it when a view draws its first frame.
+     *
+     * @param view the view
+     * @param name the name of the section
+     */
+    public static void traceUntilFirstDraw(View view, String name) {
+        if (!ENABLED) {
+            return;
+        }
+        int cookie = System.identityHashCode(view);
+        beginAsync(name, cookie);
+        view.getViewTreeObserver().addOnDrawListener(new ViewTreeObserver.OnDrawListener() {
+            /**
+             * Whether the first draw was seen already.
+             */
+            private boolean mDrawn = false;
+
+            @Override
+            public void onDraw() {
+                if (mDrawn) {
+                    return;
+                }
+                mDrawn = true;
+                endAsync(name, cookie);
+                // listeners can not be removed while drawing
+                view.post(() -> view.getViewTreeObserver().removeOnDrawListener(this));
+            }
+        });
+    }
+
+    /**
+     * Call a hidden asynchronous trace method.
+     *
+     * @param method the method, does nothing when null
+     * @param name   the name of the section
+     * @param cookie the cookie of the section
+     */
+    private static void invokeHidden(Method method, String name, int cookie) {
+        if (method == null) {
+            return;
+        }
+        try {
+            method.invoke(null, TRACE_TAG_APP, truncate(name), cookie);
+        } catch (ReflectiveOperationException e) {
+            Log.w(TAG, "Could not trace " + name, e);
+        }
+    }
+
+    /**
+     * Get the hidden method to begin an asynchronous section.
+     *
+     * @return the method, null when it is not there
+     */
+    private static synchronized Method getAsyncTraceBegin() {
+        resolveAsyncMethods();
+        return sAsyncTraceBegin;
+    }
+
+    /**
+     * Get the hidden method to end an asynchronous section.
+     *
+     * @return the method, null when it is not there
+     */
+    private static synchronized Method getAsyncTraceEnd() {
+        resolveAsyncMethods();
+        return sAsyncTraceEnd;
+    }
+
+    /**
+     * Look up the hidden asynchronous trace methods once.
+     */
+    private static void resolveAsyncMethods() {
+        if (sAsyncMethodsResolved) {
+            return;
+        }
+        sAsyncMethodsResolved = true;
+        try {
+            sAsyncTraceBegin = Trace.class.getMethod("asyncTraceBegin", long.class, String.class, int.class);
+            sAsyncTraceEnd = Trace.class.getMethod("asyncTraceEnd", long.class, String.class, int.class);
+        } catch (NoSuchMethodException e) {
+            Log.w(TAG, "Asynchronous trace sections are not available", e);
+            sAsyncTraceBegin = null;
+            sAsyncTraceEnd = null;
+        }
+    }
+
+    /**
+     * Shorten a name to the longest name a section can have.
+     *
+     * @param name the name
+     * @return the name, at most {@value MAX_NAME_LENGTH} characters long
+     */
+    private static String truncate(String name) {
+        return name.length() <= MAX_NAME_LENGTH ? name : name.substring(0, MAX_NAME_LENGTH);
+    }
+}
@@ -0,0 +1,176 @@
+package com.aurora.hulpchef;
+
+import android.content.SharedPreferences;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shared preferences that are only kept in memory, for the unit tests of classes that persist
+ * their state. Listeners are not supported.
+ */
+class InMemorySharedPreferences implements SharedPreferences {
+    /**
+     * The stored values by key.
+     */
+    private final Map<String, Object> mValues = new HashMap<>();
+
+    @Override
+    public Map<String, ?> getAll() {
+        return new HashMap<>(mValues);
+    }
+
+    @Override
+    public String getString(String key, String defValue) {
+        return (String) get(key, defValue);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Set<String> getStringSet(String key, Set<String> defValues) {
+        return (Set<String>) get(key, defValues);
+    }
+
+    @Override
+    public int getInt(String key, int defValue) {
+        return (Integer) get(key, defValue);
+    }
+
+    @Override
+    public long getLong(String key, long defValue) {
+        return (Long) get(key, defValue);
+    }
+
+    @Override
+    public float getFloat(String key, float defValue) {
+        return (Float) get(key, defValue);
+    }
+
+    @Override
+    public boolean getBoolean(String key, boolean defValue) {
+        return (Boolean) get(key, defValue);
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return mValues.containsKey(key);
+    }
+
+    @Override
+    public Editor edit() {
+        return new InMemoryEditor();
+    }
+
+    @Override
+    public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Get a stored value.
+     *
+     * @param key      the key of the value
+     * @param defValue the value when nothing is stored for the key
+     * @return the stored value, or the default value
+     */
+    private Object get(String key, Object defValue) {
+        return mValues.containsKey(key) ? mValues.get(key) : defValue;
+    }
+
+    /**
+     * Collects the changes and applies them all at once, like the editor of Android.
+     */
+    private final class InMemoryEditor implements Editor {
+        /**
+         * The values to put.
+         */
+        private final Map<String, Object> mPut = new HashMap<>();
+        /**
+         * The keys to remove, before the values are put.
+         */
+        private final Set<String> mRemoved = new HashSet<>();
+        /**
+         * Whether all values are removed, before the values are put.
+         */
+        private boolean mClear = false;
+
+        @Override
+        public Editor putString(String key, String value) {
+            mPut.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putStringSet(String key, Set<String> values) {
+            mPut.put(key, values == null ? null : new HashSet<>(values));
+            return this;
+        }
+
+        @Override
+        public Editor putInt(String key, int value) {
+            mPut.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putLong(String key, long value) {
+            mPut.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putFloat(String key, float value) {
+            mPut.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putBoolean(String key, boolean value) {
+            mPut.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor remove(String key) {
+            mRemoved.add(key);
+            return this;
+        }
+
+        @Override
+        public Editor clear() {
+            mClear = true;
+            return this;
+        }
+
+        @Override
+        public boolean commit() {
+            apply();
+            return true;
+        }
+
+        @Override
+        public void apply() {
+            if (mClear) {
+                mValues.clear();
+            }
+            for (String key : mRemoved) {
+                mValues.remove(key);
+            }
+            for (Map.Entry<String, Object> value : mPut.entrySet()) {
+                if (value.getValue() == null) {
+                    // putting null removes the value
+                    mValues.remove(value.getKey());
+                } else {
+                    mValues.put(value.getKey(), value.getValue());
+                }
+            }
+        }
+    }
+}
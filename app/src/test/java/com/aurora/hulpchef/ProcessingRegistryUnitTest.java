@@ -0,0 +1,86 @@
+package com.aurora.hulpchef;
+
+import com.aurora.souschefprocessor.recipe.Recipe;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ProcessingRegistryUnitTest {
+
+    @Test
+    public void ProcessingRegistry_sameInputWhileRunning_detectedOnce() {
+        List<Runnable> queued = new ArrayList<>();
+        AtomicInteger detections = new AtomicInteger();
+        Recipe recipe = RecipeGenerator.generate(3, 2, 0, 1);
+
+        CompletableFuture<Recipe> first = ProcessingRegistry.getInstance().process("same-input",
+                () -> {
+                    detections.incrementAndGet();
+                    return recipe;
+                }, queued::add);
+        CompletableFuture<Recipe> second = ProcessingRegistry.getInstance().process("same-input",
+                () -> {
+                    detections.incrementAndGet();
+                    return null;
+                }, queued::add);
+
+        Assert.assertSame("The running detection should be shared", first, second);
+        Assert.assertEquals(1, queued.size());
+        Assert.assertTrue(ProcessingRegistry.getInstance().isProcessing("same-input"));
+        queued.get(0).run();
+        Assert.assertEquals(1, detections.get());
+        Assert.assertSame(recipe, second.join());
+        Assert.assertFalse(ProcessingRegistry.getInstance().isProcessing("same-input"));
+    }
+
+    @Test
+    public void ProcessingRegistry_sameInputAfterFinished_detectedAgain() {
+        AtomicInteger detections = new AtomicInteger();
+
+        ProcessingRegistry.getInstance().process("finished-input", () -> {
+            detections.incrementAndGet();
+            return null;
+        }, Runnable::run).join();
+        ProcessingRegistry.getInstance().process("finished-input", () -> {
+            detections.incrementAndGet();
+            return null;
+        }, Runnable::run).join();
+
+        Assert.assertEquals(2, detections.get());
+    }
+
+    @Test
+    public void ProcessingRegistry_failedDetection_sharedFailureAndRemoved() {
+        List<Runnable> queued = new ArrayList<>();
+
+        CompletableFuture<Recipe> first = ProcessingRegistry.getInstance().process("failing-input", () -> {
+            throw new IllegalStateException("no pipelines");
+        }, queued::add);
+        CompletableFuture<Recipe> second = ProcessingRegistry.getInstance().process("failing-input",
+                () -> null, queued::add);
+        queued.get(0).run();
+
+        Assert.assertTrue(first.isCompletedExceptionally());
+        Assert.assertTrue(second.isCompletedExceptionally());
+        Assert.assertFalse(ProcessingRegistry.getInstance().isProcessing("failing-input"));
+    }
+
+    @Test
+    public void ProcessingRegistry_differentInputs_detectedSeparately() {
+        List<Runnable> queued = new ArrayList<>();
+
+        CompletableFuture<Recipe> first = ProcessingRegistry.getInstance().process("input-a", () -> null, queued::add);
+        CompletableFuture<Recipe> second = ProcessingRegistry.getInstance().process("input-b", () -> null, queued::add);
+        for (Runnable runnable : queued) {
+            runnable.run();
+        }
+
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(2, queued.size());
+    }
+}
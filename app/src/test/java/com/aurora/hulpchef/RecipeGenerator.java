@@ -0,0 +1,164 @@
+package com.aurora.hulpchef;
+
+import com.aurora.souschefprocessor.recipe.Ingredient;
+import com.aurora.souschefprocessor.recipe.ListIngredient;
+import com.aurora.souschefprocessor.recipe.Position;
+import com.aurora.souschefprocessor.recipe.Recipe;
+import com.aurora.souschefprocessor.recipe.RecipeStep;
+import com.aurora.souschefprocessor.recipe.RecipeTimer;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates well-formed recipes of any size, to test how the UI model scales.
+ * <p>
+ * The positions of the quantities, names and units of the ingredients and of the timers point at
+ * the text they describe in the description of the step or the line of the ingredient, like the
+ * processor would detect them. The ingredients of the list are divided over the steps, so every
+ * ingredient is used in exactly one step. The same seed always generates the same recipe.
+ */
+final class RecipeGenerator {
+    /**
+     * The units used for the ingredients.
+     */
+    private static final String[] UNITS = {"g", "ml", "cup", "tbsp", "tsp", "lb"};
+    /**
+     * The largest quantity of an ingredient.
+     */
+    private static final int MAX_QUANTITY = 500;
+    /**
+     * The largest duration of a timer, in minutes.
+     */
+    private static final int MAX_MINUTES = 90;
+    /**
+     * Amount of seconds in a minute.
+     */
+    private static final int SECONDS_PER_MINUTE = 60;
+    /**
+     * The amount of people the generated recipes are for.
+     */
+    static final int NUMBER_OF_PEOPLE = 4;
+
+    /**
+     * Private constructor, this class only has static methods.
+     */
+    private RecipeGenerator() {
+        throw new IllegalStateException("Utility Class");
+    }
+
+    /**
+     * Generate a recipe.
+     *
+     * @param ingredients   the amount of ingredients in the list of the recipe
+     * @param steps         the amount of steps, at least 1
+     * @param timersPerStep the amount of timers in every step
+     * @param seed          the seed of the random quantities, units and durations
+     * @return the recipe
+     */
+    static Recipe generate(int ingredients, int steps, int timersPerStep, long seed) {
+        Random random = new Random(seed);
+        List<ListIngredient> ingredientList = new ArrayList<>(ingredients);
+        for (int i = 0; i < ingredients; i++) {
+            ingredientList.add(createListIngredient(i, random));
+        }
+
+        // divide the ingredients over the steps, rounding up so every ingredient is used
+        int ingredientsPerStep = (ingredients + steps - 1) / steps;
+        List<RecipeStep> recipeSteps = new ArrayList<>(steps);
+        for (int i = 0; i < steps; i++) {
+            int first = Math.min(i * ingredientsPerStep, ingredients);
+            int last = Math.min(first + ingredientsPerStep, ingredients);
+            recipeSteps.add(createStep(ingredientList.subList(first, last), timersPerStep, random));
+        }
+        return new Recipe(ingredientList, recipeSteps, NUMBER_OF_PEOPLE,
+                "A generated recipe with " + ingredients + " ingredients and " + steps + " steps.");
+    }
+
+    /**
+     * Create an ingredient of the list, with the positions pointing into its line.
+     *
+     * @param index  the index of the ingredient, used in its name
+     * @param random the source of the quantity and unit
+     * @return the ingredient
+     */
+    private static ListIngredient createListIngredient(int index, Random random) {
+        int quantity = 1 + random.nextInt(MAX_QUANTITY);
+        String unit = UNITS[random.nextInt(UNITS.length)];
+        String name = "ingredient" + index;
+
+        StringBuilder line = new StringBuilder();
+        Map<Ingredient.PositionKeysForIngredients, Position> positions =
+                new EnumMap<>(Ingredient.PositionKeysForIngredients.class);
+        positions.put(Ingredient.PositionKeysForIngredients.QUANTITY, append(line, Integer.toString(quantity)));
+        line.append(' ');
+        positions.put(Ingredient.PositionKeysForIngredients.UNIT, append(line, unit));
+        line.append(' ');
+        positions.put(Ingredient.PositionKeysForIngredients.NAME, append(line, name));
+        return new ListIngredient(name, unit, quantity, line.toString(), positions);
+    }
+
+    /**
+     * Create a step that uses some ingredients and has some timers. The sentences with an ingredient
+     * and the sentences with a timer alternate, so the quantities are spread over the text blocks.
+     *
+     * @param ingredients   the ingredients used in the step
+     * @param timersPerStep the amount of timers in the step
+     * @param random        the source of the durations
+     * @return the step
+     */
+    private static RecipeStep createStep(List<ListIngredient> ingredients, int timersPerStep, Random random) {
+        StringBuilder description = new StringBuilder();
+        List<Ingredient> stepIngredients = new ArrayList<>(ingredients.size());
+        List<RecipeTimer> timers = new ArrayList<>(timersPerStep);
+
+        for (int i = 0; i < Math.max(ingredients.size(), timersPerStep); i++) {
+            if (i < ingredients.size()) {
+                ListIngredient ingredient = ingredients.get(i);
+                Map<Ingredient.PositionKeysForIngredients, Position> positions =
+                        new EnumMap<>(Ingredient.PositionKeysForIngredients.class);
+                description.append("Add ");
+                positions.put(Ingredient.PositionKeysForIngredients.QUANTITY,
+                        append(description, Integer.toString((int) ingredient.getQuantity())));
+                description.append(' ');
+                positions.put(Ingredient.PositionKeysForIngredients.UNIT, append(description, ingredient.getUnit()));
+                description.append(" of ");
+                positions.put(Ingredient.PositionKeysForIngredients.NAME, append(description, ingredient.getName()));
+                description.append(". ");
+                stepIngredients.add(new Ingredient(ingredient.getName(), ingredient.getUnit(),
+                        ingredient.getQuantity(), positions));
+            }
+            if (i < timersPerStep) {
+                int minutes = 1 + random.nextInt(MAX_MINUTES);
+                description.append("Cook for ");
+                Position position = append(description, minutes + " minutes");
+                description.append(". ");
+                timers.add(new RecipeTimer(minutes * SECONDS_PER_MINUTE, minutes * SECONDS_PER_MINUTE, position));
+            }
+        }
+        if (description.length() == 0) {
+            description.append("Serve.");
+        }
+
+        RecipeStep step = new RecipeStep(description.toString());
+        step.setIngredients(stepIngredients);
+        step.setRecipeTimers(timers);
+        return step;
+    }
+
+    /**
+     * Append a text and get its position.
+     *
+     * @param builder the text to append to
+     * @param text    the text to append
+     * @return the position of the appended text in the builder
+     */
+    private static Position append(StringBuilder builder, String text) {
+        int begin = builder.length();
+        builder.append(text);
+        return new Position(begin, builder.length());
+    }
+}
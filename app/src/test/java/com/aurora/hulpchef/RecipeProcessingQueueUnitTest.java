@@ -0,0 +1,74 @@
+package com.aurora.hulpchef;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class RecipeProcessingQueueUnitTest {
+    private static final long TIMEOUT_SECONDS = 5;
+
+    @Test
+    public void RecipeProcessingQueue_severalInputs_newestFirst() throws InterruptedException {
+        RecipeProcessingQueue queue = new RecipeProcessingQueue(1);
+        CountDownLatch release = blockWorker(queue);
+        List<String> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+
+        for (String key : new String[]{"a", "b", "c"}) {
+            queue.submit(key, () -> {
+                order.add(key);
+                done.countDown();
+            });
+        }
+        Assert.assertEquals(3, queue.getQueueDepth());
+        release.countDown();
+
+        Assert.assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList("c", "b", "a"), order);
+    }
+
+    @Test
+    public void RecipeProcessingQueue_promote_runsNext() throws InterruptedException {
+        RecipeProcessingQueue queue = new RecipeProcessingQueue(1);
+        CountDownLatch release = blockWorker(queue);
+        List<String> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+
+        for (String key : new String[]{"a", "b", "c"}) {
+            queue.executorFor(key).execute(() -> {
+                order.add(key);
+                done.countDown();
+            });
+        }
+        queue.promote("a");
+        // promoting an input that is not waiting does nothing
+        queue.promote("unknown");
+        release.countDown();
+
+        Assert.assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList("a", "c", "b"), order);
+    }
+
+    /**
+     * Keep the only worker busy until the returned latch is counted down.
+     */
+    private static CountDownLatch blockWorker(RecipeProcessingQueue queue) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        queue.submit("blocking", () -> {
+            started.countDown();
+            try {
+                release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Assert.assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        return release;
+    }
+}
@@ -0,0 +1,198 @@
+package com.aurora.hulpchef;
+
+import com.aurora.hulpchef.utilities.StringUtilities;
+import com.aurora.souschefprocessor.recipe.Ingredient;
+import com.aurora.souschefprocessor.recipe.ListIngredient;
+import com.aurora.souschefprocessor.recipe.Position;
+import com.aurora.souschefprocessor.recipe.Recipe;
+import com.aurora.souschefprocessor.recipe.RecipeStep;
+import com.aurora.souschefprocessor.recipe.RecipeTimer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class RecipeScalingLongTest {
+    /**
+     * The largest recipes that are tested.
+     */
+    private static final int MAX_INGREDIENTS = 300;
+    private static final int MAX_STEPS = 150;
+    private static final int MAX_TIMERS_PER_STEP = 40;
+    /**
+     * The small recipes are this many times smaller than the large ones.
+     */
+    private static final int RATIO = 4;
+    /**
+     * Allowed factor on top of linear growth, to absorb noise in the measurements.
+     */
+    private static final int SLACK = 2;
+    /**
+     * The amount of measurements, only the fastest one is kept.
+     */
+    private static final int REPEATS = 9;
+    /**
+     * The amount of times the work is done in one measurement.
+     */
+    private static final int ITERATIONS = 10;
+    /**
+     * The amount of times the work is done before measuring.
+     */
+    private static final int WARMUP_ITERATIONS = 100;
+    private static final long SEED = 42;
+
+    @Test
+    public void RecipeGenerator_generate_positionsMatchText() {
+        Recipe recipe = RecipeGenerator.generate(MAX_INGREDIENTS, MAX_STEPS, MAX_TIMERS_PER_STEP, SEED);
+
+        Assert.assertEquals(MAX_INGREDIENTS, recipe.getIngredients().size());
+        Assert.assertEquals(MAX_STEPS, recipe.getRecipeSteps().size());
+        for (ListIngredient ingredient : recipe.getIngredients()) {
+            Assert.assertEquals(ingredient.getName(), substring(ingredient.getOriginalLine(),
+                    ingredient.getNamePosition()));
+        }
+        int usedIngredients = 0;
+        for (RecipeStep step : recipe.getRecipeSteps()) {
+            String description = step.getDescription();
+            Assert.assertEquals(MAX_TIMERS_PER_STEP, step.getRecipeTimers().size());
+            for (Ingredient ingredient : step.getIngredients()) {
+                Assert.assertEquals(StringUtilities.toDisplayQuantity(ingredient.getQuantity()),
+                        substring(description, ingredient.getQuantityPosition()));
+                Assert.assertEquals(ingredient.getUnit(), substring(description, ingredient.getUnitPosition()));
+                Assert.assertEquals(ingredient.getName(), substring(description, ingredient.getNamePosition()));
+                usedIngredients++;
+            }
+            for (RecipeTimer timer : step.getRecipeTimers()) {
+                Assert.assertEquals(timer.getLowerBound() / 60 + " minutes",
+                        substring(description, timer.getPosition()));
+            }
+        }
+        Assert.assertEquals("Every ingredient should be used in a step", MAX_INGREDIENTS, usedIngredients);
+    }
+
+    @Test
+    public void StepRenderModel_buildAll_generatedRecipeRendersEveryQuantityAndTimer() {
+        Recipe recipe = RecipeGenerator.generate(MAX_INGREDIENTS, MAX_STEPS, MAX_TIMERS_PER_STEP, SEED);
+
+        List<StepRenderModel> models = StepRenderModel.buildAll(recipe);
+
+        Assert.assertEquals(MAX_STEPS, models.size());
+        for (int i = 0; i < models.size(); i++) {
+            StepRenderModel model = models.get(i);
+            RecipeStep step = recipe.getRecipeSteps().get(i);
+            int quantities = 0;
+            for (StepRenderModel.TextBlock block : model.getTextBlocks()) {
+                quantities += block.getQuantityCount();
+            }
+            Assert.assertEquals(step.getRecipeTimers().size(), model.getTimerCount());
+            Assert.assertEquals(step.getIngredients().size(), quantities);
+            Assert.assertEquals(step.getIngredients().size(), model.getIngredientRows().size());
+        }
+    }
+
+    @Test
+    public void StepRenderModel_buildAll_linearInSteps() {
+        Recipe small = RecipeGenerator.generate(MAX_INGREDIENTS / RATIO, MAX_STEPS / RATIO, 2, SEED);
+        Recipe large = RecipeGenerator.generate(MAX_INGREDIENTS, MAX_STEPS, 2, SEED);
+
+        assertLinear("building the steps", () -> StepRenderModel.buildAll(small),
+                () -> StepRenderModel.buildAll(large));
+    }
+
+    @Test
+    public void StepRenderModel_buildAll_linearInTimersPerStep() {
+        Recipe small = RecipeGenerator.generate(MAX_STEPS, MAX_STEPS, MAX_TIMERS_PER_STEP / RATIO, SEED);
+        Recipe large = RecipeGenerator.generate(MAX_STEPS, MAX_STEPS, MAX_TIMERS_PER_STEP, SEED);
+
+        assertLinear("building steps with timers", () -> countTimers(StepRenderModel.buildAll(small)),
+                () -> countTimers(StepRenderModel.buildAll(large)));
+    }
+
+    @Test
+    public void TextBlock_render_linearInIngredientsPerStep() {
+        // all ingredients in a few steps, so the blocks hold many quantities
+        List<StepRenderModel> small = StepRenderModel.buildAll(
+                RecipeGenerator.generate(MAX_INGREDIENTS / RATIO, 2, 2, SEED));
+        List<StepRenderModel> large = StepRenderModel.buildAll(
+                RecipeGenerator.generate(MAX_INGREDIENTS, 2, 2, SEED));
+
+        assertLinear("scaling the quantities", () -> renderAllAmounts(small), () -> renderAllAmounts(large));
+    }
+
+    /**
+     * Render every block of every step for 1 to 2 times the original amount of people.
+     *
+     * @param models the models of the steps
+     * @return the total length of the text, so the work is not optimised away
+     */
+    private static int renderAllAmounts(List<StepRenderModel> models) {
+        int length = 0;
+        for (int amount = 1; amount <= 2 * RecipeGenerator.NUMBER_OF_PEOPLE; amount++) {
+            for (StepRenderModel model : models) {
+                for (StepRenderModel.TextBlock block : model.getTextBlocks()) {
+                    length += block.render(model.getOriginalAmount(), amount).length();
+                }
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Count the timers of all steps, like the step pages do to create their timer cards.
+     *
+     * @param models the models of the steps
+     * @return the amount of timers
+     */
+    private static int countTimers(List<StepRenderModel> models) {
+        int timers = 0;
+        for (StepRenderModel model : models) {
+            timers += model.getTimerCount();
+        }
+        return timers;
+    }
+
+    /**
+     * Assert that some work on a large recipe takes no more than linearly longer than on a small one.
+     * Both are warmed up first and measured in turns, so they are compiled and measured alike.
+     *
+     * @param what  the work, for the message
+     * @param small the work on the small recipe
+     * @param large the work on the {@value RATIO} times larger recipe
+     */
+    private static void assertLinear(String what, Runnable small, Runnable large) {
+        // warm up, so the measurement is not polluted by class loading and compilation
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            small.run();
+            large.run();
+        }
+        long bestSmall = Long.MAX_VALUE;
+        long bestLarge = Long.MAX_VALUE;
+        for (int repeat = 0; repeat < REPEATS; repeat++) {
+            bestSmall = Math.min(bestSmall, measure(small));
+            bestLarge = Math.min(bestLarge, measure(large));
+        }
+
+        Assert.assertTrue(what + " should grow no worse than linearly, but took " + bestLarge / 1000
+                + " us for the " + RATIO + " times larger recipe and " + bestSmall / 1000 + " us for the small one",
+                bestLarge <= bestSmall * RATIO * SLACK);
+    }
+
+    /**
+     * Measure some work.
+     *
+     * @param work the work to measure
+     * @return the time {@value ITERATIONS} iterations took, in nanoseconds
+     */
+    private static long measure(Runnable work) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            work.run();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static String substring(String text, Position position) {
+        return text.substring(position.getBeginIndex(), position.getEndIndex());
+    }
+}
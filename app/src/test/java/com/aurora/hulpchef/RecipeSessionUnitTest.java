@@ -0,0 +1,101 @@
+package com.aurora.hulpchef;
+
+import android.content.ComponentCallbacks2;
+
+import com.aurora.souschefprocessor.recipe.Recipe;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RecipeSessionUnitTest {
+    private static final long NO_BYTE_LIMIT = Long.MAX_VALUE;
+
+    @Test
+    public void RecipeSession_tooManyRecipes_leastRecentlyUsedRemoved() {
+        RecipeSession session = new RecipeSession(2, NO_BYTE_LIMIT, (RecipeSession.PreparedRecipe p) -> false);
+
+        session.prepare("a", RecipeGenerator.generate(3, 2, 0, 1));
+        session.prepare("b", RecipeGenerator.generate(3, 2, 0, 2));
+        // using a makes b the least recently used
+        session.get("a");
+        session.prepare("c", RecipeGenerator.generate(3, 2, 0, 3));
+
+        Assert.assertEquals(2, session.size());
+        Assert.assertNotNull(session.get("a"));
+        Assert.assertNull(session.get("b"));
+        Assert.assertNotNull(session.get("c"));
+    }
+
+    @Test
+    public void RecipeSession_prepareKeptRecipe_notReplaced() {
+        RecipeSession session = new RecipeSession(2, NO_BYTE_LIMIT, (RecipeSession.PreparedRecipe p) -> false);
+        Recipe first = RecipeGenerator.generate(3, 2, 0, 1);
+
+        RecipeSession.PreparedRecipe prepared = session.prepare("a", first);
+        prepared.setPeople(6);
+
+        RecipeSession.PreparedRecipe again = session.prepare("a", RecipeGenerator.generate(3, 2, 0, 1));
+        Assert.assertSame(prepared, again);
+        Assert.assertSame(first, again.getRecipe());
+        Assert.assertEquals(6, again.getPeople());
+    }
+
+    @Test
+    public void RecipeSession_pinnedRecipe_neverRemoved() {
+        Recipe withRunningTimer = RecipeGenerator.generate(3, 2, 1, 1);
+        RecipeSession session = new RecipeSession(1, NO_BYTE_LIMIT,
+                (RecipeSession.PreparedRecipe p) -> p.getRecipe() == withRunningTimer);
+
+        session.prepare("timer", withRunningTimer);
+        session.prepare("b", RecipeGenerator.generate(3, 2, 0, 2));
+        session.prepare("c", RecipeGenerator.generate(3, 2, 0, 3));
+
+        Assert.assertNotNull(session.get("timer"));
+        Assert.assertNull(session.get("b"));
+        Assert.assertNotNull("The most recently used recipe is kept", session.get("c"));
+
+        session.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        Assert.assertEquals(1, session.size());
+        Assert.assertNotNull(session.get("timer"));
+    }
+
+    @Test
+    public void RecipeSession_recipesGrowPastBytes_removedUntilTheyFit() {
+        Recipe large = RecipeGenerator.generate(30, 40, 1, 1);
+        RecipeSession.PreparedRecipe measured = new RecipeSession.PreparedRecipe("large", large);
+        measured.setStepModels(StepRenderModel.buildAll(large));
+        // room for two recipes with their step models
+        RecipeSession session = new RecipeSession(4, 2 * measured.getEstimatedBytes() + 1,
+                (RecipeSession.PreparedRecipe p) -> false);
+
+        for (String key : new String[]{"a", "b", "c"}) {
+            Recipe recipe = RecipeGenerator.generate(30, 40, 1, 1);
+            session.prepare(key, recipe).setStepModels(StepRenderModel.buildAll(recipe));
+            session.onRecipeGrown();
+        }
+
+        Assert.assertEquals(2, session.size());
+        Assert.assertNull(session.get("a"));
+    }
+
+    @Test
+    public void RecipeSession_trimMemoryRunningLow_onlyMostRecentKept() {
+        RecipeSession session = new RecipeSession(4, NO_BYTE_LIMIT, (RecipeSession.PreparedRecipe p) -> false);
+        session.prepare("a", RecipeGenerator.generate(3, 2, 0, 1));
+        session.prepare("b", RecipeGenerator.generate(3, 2, 0, 2));
+        session.prepare("c", RecipeGenerator.generate(3, 2, 0, 3));
+
+        session.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+
+        Assert.assertEquals(1, session.size());
+        Assert.assertNotNull(session.get("c"));
+    }
+
+    @Test
+    public void RecipeSession_keyFor_sameForSameRecipe() {
+        Assert.assertEquals(RecipeSession.keyFor(RecipeGenerator.generate(5, 4, 1, 7)),
+                RecipeSession.keyFor(RecipeGenerator.generate(5, 4, 1, 7)));
+        Assert.assertNotEquals(RecipeSession.keyFor(RecipeGenerator.generate(5, 4, 1, 7)),
+                RecipeSession.keyFor(RecipeGenerator.generate(5, 4, 1, 8)));
+    }
+}
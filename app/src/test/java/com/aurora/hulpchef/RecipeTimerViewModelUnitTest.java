@@ -0,0 +1,42 @@
+package com.aurora.hulpchef;
+
+import android.app.Application;
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class RecipeTimerViewModelUnitTest {
+    private static final long NO_BYTE_LIMIT = Long.MAX_VALUE;
+
+    @Test
+    public void RecipeTimerViewModel_otherSessionEntry_timersOfThatRecipe() {
+        RecipeSession session = new RecipeSession(2, NO_BYTE_LIMIT, (RecipeSession.PreparedRecipe p) -> false);
+        // the recipes have no timers, creating a LiveDataTimer needs the main looper
+        RecipeSession.PreparedRecipe first = session.prepare("a", RecipeGenerator.generate(3, 2, 0, 1));
+        RecipeSession.PreparedRecipe second = session.prepare("b", RecipeGenerator.generate(3, 5, 0, 2));
+        RecipeTimerViewModel viewModel = new RecipeTimerViewModel(application());
+
+        Assert.assertTrue(viewModel.init(first));
+        Assert.assertFalse("The same recipe keeps its timers", viewModel.init(first));
+        Assert.assertTrue(viewModel.init(second));
+        // the timers are kept with the prepared recipes in the session
+        Assert.assertEquals(5, second.getTimers(null).size());
+        Assert.assertTrue("Showing the first recipe again uses its timers", viewModel.init(first));
+        Assert.assertEquals(2, first.getTimers(null).size());
+    }
+
+    /**
+     * Create an application without stored timers.
+     */
+    private static Application application() {
+        Application application = Mockito.mock(Application.class);
+        SharedPreferences preferences = Mockito.mock(SharedPreferences.class);
+        Mockito.when(application.getApplicationContext()).thenReturn(application);
+        Mockito.when(application.getSharedPreferences(Mockito.anyString(), Mockito.eq(Context.MODE_PRIVATE)))
+                .thenReturn(preferences);
+        return application;
+    }
+}
@@ -0,0 +1,129 @@
+package com.aurora.hulpchef;
+
+import com.aurora.souschefprocessor.recipe.Ingredient;
+import com.aurora.souschefprocessor.recipe.ListIngredient;
+import com.aurora.souschefprocessor.recipe.Recipe;
+import com.aurora.souschefprocessor.recipe.RecipeStep;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+
+public class ShoppingListUnitTest {
+    private static final double DELTA = 1e-6;
+
+    @Test
+    public void ShoppingList_sameIngredientConvertibleUnits_summed() {
+        ShoppingList list = new ShoppingList();
+        list.add("a", recipe(2, ingredient("Sugar", "cup", 1), ingredient("flour", "g", 500)), 2);
+        list.add("b", recipe(4, ingredient(" sugar ", "Tbsp.", 8), ingredient("Flour", "kg", 1)), 4);
+
+        List<ShoppingList.Item> items = list.getItems();
+        Assert.assertEquals(2, items.size());
+        Assert.assertEquals("Sugar", items.get(0).getName());
+        Assert.assertEquals("cup", items.get(0).getUnit());
+        // 16 tablespoons make a cup
+        Assert.assertEquals(1.5, items.get(0).getQuantity(), 1e-3);
+        Assert.assertEquals(2, items.get(0).getIngredientCount());
+        Assert.assertEquals(1500, items.get(1).getQuantity(), DELTA);
+    }
+
+    @Test
+    public void ShoppingList_incompatibleUnits_keptApart() {
+        ShoppingList list = new ShoppingList();
+        list.add("a", recipe(1, ingredient("butter", "g", 100), ingredient("egg", "", 2)), 1);
+        list.add("b", recipe(1, ingredient("butter", "tbsp", 2), ingredient("eggs", "", 1)), 1);
+
+        List<ShoppingList.Item> items = list.getItems();
+        Assert.assertEquals(4, items.size());
+        Assert.assertEquals(100, items.get(0).getQuantity(), DELTA);
+        Assert.assertEquals(2, items.get(2).getQuantity(), DELTA);
+    }
+
+    @Test
+    public void ShoppingList_eachRecipeScaledToItsPeople() {
+        ShoppingList list = new ShoppingList();
+        list.add("a", recipe(4, ingredient("milk", "ml", 400)), 2);
+        list.add("b", recipe(2, ingredient("milk", "l", 1)), 6);
+
+        Assert.assertEquals(200 + 3000, list.getItems().get(0).getQuantity(), DELTA);
+    }
+
+    @Test
+    public void ShoppingList_setPeople_onlyThatRecipeChanges() {
+        ShoppingList list = new ShoppingList();
+        list.add("a", recipe(4, ingredient("milk", "ml", 400), ingredient("rice", "g", 300)), 4);
+        list.add("b", recipe(2, ingredient("milk", "ml", 100)), 2);
+
+        Assert.assertTrue(list.setPeople("b", 6));
+        List<ShoppingList.Item> items = list.getItems();
+        Assert.assertEquals(400 + 300, items.get(0).getQuantity(), DELTA);
+        Assert.assertEquals(300, items.get(1).getQuantity(), DELTA);
+        Assert.assertFalse(list.setPeople("unknown", 6));
+
+        // adding a recipe again only scales it
+        list.add("a", recipe(4, ingredient("milk", "ml", 400), ingredient("rice", "g", 300)), 2);
+        Assert.assertEquals(200 + 300, list.getItems().get(0).getQuantity(), DELTA);
+    }
+
+    @Test
+    public void ShoppingList_remove_itemsOfOtherRecipesKept() {
+        ShoppingList list = new ShoppingList();
+        list.add("a", recipe(1, ingredient("milk", "ml", 100), ingredient("rice", "g", 300)), 1);
+        list.add("b", recipe(1, ingredient("milk", "ml", 50)), 1);
+
+        Assert.assertTrue(list.remove("a"));
+        Assert.assertFalse(list.contains("a"));
+        List<ShoppingList.Item> items = list.getItems();
+        Assert.assertEquals(1, items.size());
+        Assert.assertEquals(50, items.get(0).getQuantity(), DELTA);
+        Assert.assertFalse(list.remove("a"));
+    }
+
+    @Test
+    public void ShoppingList_noPeople_quantitiesStayFinite() {
+        ShoppingList list = new ShoppingList();
+        list.add("a", recipe(0, ingredient("milk", "ml", 400)), 0);
+
+        Assert.assertEquals(0, list.getItems().get(0).getQuantity(), DELTA);
+        // the recipe without an amount of people is counted as being for one person
+        Assert.assertTrue(list.setPeople("a", 2));
+        Assert.assertEquals(800, list.getItems().get(0).getQuantity(), DELTA);
+    }
+
+    @Test
+    public void ShoppingList_generatedRecipes_everyIngredientCounted() {
+        ShoppingList list = new ShoppingList();
+        int total = 0;
+        for (int seed = 0; seed < 10; seed++) {
+            Recipe recipe = RecipeGenerator.generate(200, 5, 0, seed);
+            list.add("recipe" + seed, recipe, recipe.getNumberOfPeople());
+            total += recipe.getIngredients().size();
+        }
+
+        int counted = 0;
+        for (ShoppingList.Item item : list.getItems()) {
+            counted += item.getIngredientCount();
+        }
+        Assert.assertEquals(total, counted);
+    }
+
+    /**
+     * Create a recipe without steps.
+     */
+    private static Recipe recipe(int people, ListIngredient... ingredients) {
+        return new Recipe(new ArrayList<>(Arrays.asList(ingredients)), new ArrayList<RecipeStep>(), people, "");
+    }
+
+    /**
+     * Create an ingredient without positions in its line.
+     */
+    private static ListIngredient ingredient(String name, String unit, double quantity) {
+        return new ListIngredient(name, unit, quantity, quantity + " " + unit + " " + name,
+                new EnumMap<>(Ingredient.PositionKeysForIngredients.class));
+    }
+}
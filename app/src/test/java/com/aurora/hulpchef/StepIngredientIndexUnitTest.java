@@ -0,0 +1,135 @@
+package com.aurora.hulpchef;
+
+import com.aurora.souschefprocessor.recipe.Ingredient;
+import com.aurora.souschefprocessor.recipe.ListIngredient;
+import com.aurora.souschefprocessor.recipe.Position;
+import com.aurora.souschefprocessor.recipe.Recipe;
+import com.aurora.souschefprocessor.recipe.RecipeStep;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class StepIngredientIndexUnitTest {
+    private static final long SEED = 42;
+
+    @Test
+    public void StepIngredientIndex_firstQuantityFrom_sameAsLinearScan() {
+        Recipe recipe = shuffled(RecipeGenerator.generate(40, 3, 2, SEED));
+
+        for (RecipeStep step : recipe.getRecipeSteps()) {
+            StepIngredientIndex index = StepIngredientIndex.build(step);
+            Assert.assertEquals(step.getIngredients().size(), index.getQuantityCount());
+            for (int i = 1; i < index.getQuantityCount(); i++) {
+                Assert.assertTrue("The quantities are sorted on their position",
+                        index.getBegin(i - 1) <= index.getBegin(i));
+            }
+            // every position in the description, and the ones just outside it
+            for (int position = -1; position <= step.getDescription().length() + 1; position++) {
+                Assert.assertEquals("First quantity from " + position,
+                        linearScan(index, position), index.firstQuantityFrom(position));
+            }
+        }
+    }
+
+    @Test
+    public void StepIngredientIndex_quantityNotInDescription_notQuantified() {
+        RecipeStep step = RecipeGenerator.generate(3, 1, 1, SEED).getRecipeSteps().get(0);
+        Map<Ingredient.PositionKeysForIngredients, Position> positions =
+                new EnumMap<>(Ingredient.PositionKeysForIngredients.class);
+        // the processor puts the quantity on the whole description when it is not in it
+        positions.put(Ingredient.PositionKeysForIngredients.QUANTITY, new Position(0, step.getDescription().length()));
+        Ingredient notInDescription = new Ingredient("salt", "", 1, positions);
+        List<Ingredient> ingredients = new ArrayList<>(step.getIngredients());
+        ingredients.add(notInDescription);
+        step.setIngredients(ingredients);
+
+        StepIngredientIndex index = StepIngredientIndex.build(step);
+
+        Assert.assertEquals(4, index.getRows().size());
+        Assert.assertTrue(index.getRows().contains(notInDescription));
+        Assert.assertEquals(3, index.getQuantityCount());
+        for (int i = 0; i < index.getQuantityCount(); i++) {
+            Assert.assertNotSame(notInDescription, index.getQuantified(i));
+        }
+        Assert.assertEquals(index.getQuantityCount(), index.firstQuantityFrom(step.getDescription().length()));
+    }
+
+    @Test
+    public void StepIngredientIndex_build_stepIngredientsNotReordered() {
+        Recipe recipe = shuffled(RecipeGenerator.generate(20, 2, 1, SEED));
+        RecipeStep step = recipe.getRecipeSteps().get(0);
+        List<Ingredient> before = new ArrayList<>(step.getIngredients());
+
+        StepIngredientIndex index = StepIngredientIndex.build(step);
+
+        assertSameOrder("The ingredients of the step", before, step.getIngredients());
+        Assert.assertNotEquals("The rows of the index are sorted", before, index.getRows());
+    }
+
+    @Test
+    public void StepRenderModel_buildAll_recipeIngredientsNotReordered() {
+        Recipe recipe = shuffled(RecipeGenerator.generate(30, 4, 2, SEED));
+        // the list of the recipe is shared with the ingredient overview, in the order of the recipe
+        Collections.shuffle(recipe.getIngredients(), new Random(SEED));
+        List<ListIngredient> ingredientsBefore = new ArrayList<>(recipe.getIngredients());
+        List<List<Ingredient>> stepIngredientsBefore = new ArrayList<>();
+        for (RecipeStep step : recipe.getRecipeSteps()) {
+            stepIngredientsBefore.add(new ArrayList<>(step.getIngredients()));
+        }
+
+        StepRenderModel.buildAll(recipe);
+        StepRenderModel.buildAllDetached(recipe);
+
+        assertSameOrder("The ingredients of the recipe", ingredientsBefore, recipe.getIngredients());
+        for (int i = 0; i < stepIngredientsBefore.size(); i++) {
+            assertSameOrder("The ingredients of step " + i, stepIngredientsBefore.get(i),
+                    recipe.getRecipeSteps().get(i).getIngredients());
+        }
+    }
+
+    /**
+     * Shuffle the ingredients of every step, the generator lists them in order of their quantity.
+     *
+     * @param recipe the recipe, its steps are modified
+     * @return the recipe
+     */
+    private static Recipe shuffled(Recipe recipe) {
+        Random random = new Random(SEED);
+        for (RecipeStep step : recipe.getRecipeSteps()) {
+            List<Ingredient> ingredients = new ArrayList<>(step.getIngredients());
+            Collections.shuffle(ingredients, random);
+            step.setIngredients(ingredients);
+        }
+        return recipe;
+    }
+
+    /**
+     * Find the first quantity that begins at or after a position by looking at all of them.
+     */
+    private static int linearScan(StepIngredientIndex index, int position) {
+        for (int i = 0; i < index.getQuantityCount(); i++) {
+            if (index.getBegin(i) >= position) {
+                return i;
+            }
+        }
+        return index.getQuantityCount();
+    }
+
+    /**
+     * Assert that a list holds the same instances in the same order.
+     */
+    private static void assertSameOrder(String message, List<? extends Ingredient> expected,
+                                        List<? extends Ingredient> actual) {
+        Assert.assertEquals(message, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertSame(message + " at " + i, expected.get(i), actual.get(i));
+        }
+    }
+}
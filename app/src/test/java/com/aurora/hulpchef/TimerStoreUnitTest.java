@@ -0,0 +1,210 @@
+package com.aurora.hulpchef;
+
+import android.arch.core.executor.testing.InstantTaskExecutorRule;
+import android.content.Context;
+
+import com.aurora.souschefprocessor.recipe.RecipeTimer;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class TimerStoreUnitTest {
+    private static final String KEY = "recipe";
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+    /**
+     * The clock can tick between storing a deadline and restoring it.
+     */
+    private static final long CLOCK_DELTA = 50;
+    /**
+     * The stored states, as written in a stored line.
+     */
+    private static final int STORED_PAUSED = 1;
+    private static final int STORED_RUNNING = 2;
+    private static final int STORED_ALARMING = 3;
+
+    /**
+     * Sets the values of the LiveData of the timers on the test thread.
+     */
+    @Rule
+    public InstantTaskExecutorRule mInstantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private final InMemorySharedPreferences mPreferences = new InMemorySharedPreferences();
+    private final Context mContext = context(mPreferences);
+
+    @Test
+    public void TimerStore_runningAndPausedTimers_restored() {
+        List<List<LiveDataTimer>> timers = timers();
+        LiveDataTimer running = timers.get(0).get(0);
+        running.toggleTimer();
+        LiveDataTimer paused = timers.get(1).get(0);
+        paused.toggleTimer();
+        paused.toggleTimer();
+        new TimerStore(mContext).save(KEY, timers);
+
+        List<List<LiveDataTimer>> restored = timers();
+        new TimerStore(mContext).restore(KEY, restored);
+
+        LiveDataTimer restoredRunning = restored.get(0).get(0);
+        Assert.assertEquals(LiveDataTimer.TIMER_RUNNING, (int) restoredRunning.getTimerState().getValue());
+        Assert.assertTrue("A running timer keeps its deadline, expected " + running.getDeadline() + " but was "
+                        + restoredRunning.getDeadline(),
+                Math.abs(restoredRunning.getDeadline() - running.getDeadline()) <= CLOCK_DELTA);
+        LiveDataTimer restoredPaused = restored.get(1).get(0);
+        Assert.assertEquals(LiveDataTimer.TIMER_PAUSED, (int) restoredPaused.getTimerState().getValue());
+        Assert.assertEquals(paused.getMillisLeft().getValue(), restoredPaused.getMillisLeft().getValue());
+        Assert.assertEquals("An untouched timer is not stored",
+                LiveDataTimer.TIMER_INITIALISED, (int) restored.get(0).get(1).getTimerState().getValue());
+        Assert.assertFalse(TimerStore.hasAlarmingTimers(mContext));
+    }
+
+    @Test
+    public void TimerStore_timeSetByUser_restored() {
+        List<List<LiveDataTimer>> timers = timers();
+        timers.get(0).get(0).setTimeSetByUser(90);
+        new TimerStore(mContext).save(KEY, timers);
+
+        List<List<LiveDataTimer>> restored = timers();
+        new TimerStore(mContext).restore(KEY, restored);
+
+        Assert.assertEquals(90, restored.get(0).get(0).getTimeSetByUser());
+        Assert.assertEquals(90_000L, (long) restored.get(0).get(0).getMillisLeft().getValue());
+        Assert.assertEquals(LiveDataTimer.TIMER_INITIALISED, (int) restored.get(0).get(0).getTimerState().getValue());
+    }
+
+    @Test
+    public void TimerStore_deadlinePassed_alarmingUntilDismissed() {
+        long now = System.currentTimeMillis();
+        mPreferences.edit().putString(KEY, line(now, timer(0, 0, STORED_RUNNING, now - 1000, 60))).apply();
+        Assert.assertTrue("A running timer past its deadline is alarming", TimerStore.hasAlarmingTimers(mContext));
+
+        List<List<LiveDataTimer>> timers = timers();
+        new TimerStore(mContext).restore(KEY, timers);
+        LiveDataTimer alarming = timers.get(0).get(0);
+        Assert.assertTrue(alarming.isAlarming().getValue());
+        Assert.assertTrue(alarming.getIsFinished().getValue());
+
+        new TimerStore(mContext).save(KEY, timers);
+        String stored = mPreferences.getString(KEY, null);
+        Assert.assertTrue("The timer should be stored as alarming: " + stored,
+                stored.endsWith(timer(0, 0, STORED_ALARMING, now - 1000, 60)));
+        List<List<LiveDataTimer>> restored = timers();
+        new TimerStore(mContext).restore(KEY, restored);
+        Assert.assertTrue(restored.get(0).get(0).isAlarming().getValue());
+
+        // dismissing the timer in the UI removes it from the store
+        alarming.toggleTimer();
+        new TimerStore(mContext).save(KEY, timers);
+        Assert.assertFalse(mPreferences.contains(KEY));
+        Assert.assertFalse(TimerStore.hasAlarmingTimers(mContext));
+    }
+
+    @Test
+    public void TimerStore_dismissAlarms_otherTimersKept() {
+        long now = System.currentTimeMillis();
+        mPreferences.edit()
+                .putString(KEY, line(now, timer(0, 0, STORED_ALARMING, now - 1000, 60)))
+                .putString("other", line(now, timer(0, 0, STORED_ALARMING, now - 1000, 60),
+                        timer(1, 0, STORED_PAUSED, 5000, 10)))
+                .apply();
+
+        TimerStore.dismissAlarms(mContext);
+
+        Assert.assertFalse(mPreferences.contains(KEY));
+        Assert.assertEquals(line(now, timer(1, 0, STORED_PAUSED, 5000, 10)), mPreferences.getString("other", null));
+        Assert.assertFalse(TimerStore.hasAlarmingTimers(mContext));
+    }
+
+    @Test
+    public void TimerStore_linesNotUsedForTwoDays_removedUnlessActive() {
+        long now = System.currentTimeMillis();
+        mPreferences.edit()
+                .putString("old", line(now - 3 * DAY, timer(0, 0, STORED_PAUSED, 5000, 10)))
+                .putString("oldRunning", line(now - 3 * DAY, timer(0, 0, STORED_RUNNING, now + DAY, 10)))
+                .putString("oldAlarming", line(now - 3 * DAY, timer(0, 0, STORED_ALARMING, now - DAY, 10)))
+                .putString("recent", line(now - DAY, timer(0, 0, STORED_PAUSED, 5000, 10)))
+                .apply();
+
+        new TimerStore(mContext).save(KEY, timers());
+
+        Assert.assertFalse(mPreferences.contains("old"));
+        Assert.assertTrue(mPreferences.contains("oldRunning"));
+        Assert.assertTrue(mPreferences.contains("oldAlarming"));
+        Assert.assertTrue(mPreferences.contains("recent"));
+        Assert.assertFalse("A recipe without changed timers is not stored", mPreferences.contains(KEY));
+    }
+
+    @Test
+    public void TimerStore_malformedLines_ignored() {
+        long now = System.currentTimeMillis();
+        mPreferences.edit()
+                .putString(KEY, line(now, "garbage", "0,0", "!,0,1,a,b", "5,0,1,a,b", "-1,0,1,a,b",
+                        timer(0, 1, STORED_PAUSED, 5000, 30)))
+                .putString("corrupt", "not a line;0,0,2,!,1")
+                .apply();
+        Assert.assertFalse(TimerStore.hasAlarmingTimers(mContext));
+
+        List<List<LiveDataTimer>> timers = timers();
+        new TimerStore(mContext).restore(KEY, timers);
+
+        Assert.assertEquals(LiveDataTimer.TIMER_INITIALISED, (int) timers.get(0).get(0).getTimerState().getValue());
+        Assert.assertEquals(LiveDataTimer.TIMER_PAUSED, (int) timers.get(0).get(1).getTimerState().getValue());
+        Assert.assertEquals(5000L, (long) timers.get(0).get(1).getMillisLeft().getValue());
+
+        new TimerStore(mContext).save("another", timers());
+        Assert.assertFalse("A line without the time it was saved is removed", mPreferences.contains("corrupt"));
+    }
+
+    @Test
+    public void TimerStore_keyFor_sameForSameContent() {
+        Assert.assertEquals(TimerStore.keyFor(RecipeGenerator.generate(5, 4, 1, 7)),
+                TimerStore.keyFor(RecipeGenerator.generate(5, 4, 1, 7)));
+        Assert.assertNotEquals(TimerStore.keyFor(RecipeGenerator.generate(5, 4, 1, 7)),
+                TimerStore.keyFor(RecipeGenerator.generate(5, 4, 1, 8)));
+    }
+
+    /**
+     * Create a context that only has the given preferences.
+     */
+    private static Context context(InMemorySharedPreferences preferences) {
+        Context context = Mockito.mock(Context.class);
+        Mockito.when(context.getApplicationContext()).thenReturn(context);
+        Mockito.when(context.getSharedPreferences(Mockito.anyString(), Mockito.anyInt())).thenReturn(preferences);
+        return context;
+    }
+
+    /**
+     * Create the timers of a recipe with two steps, the first step has two timers.
+     */
+    private static List<List<LiveDataTimer>> timers() {
+        return Arrays.asList(
+                Arrays.asList(new LiveDataTimer(new RecipeTimer(120, 60, null)),
+                        new LiveDataTimer(new RecipeTimer(30, 30, null))),
+                Collections.singletonList(new LiveDataTimer(new RecipeTimer(600, 10, null))));
+    }
+
+    /**
+     * Write a stored line: the time it was saved, followed by the timers.
+     */
+    private static String line(long savedAt, String... timers) {
+        StringBuilder line = new StringBuilder(Long.toString(savedAt, Character.MAX_RADIX));
+        for (String timer : timers) {
+            line.append(';').append(timer);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Write a stored timer, with its numbers in radix 36.
+     */
+    private static String timer(int step, int timer, int state, long value, int timeSetByUser) {
+        return Integer.toString(step, Character.MAX_RADIX) + ',' + Integer.toString(timer, Character.MAX_RADIX)
+                + ',' + Integer.toString(state, Character.MAX_RADIX) + ',' + Long.toString(value, Character.MAX_RADIX)
+                + ',' + Integer.toString(timeSetByUser, Character.MAX_RADIX);
+    }
+}
@@ -0,0 +1,99 @@
+package com.aurora.hulpchef.utilities;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class MetricsUnitTest {
+
+    @After
+    public void removeBackends() {
+        Metrics.getInstance().setBackends();
+    }
+
+    @Test
+    public void Metrics_timer_writtenAsJsonLineWithAttributes() {
+        StringWriter output = new StringWriter();
+        Metrics.getInstance().setBackends(new JsonLinesMetricsBackend(() -> output, Runnable::run));
+
+        Metrics.Timer timer = Metrics.getInstance().startTimer("recipe_pipeline");
+        timer.putAttribute("result", "success").putAttribute("quote", "say \"hi\"");
+        timer.stop();
+
+        String[] lines = output.toString().split("\n");
+        Assert.assertEquals(1, lines.length);
+        Assert.assertTrue(lines[0].startsWith("{\"time\":"));
+        Assert.assertTrue(lines[0].contains("\"type\":\"timer\",\"name\":\"recipe_pipeline\",\"millis\":"));
+        Assert.assertTrue("The attributes should be escaped JSON", lines[0].endsWith(
+                ",\"attributes\":{\"result\":\"success\",\"quote\":\"say \\\"hi\\\"\"}}"));
+    }
+
+    @Test
+    public void Metrics_countersAndHistograms_oneLineEachInOrder() {
+        StringWriter output = new StringWriter();
+        Metrics.getInstance().setBackends(new JsonLinesMetricsBackend(() -> output, Runnable::run));
+
+        Metrics.getInstance().count("recipe_processing_failed");
+        Metrics.getInstance().count("pages", 3);
+        Metrics.getInstance().record("input_ready_ms", 250);
+
+        String[] lines = output.toString().split("\n");
+        Assert.assertEquals(3, lines.length);
+        Assert.assertTrue(lines[0].endsWith("\"type\":\"counter\",\"name\":\"recipe_processing_failed\",\"amount\":1}"));
+        Assert.assertTrue(lines[1].endsWith("\"type\":\"counter\",\"name\":\"pages\",\"amount\":3}"));
+        Assert.assertTrue(lines[2].endsWith("\"type\":\"histogram\",\"name\":\"input_ready_ms\",\"value\":250}"));
+    }
+
+    @Test
+    public void Metrics_stopTwice_recordedOnce() {
+        RecordingBackend backend = new RecordingBackend();
+        Metrics.getInstance().setBackends(backend);
+
+        Metrics.Timer timer = Metrics.getInstance().startTimer("translation");
+        // a running timer keeps the backends it was started with
+        Metrics.getInstance().setBackends();
+        timer.stop();
+        timer.stop();
+
+        Assert.assertEquals(1, backend.mStopped.size());
+        Assert.assertEquals("translation", backend.mStopped.get(0));
+        Assert.assertEquals("The handle of the start should be passed to the stop", 1, backend.mHandlesSeen);
+    }
+
+    /**
+     * Keeps the names of the timers that are stopped.
+     */
+    private static final class RecordingBackend implements Metrics.Backend {
+        private final Object mHandle = new Object();
+        private final List<String> mStopped = new ArrayList<>();
+        private int mHandlesSeen = 0;
+
+        @Override
+        public Object startTimer(String name) {
+            return mHandle;
+        }
+
+        @Override
+        public void stopTimer(String name, Object handle, long durationMillis, Map<String, String> attributes) {
+            mStopped.add(name);
+            if (handle == mHandle) {
+                mHandlesSeen++;
+            }
+        }
+
+        @Override
+        public void count(String name, long amount) {
+            // not needed
+        }
+
+        @Override
+        public void record(String name, long value) {
+            // not needed
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.aurora.hulpchef.utilities;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ProgressEstimatorUnitTest {
+
+    @Test
+    public void StageModel_durationsOnALine_slopeIsFit() {
+        ProgressEstimator.StageModel model = new ProgressEstimator.StageModel(true);
+        // 500ms of overhead and 2ms per character
+        for (int size : new int[]{1000, 4000, 2000, 8000}) {
+            model.add(size, 500 + 2L * size);
+        }
+
+        Assert.assertEquals(500 + 2 * 6000, model.estimate(6000), 1);
+        Assert.assertEquals(500 + 2 * 16000, model.estimate(16000), 1);
+    }
+
+    @Test
+    public void StageModel_oneInputSize_scaledOrMean() {
+        ProgressEstimator.StageModel scales = new ProgressEstimator.StageModel(true);
+        ProgressEstimator.StageModel fixed = new ProgressEstimator.StageModel(false);
+        scales.add(1000, 3000);
+        fixed.add(1000, 3000);
+
+        Assert.assertEquals("A stage that scales with the input is proportional to it", 6000, scales.estimate(2000));
+        Assert.assertEquals("A fixed stage takes as long as before", 3000, fixed.estimate(2000));
+    }
+
+    @Test
+    public void StageModel_newMeasurements_weighMore() {
+        ProgressEstimator.StageModel model = new ProgressEstimator.StageModel(false);
+        for (int i = 0; i < 5; i++) {
+            model.add(0, 1000);
+        }
+        for (int i = 0; i < 5; i++) {
+            model.add(0, 3000);
+        }
+
+        Assert.assertTrue("The device got slower, the estimate should follow", model.estimate(0) > 2000);
+    }
+
+    @Test
+    public void StageModel_toStringAndParse_sameEstimates() {
+        ProgressEstimator.StageModel model = new ProgressEstimator.StageModel(true);
+        model.add(1200, 2500);
+        model.add(3000, 6100);
+
+        ProgressEstimator.StageModel parsed = ProgressEstimator.StageModel.parse(model.toString());
+
+        Assert.assertNotNull(parsed);
+        Assert.assertEquals(model.estimate(5000), parsed.estimate(5000));
+        Assert.assertEquals(model.getMeanInputSize(), parsed.getMeanInputSize());
+        Assert.assertNull(ProgressEstimator.StageModel.parse("true,1,2"));
+        Assert.assertNull(ProgressEstimator.StageModel.parse(null));
+    }
+
+    @Test
+    public void Estimate_progressAt_linearThenSlowsDownBelowMax() {
+        ProgressEstimator.Estimate estimate = new ProgressEstimator.Estimate(20, 1000, 4000);
+
+        Assert.assertEquals(20, estimate.progressAt(500), 1e-9);
+        Assert.assertEquals(20 + 80 * 0.45, estimate.progressAt(3000), 1e-9);
+        Assert.assertEquals(20 + 80 * 0.9, estimate.progressAt(5000), 1e-9);
+        double late = estimate.progressAt(13000);
+        Assert.assertTrue(late > estimate.progressAt(9000));
+        Assert.assertTrue("The progress only reaches the end when the work is done",
+                late < ProgressEstimator.MAX_PROGRESS - 0.8);
+        Assert.assertEquals(1500, estimate.remainingMillisAt(3500));
+        Assert.assertEquals(0, estimate.remainingMillisAt(6000));
+    }
+
+    @Test
+    public void Estimate_timeOfProgress_inverseOfProgressAt() {
+        ProgressEstimator.Estimate estimate = new ProgressEstimator.Estimate(10, 0, 6000);
+
+        for (int progress = 11; progress < 99; progress++) {
+            long time = estimate.timeOfProgress(progress);
+            Assert.assertTrue(estimate.progressAt(time) >= progress);
+            Assert.assertTrue(estimate.progressAt(time - 1) < progress);
+        }
+        Assert.assertEquals(Long.MAX_VALUE, estimate.timeOfProgress(ProgressEstimator.MAX_PROGRESS));
+    }
+}
@@ -0,0 +1,68 @@
+package com.aurora.hulpchef.utilities;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RecipeTextStoreUnitTest {
+
+    @Test
+    public void RecipeTextStore_span_viewsTextWithoutCopy() {
+        RecipeTextStore.Builder builder = new RecipeTextStore.Builder();
+        int first = builder.append("Preheat the oven.");
+        int second = builder.append("Add 200 g flour.");
+        RecipeTextStore store = builder.build();
+
+        Assert.assertEquals(0, first);
+        Assert.assertEquals("Preheat the oven.".length(), second);
+        CharSequence span = store.span(second, "Add 200 g flour.".length());
+        Assert.assertEquals("Add 200 g flour.", span.toString());
+        Assert.assertEquals('A', span.charAt(0));
+        Assert.assertEquals("200 g", span.subSequence(4, 9).toString());
+        Assert.assertEquals("g", span.subSequence(4, 9).subSequence(4, 5).toString());
+    }
+
+    @Test
+    public void RecipeTextStore_intern_sameOffsetForEqualText() {
+        RecipeTextStore.Builder builder = new RecipeTextStore.Builder();
+        int gram = builder.intern("gram");
+        int cup = builder.intern("cup");
+        int gramAgain = builder.intern(new String("gram"));
+        RecipeTextStore store = builder.build();
+
+        Assert.assertEquals("Equal text should only be stored once", gram, gramAgain);
+        Assert.assertNotEquals(gram, cup);
+        Assert.assertEquals("gramcup".length(), store.length());
+    }
+
+    @Test
+    public void RecipeTextStore_appendTo_appendsRegion() {
+        RecipeTextStore.Builder builder = new RecipeTextStore.Builder();
+        int offset = builder.append("Stir for 5 minutes.");
+        RecipeTextStore store = builder.build();
+        StringBuilder text = new StringBuilder("Then: ");
+
+        store.appendTo(text, offset + 5, 3);
+
+        Assert.assertEquals("Then: for", text.toString());
+    }
+
+    @Test
+    public void RecipeTextStore_regionEquals_comparesAcrossStores() {
+        RecipeTextStore.Builder firstBuilder = new RecipeTextStore.Builder();
+        firstBuilder.append("Boil the water.");
+        RecipeTextStore first = firstBuilder.build();
+        RecipeTextStore.Builder secondBuilder = new RecipeTextStore.Builder();
+        secondBuilder.append("Then boil the pasta.");
+        RecipeTextStore second = secondBuilder.build();
+
+        Assert.assertTrue(first.regionEquals(1, second, 6, "oil the ".length()));
+        Assert.assertFalse(first.regionEquals(0, second, 5, "Boil".length()));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void RecipeTextStore_spanOutOfBounds_throws() {
+        RecipeTextStore.Builder builder = new RecipeTextStore.Builder();
+        builder.append("Serve.");
+        builder.build().span(3, 10);
+    }
+}
@@ -0,0 +1,71 @@
+package com.aurora.hulpchef.utilities;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TimerBlinkClockUnitTest {
+
+    @Test
+    public void TimerBlinkClock_unsubscribeLastListener_clockStops() {
+        FakeScheduler scheduler = new FakeScheduler();
+        TimerBlinkClock clock = new TimerBlinkClock(scheduler);
+        TimerBlinkClock.BlinkListener first = (boolean dark) -> {
+        };
+        TimerBlinkClock.BlinkListener second = (boolean dark) -> {
+        };
+
+        clock.subscribe(first);
+        clock.subscribe(second);
+        Assert.assertTrue(clock.isRunning());
+        Assert.assertEquals("Only one tick should be scheduled for several timers", 1, scheduler.mPosted.size());
+
+        clock.unsubscribe(first);
+        Assert.assertTrue("The clock should keep running while a timer is alarming", clock.isRunning());
+
+        clock.unsubscribe(second);
+        Assert.assertFalse("The clock should stop after the last timer is dismissed", clock.isRunning());
+        Assert.assertTrue("No tick should be left on the main thread", scheduler.mPosted.isEmpty());
+    }
+
+    @Test
+    public void TimerBlinkClock_tick_allListenersInSameColor() {
+        FakeScheduler scheduler = new FakeScheduler();
+        TimerBlinkClock clock = new TimerBlinkClock(scheduler);
+        List<Boolean> firstColors = new ArrayList<>();
+        List<Boolean> secondColors = new ArrayList<>();
+
+        clock.subscribe(firstColors::add);
+        clock.subscribe(secondColors::add);
+        scheduler.runNext();
+        scheduler.runNext();
+
+        Assert.assertEquals(2, firstColors.size());
+        Assert.assertEquals("All alarming timers should blink synchronised", firstColors, secondColors);
+        Assert.assertNotEquals(firstColors.get(0), firstColors.get(1));
+        Assert.assertEquals(1, scheduler.mPosted.size());
+    }
+
+    /**
+     * Scheduler that keeps the posted runnables, so the test decides when they run
+     */
+    private static class FakeScheduler implements TimerBlinkClock.Scheduler {
+        private final List<Runnable> mPosted = new ArrayList<>();
+
+        @Override
+        public void postDelayed(Runnable runnable, long delayMillis) {
+            mPosted.add(runnable);
+        }
+
+        @Override
+        public void removeCallbacks(Runnable runnable) {
+            mPosted.remove(runnable);
+        }
+
+        void runNext() {
+            mPosted.remove(0).run();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.aurora.hulpchef.utilities;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+public class TimerTextFormatterLongTest {
+    /**
+     * The amount of ticks that is benchmarked. Large enough to amortise the cost of measuring.
+     */
+    private static final int TICKS = 1_000_000;
+    private static final int MILLIS = 1000;
+
+    @Test
+    public void TimerTextFormatter_format_expectedText() {
+        TimerTextFormatter formatter = new TimerTextFormatter();
+
+        formatter.format(0);
+        Assert.assertEquals("00:00", formatter.toString());
+        formatter.format(65 * MILLIS + 999);
+        Assert.assertEquals("01:05", formatter.toString());
+        formatter.format((10 * 3600 + 2 * 60 + 3) * MILLIS);
+        Assert.assertEquals("10:02:03", formatter.toString());
+        Assert.assertFalse("The same second should not change the text", formatter.format(
+                (10 * 3600 + 2 * 60 + 3) * MILLIS + 500));
+    }
+
+    @Test
+    public void TimerTextFormatter_benchmarkTicks_noAllocations() {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        TimerTextFormatter formatter = new TimerTextFormatter();
+
+        // warm up, so the measurement is not polluted by class loading and compilation
+        runTicks(formatter);
+
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        int changed = runTicks(formatter);
+        long duration = System.nanoTime() - start;
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        Assert.assertEquals(TICKS, changed);
+        Assert.assertEquals("Formatting a tick should not allocate, but " + TICKS + " ticks allocated "
+                + allocated + " bytes in " + duration / MILLIS / MILLIS + " ms", 0, allocated / TICKS);
+    }
+
+    /**
+     * Format {@value TICKS} consecutive seconds of a long running timer
+     *
+     * @param formatter the formatter to use
+     * @return the amount of ticks that changed the text
+     */
+    private static int runTicks(TimerTextFormatter formatter) {
+        int changed = 0;
+        for (int i = TICKS; i > 0; i--) {
+            if (formatter.format((long) i * MILLIS)) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+}